@@ -2,9 +2,11 @@ package bio.terra.profile.app;
 
 import bio.terra.common.migrate.LiquibaseMigrator;
 import bio.terra.profile.app.configuration.AzureConfiguration;
+import bio.terra.profile.app.configuration.PolicyBackfillConfiguration;
 import bio.terra.profile.app.configuration.ProfileDatabaseConfiguration;
 import bio.terra.profile.app.configuration.SentryConfiguration;
 import bio.terra.profile.service.job.JobService;
+import bio.terra.profile.service.profile.ProfileService;
 import io.sentry.Sentry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -34,6 +36,10 @@ public final class StartupInitializer {
     // The JobService initialization also handles Stairway initialization.
     jobService.initialize();
 
+    if (applicationContext.getBean(PolicyBackfillConfiguration.class).enabled()) {
+      applicationContext.getBean(ProfileService.class).submitPolicyBackfill();
+    }
+
     if (sentryConfiguration.dsn().isEmpty()) {
       logger.info("No Sentry DSN found. Starting up without it.");
     } else {
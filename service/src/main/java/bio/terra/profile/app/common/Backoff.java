@@ -0,0 +1,28 @@
+package bio.terra.profile.app.common;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Exponential backoff with full jitter: the delay before retry {@code n} is drawn uniformly from
+ * zero to {@code initial * 2^n}, capped at {@code maximum}. The jitter spreads out retries from
+ * callers that failed at the same time, rather than having them retry in lockstep.
+ *
+ * @param initial the upper bound on the delay before the first retry
+ * @param maximum the upper bound on any delay
+ */
+public record Backoff(Duration initial, Duration maximum) {
+
+  /**
+   * @param retry the zero-based retry number
+   * @return how long to wait before the retry
+   */
+  public Duration delay(int retry) {
+    long ceiling = maximum.toMillis();
+    // Stop doubling once past the maximum, so the shift cannot overflow.
+    if (retry < Long.numberOfLeadingZeros(initial.toMillis()) - 1) {
+      ceiling = Math.min(ceiling, initial.toMillis() << retry);
+    }
+    return Duration.ofMillis(ThreadLocalRandom.current().nextLong(ceiling + 1));
+  }
+}
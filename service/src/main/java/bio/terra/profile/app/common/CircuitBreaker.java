@@ -0,0 +1,84 @@
+package bio.terra.profile.app.common;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * A circuit breaker for calls to a dependency. After {@code failureThreshold} consecutive failures
+ * the breaker opens and calls are rejected without being made. Once {@code openDuration} has
+ * passed, a single trial call is let through: if it succeeds the breaker closes, and if it fails
+ * the breaker opens again.
+ */
+public class CircuitBreaker {
+
+  public enum State {
+    CLOSED,
+    OPEN,
+    HALF_OPEN
+  }
+
+  private final int failureThreshold;
+  private final Duration openDuration;
+  private final Clock clock;
+
+  private State state = State.CLOSED;
+  private int consecutiveFailures;
+  private Instant openedAt;
+  private boolean trialInFlight;
+
+  public CircuitBreaker(int failureThreshold, Duration openDuration, Clock clock) {
+    this.failureThreshold = failureThreshold;
+    this.openDuration = openDuration;
+    this.clock = clock;
+  }
+
+  /**
+   * Asks permission to make a call. Every permitted call must be followed by exactly one of {@link
+   * #recordSuccess}, {@link #recordFailure} or {@link #recordAbandoned}.
+   *
+   * @return true if the call may be made; false if it should fail fast
+   */
+  public synchronized boolean tryAcquire() {
+    if (state == State.OPEN && !clock.instant().isBefore(openedAt.plus(openDuration))) {
+      state = State.HALF_OPEN;
+    }
+    return switch (state) {
+      case CLOSED -> true;
+      case OPEN -> false;
+      case HALF_OPEN -> {
+        if (trialInFlight) {
+          yield false;
+        }
+        trialInFlight = true;
+        yield true;
+      }
+    };
+  }
+
+  /** Records that the dependency responded, even if the response was an error on our side. */
+  public synchronized void recordSuccess() {
+    state = State.CLOSED;
+    consecutiveFailures = 0;
+    trialInFlight = false;
+  }
+
+  /** Records that the dependency failed or timed out. */
+  public synchronized void recordFailure() {
+    trialInFlight = false;
+    consecutiveFailures++;
+    if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+      state = State.OPEN;
+      openedAt = clock.instant();
+    }
+  }
+
+  /** Records that a permitted call ended without an outcome, e.g. because it was interrupted. */
+  public synchronized void recordAbandoned() {
+    trialInFlight = false;
+  }
+
+  public synchronized State getState() {
+    return state;
+  }
+}
@@ -2,13 +2,20 @@ package bio.terra.profile.app.common;
 
 import bio.terra.profile.model.CloudPlatform;
 import bio.terra.profile.service.profile.model.ProfileDescription;
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
 import java.util.concurrent.Callable;
 
 public class MetricUtils {
 
   private static final String NAMESPACE = "bpm";
   private static final String CLOUD_PLATFORM_TAG = "cloudPlatform";
+  private static final String SERVICE_TAG = "service";
+  private static final String OPERATION_TAG = "operation";
+  private static final String OUTCOME_TAG = "outcome";
 
   private MetricUtils() {}
 
@@ -49,4 +56,98 @@ public class MetricUtils {
             platform.toString())
         .increment();
   }
+
+  /**
+   * Export hit, miss, and eviction metrics for an in-memory cache. The cache must have been built
+   * with {@code recordStats()}.
+   *
+   * @param cache the cache to monitor
+   * @param cacheName the value of the {@code cache} tag on the exported metrics
+   */
+  public static <K, V> Cache<K, V> monitorCache(Cache<K, V> cache, String cacheName) {
+    return CaffeineCacheMetrics.monitor(
+        Metrics.globalRegistry, cache, String.format("%s.%s", NAMESPACE, cacheName));
+  }
+
+  /**
+   * Export the state of a circuit breaker as a gauge: 0 when closed, 1 when open, and 2 when half
+   * open.
+   *
+   * @param service the dependency the breaker guards
+   * @param operation the operation the breaker guards
+   * @param circuitBreaker the breaker to monitor
+   */
+  public static void monitorCircuitBreaker(
+      String service, String operation, CircuitBreaker circuitBreaker) {
+    Gauge.builder(
+            String.format("%s.circuitBreaker.state", NAMESPACE),
+            circuitBreaker,
+            breaker -> breaker.getState().ordinal())
+        .description("0 = closed, 1 = open, 2 = half open")
+        .tags(SERVICE_TAG, service, OPERATION_TAG, operation)
+        .register(Metrics.globalRegistry);
+  }
+
+  /**
+   * Emit a metric for a call rejected because its circuit breaker is open.
+   *
+   * @param service the dependency the breaker guards
+   * @param operation the operation that was rejected
+   */
+  public static void incrementCircuitBreakerRejection(String service, String operation) {
+    Metrics.globalRegistry
+        .counter(
+            String.format("%s.circuitBreaker.rejected.count", NAMESPACE),
+            SERVICE_TAG,
+            service,
+            OPERATION_TAG,
+            operation)
+        .increment();
+  }
+
+  /**
+   * Emit a metric for a retry that was not made because the retry budget is spent.
+   *
+   * @param service the dependency being retried
+   */
+  public static void incrementRetryBudgetExhaustion(String service) {
+    Metrics.globalRegistry
+        .counter(String.format("%s.retry.budgetExhausted.count", NAMESPACE), SERVICE_TAG, service)
+        .increment();
+  }
+
+  /**
+   * Emit a metric for a response served without data from a dependency that failed or was too slow.
+   *
+   * @param service the dependency whose data is missing
+   * @param operation the operation that returned a degraded response
+   */
+  public static void incrementDegradedResponse(String service, String operation) {
+    Metrics.globalRegistry
+        .counter(
+            String.format("%s.degradedResponse.count", NAMESPACE),
+            SERVICE_TAG,
+            service,
+            OPERATION_TAG,
+            operation)
+        .increment();
+  }
+
+  /**
+   * Emit a metric for the latency and outcome of refreshing a service access token.
+   *
+   * @param service the service the token is for
+   * @param latency how long the refresh took
+   * @param succeeded whether a new token was obtained
+   */
+  public static void recordAccessTokenRefresh(String service, Duration latency, boolean succeeded) {
+    Metrics.globalRegistry
+        .timer(
+            String.format("%s.accessToken.refresh.time", NAMESPACE),
+            SERVICE_TAG,
+            service,
+            OUTCOME_TAG,
+            succeeded ? "success" : "failure")
+        .record(latency);
+  }
 }
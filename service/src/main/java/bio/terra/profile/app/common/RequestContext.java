@@ -0,0 +1,45 @@
+package bio.terra.profile.app.common;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import org.slf4j.MDC;
+
+/**
+ * Carries the per-request state held in thread locals - the logging context (including the request
+ * id forwarded to downstream services) and the {@link RequestDeadline} - over to work the request
+ * hands off to executor threads.
+ */
+public final class RequestContext {
+
+  private RequestContext() {}
+
+  /**
+   * Wraps a task so that it runs with the calling thread's logging context and request deadline.
+   * The worker thread's own state is restored once the task completes.
+   *
+   * @param task the task to run on another thread
+   * @return a task carrying the current request context
+   */
+  public static <T> Callable<T> propagate(Callable<T> task) {
+    Map<String, String> mdc = MDC.getCopyOfContextMap();
+    Instant deadline = RequestDeadline.current().orElse(null);
+    return () -> {
+      Map<String, String> previousMdc = MDC.getCopyOfContextMap();
+      setMdc(mdc);
+      try (var ignored = RequestDeadline.set(deadline)) {
+        return task.call();
+      } finally {
+        setMdc(previousMdc);
+      }
+    };
+  }
+
+  private static void setMdc(Map<String, String> contextMap) {
+    if (contextMap == null) {
+      MDC.clear();
+    } else {
+      MDC.setContextMap(contextMap);
+    }
+  }
+}
@@ -0,0 +1,52 @@
+package bio.terra.profile.app.common;
+
+import java.time.Instant;
+import java.util.Optional;
+import javax.annotation.Nullable;
+
+/**
+ * The deadline of the API request being handled on the current thread, if any. Retry loops use it
+ * to stop waiting once the caller has given up, while threads that are not serving a request (e.g.
+ * flight steps) have no deadline and keep their full retry budget.
+ */
+public final class RequestDeadline {
+  private static final ThreadLocal<Instant> deadline = new ThreadLocal<>();
+
+  private RequestDeadline() {}
+
+  /**
+   * @return the deadline of the current request, or empty if the thread is not serving one
+   */
+  public static Optional<Instant> current() {
+    return Optional.ofNullable(deadline.get());
+  }
+
+  /**
+   * Sets the deadline for the current thread until the returned scope is closed, at which point the
+   * previous deadline is restored.
+   *
+   * @param newDeadline the deadline, or null for none
+   */
+  public static Scope set(@Nullable Instant newDeadline) {
+    Instant previous = deadline.get();
+    if (newDeadline == null) {
+      deadline.remove();
+    } else {
+      deadline.set(newDeadline);
+    }
+    return () -> {
+      if (previous == null) {
+        deadline.remove();
+      } else {
+        deadline.set(previous);
+      }
+    };
+  }
+
+  /** Restores the previous deadline when closed. */
+  @FunctionalInterface
+  public interface Scope extends AutoCloseable {
+    @Override
+    void close();
+  }
+}
@@ -0,0 +1,37 @@
+package bio.terra.profile.app.common;
+
+/**
+ * Limits retries to a fraction of the calls made, so that retries cannot multiply the load on a
+ * dependency that is already failing. Each call deposits {@code ratio} tokens, up to {@code
+ * maxTokens}, and each retry withdraws one. The budget starts full, so isolated failures are always
+ * retried.
+ */
+public class RetryBudget {
+  private final double ratio;
+  private final double maxTokens;
+  private double tokens;
+
+  public RetryBudget(double ratio, double maxTokens) {
+    this.ratio = ratio;
+    this.maxTokens = maxTokens;
+    this.tokens = maxTokens;
+  }
+
+  /** Records a call, adding to the budget. */
+  public synchronized void recordCall() {
+    tokens = Math.min(maxTokens, tokens + ratio);
+  }
+
+  /**
+   * Withdraws a retry from the budget.
+   *
+   * @return true if the retry may be made; false if the budget is spent
+   */
+  public synchronized boolean tryRetry() {
+    if (tokens < 1) {
+      return false;
+    }
+    tokens--;
+    return true;
+  }
+}
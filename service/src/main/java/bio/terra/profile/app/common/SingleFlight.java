@@ -0,0 +1,73 @@
+package bio.terra.profile.app.common;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Coalesces concurrent identical calls: while a call for a key is in flight, other callers for the
+ * same key wait for and share its result instead of making their own call. Nothing is kept once the
+ * call completes, so this never serves a stale result.
+ *
+ * <p>Keys must identify everything that affects the result, including the caller's identity where
+ * the result depends on it.
+ *
+ * @param <K> the key identifying identical calls
+ * @param <V> the result of the call
+ */
+public class SingleFlight<K, V> {
+  private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+  /**
+   * The call to coalesce.
+   *
+   * @param <V> the result of the call
+   */
+  @FunctionalInterface
+  public interface Call<V> {
+    V call() throws InterruptedException;
+  }
+
+  /**
+   * Makes the call, or waits for the result of an identical call already in flight. Exceptions
+   * thrown by the call are rethrown to every caller sharing it.
+   *
+   * @param key the key identifying identical calls
+   * @param call the call to make if none is in flight for the key
+   * @return the result of the call
+   * @throws InterruptedException if this thread, or the call it makes, is interrupted
+   */
+  public V execute(K key, Call<V> call) throws InterruptedException {
+    var future = new CompletableFuture<V>();
+    var existing = inFlight.putIfAbsent(key, future);
+    if (existing != null) {
+      return await(existing, call);
+    }
+    try {
+      V result = call.call();
+      future.complete(result);
+      return result;
+    } catch (RuntimeException | Error | InterruptedException e) {
+      future.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.remove(key, future);
+    }
+  }
+
+  private V await(CompletableFuture<V> existing, Call<V> call) throws InterruptedException {
+    try {
+      return existing.get();
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      if (e.getCause() instanceof Error error) {
+        throw error;
+      }
+      // The thread making the call was interrupted, but this one was not, so make the call.
+      return call.call();
+    }
+  }
+}
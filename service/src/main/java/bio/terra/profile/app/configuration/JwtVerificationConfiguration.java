@@ -0,0 +1,28 @@
+package bio.terra.profile.app.configuration;
+
+import java.time.Duration;
+import java.util.Set;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration for verifying caller JWTs locally instead of resolving every token through Sam.
+ *
+ * @param enabled whether JWTs from the configured issuer are verified locally
+ * @param issuer the token issuer whose JWTs are verified locally; tokens from any other issuer are
+ *     resolved through Sam as usual
+ * @param audiences the audiences a locally verified token must be minted for; tokens the issuer
+ *     minted for other clients are rejected
+ * @param jwksUri where the issuer publishes its signing keys
+ * @param jwksRefreshInterval how long fetched signing keys are used before they are refreshed
+ * @param userTtl how long Sam's status for a verified subject is cached
+ * @param maximumUsers the maximum number of verified subjects held in the cache
+ */
+@ConfigurationProperties(prefix = "profile.auth.jwt")
+public record JwtVerificationConfiguration(
+    boolean enabled,
+    String issuer,
+    Set<String> audiences,
+    String jwksUri,
+    Duration jwksRefreshInterval,
+    Duration userTtl,
+    long maximumUsers) {}
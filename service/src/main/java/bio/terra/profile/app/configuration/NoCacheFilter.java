@@ -3,8 +3,15 @@ package bio.terra.profile.app.configuration;
 import jakarta.servlet.*;
 import jakarta.servlet.annotation.WebFilter;
 import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
 import java.io.IOException;
+import org.springframework.http.HttpHeaders;
 
+/**
+ * Keeps API responses out of caches by default. A handler can still choose its own caching, e.g.
+ * for responses carrying an ETag that clients should store and revalidate; its Cache-Control then
+ * replaces the default rather than being added alongside it, where no-store would win.
+ */
 @WebFilter(urlPatterns = {"/api/*"})
 public class NoCacheFilter implements Filter {
 
@@ -12,7 +19,22 @@ public class NoCacheFilter implements Filter {
   public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
       throws IOException, ServletException {
     var servletResponse = (HttpServletResponse) response;
-    servletResponse.setHeader("Cache-Control", "no-store");
-    chain.doFilter(request, response);
+    servletResponse.setHeader(HttpHeaders.CACHE_CONTROL, "no-store");
+    chain.doFilter(request, new CacheControlReplacingResponse(servletResponse));
+  }
+
+  private static class CacheControlReplacingResponse extends HttpServletResponseWrapper {
+    CacheControlReplacingResponse(HttpServletResponse response) {
+      super(response);
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+      if (HttpHeaders.CACHE_CONTROL.equalsIgnoreCase(name)) {
+        setHeader(name, value);
+      } else {
+        super.addHeader(name, value);
+      }
+    }
   }
 }
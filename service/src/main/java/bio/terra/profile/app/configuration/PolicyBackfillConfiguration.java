@@ -0,0 +1,20 @@
+package bio.terra.profile.app.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration for the flight that creates policy attribute objects (PAOs) in TPS for billing
+ * profiles that predate them.
+ *
+ * @param enabled whether the backfill is submitted at startup. Off by default so that each
+ *     environment opts in once TPS is ready for a pass over every profile; until the backfill has
+ *     run, reads of older profiles rely on the PAO cache remembering that they have no PAO.
+ * @param jobId the id of the backfill job. A job with this id is not submitted again while Stairway
+ *     still holds it, so change the id to run the backfill again sooner. Stairway forgets completed
+ *     flights after its completed-flight-retention, and the next startup then reruns the backfill;
+ *     that only costs a pass over the profiles, since it creates nothing for those that already
+ *     have a PAO.
+ * @param batchSize how many profiles are checked against TPS at a time
+ */
+@ConfigurationProperties(prefix = "profile.policy.backfill")
+public record PolicyBackfillConfiguration(boolean enabled, String jobId, int batchSize) {}
@@ -0,0 +1,17 @@
+package bio.terra.profile.app.configuration;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration for the in-memory cache of policy attribute objects (PAOs) read from TPS.
+ *
+ * @param enabled whether PAOs are cached at all
+ * @param maximumSize the maximum number of PAOs held in the cache
+ * @param ttl how long a PAO is cached; BPM's own writes invalidate it sooner
+ * @param missingTtl how long TPS's answer that an object has no PAO is cached. Kept short, since a
+ *     PAO created through another BPM instance is not seen here until the answer expires.
+ */
+@ConfigurationProperties(prefix = "profile.policy.cache")
+public record PolicyCacheConfiguration(
+    boolean enabled, long maximumSize, Duration ttl, Duration missingTtl) {}
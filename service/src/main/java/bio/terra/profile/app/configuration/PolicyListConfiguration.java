@@ -0,0 +1,15 @@
+package bio.terra.profile.app.configuration;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * How BPM reads the PAOs for a page of profiles from TPS.
+ *
+ * @param chunkSize the maximum number of PAOs requested from TPS in a single call
+ * @param maxConcurrentChunks the maximum number of chunks a single read has in flight at once
+ * @param timeout how long listing profiles waits for their PAOs before returning the profiles
+ *     without them
+ */
+@ConfigurationProperties(prefix = "profile.policy.list")
+public record PolicyListConfiguration(int chunkSize, int maxConcurrentChunks, Duration timeout) {}
@@ -8,7 +8,10 @@ import com.google.auth.oauth2.GoogleCredentials;
 import com.google.auth.oauth2.ServiceAccountCredentials;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.time.Instant;
+import java.util.Date;
 import java.util.List;
+import java.util.Optional;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
@@ -23,6 +26,8 @@ public class PolicyServiceConfiguration {
   private String basePath;
   private String clientCredentialFilePath;
   private final AzureConfiguration azureConfiguration;
+  private TokenCredential azureCredential;
+  private GoogleCredentials googleCredentials;
 
   private static final List<String> POLICY_SERVICE_ACCOUNT_SCOPES =
       List.of("openid", "email", "profile");
@@ -48,29 +53,57 @@ public class PolicyServiceConfiguration {
     this.azureConfiguration = azureConfiguration;
   }
 
-  public String getAccessToken() throws IOException {
+  /**
+   * Fetches a new access token for calling TPS. This always makes a token request, so callers
+   * should cache the result until shortly before it expires.
+   *
+   * <p>The underlying credentials are loaded once and reused, so the credential file is only read
+   * on the first call.
+   */
+  public PolicyServiceAccessToken fetchAccessToken() throws IOException {
     if (azureConfiguration.controlPlaneEnabled()) {
-
-      TokenCredential credential =
-          new DefaultAzureCredentialBuilder()
-              .authorityHost(azureConfiguration.getAzureEnvironment().getActiveDirectoryEndpoint())
-              .build();
-
       // The Microsoft Authentication Library (MSAL) currently specifies offline_access, openid,
       // profile, and email by default in authorization and token requests.
       com.azure.core.credential.AccessToken token =
-          credential
+          getAzureCredential()
               .getToken(new TokenRequestContext().addScopes(azureConfiguration.authTokenScope()))
               .block();
-      return token.getToken();
+      return new PolicyServiceAccessToken(token.getToken(), token.getExpiresAt().toInstant());
     } else {
+      AccessToken token = getGoogleCredentials().refreshAccessToken();
+      // A token without an expiration time is treated as already stale, so it is never cached
+      return new PolicyServiceAccessToken(
+          token.getTokenValue(),
+          Optional.ofNullable(token.getExpirationTime()).map(Date::toInstant).orElse(Instant.MIN));
+    }
+  }
+
+  private synchronized TokenCredential getAzureCredential() {
+    if (azureCredential == null) {
+      azureCredential =
+          new DefaultAzureCredentialBuilder()
+              .authorityHost(azureConfiguration.getAzureEnvironment().getActiveDirectoryEndpoint())
+              .build();
+    }
+    return azureCredential;
+  }
+
+  private synchronized GoogleCredentials getGoogleCredentials() throws IOException {
+    if (googleCredentials == null) {
       try (FileInputStream fileInputStream = new FileInputStream(clientCredentialFilePath)) {
-        GoogleCredentials credentials =
+        googleCredentials =
             ServiceAccountCredentials.fromStream(fileInputStream)
                 .createScoped(POLICY_SERVICE_ACCOUNT_SCOPES);
-        AccessToken token = credentials.refreshAccessToken();
-        return token.getTokenValue();
       }
     }
+    return googleCredentials;
   }
+
+  /**
+   * An access token for calling TPS.
+   *
+   * @param value the bearer token
+   * @param expiresAt when the token stops being accepted
+   */
+  public record PolicyServiceAccessToken(String value, Instant expiresAt) {}
 }
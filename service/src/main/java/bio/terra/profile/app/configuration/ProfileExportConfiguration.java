@@ -0,0 +1,12 @@
+package bio.terra.profile.app.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * How BPM streams the export of all billing profiles.
+ *
+ * @param fetchSize the number of rows read from the database cursor at a time
+ * @param batchSize the number of profiles whose policies are read from TPS together
+ */
+@ConfigurationProperties(prefix = "profile.export")
+public record ProfileExportConfiguration(int fetchSize, int batchSize) {}
@@ -0,0 +1,13 @@
+package bio.terra.profile.app.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * How BPM reads a single billing profile from the database while the caller's access is checked.
+ *
+ * @param threads the number of reads that can run at once, across all requests
+ * @param queueCapacity the number of reads that can wait for a thread; further reads run on the
+ *     request thread once access has been checked
+ */
+@ConfigurationProperties(prefix = "profile.read")
+public record ProfileReadConfiguration(int threads, int queueCapacity) {}
@@ -0,0 +1,13 @@
+package bio.terra.profile.app.configuration;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration for the deadline given to each API request.
+ *
+ * @param timeout how long an API request may spend retrying calls to other services before it gives
+ *     up; work done in flights is not bound by it
+ */
+@ConfigurationProperties(prefix = "profile.request-deadline")
+public record RequestDeadlineConfiguration(Duration timeout) {}
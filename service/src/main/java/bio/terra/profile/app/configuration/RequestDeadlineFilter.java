@@ -0,0 +1,26 @@
+package bio.terra.profile.app.configuration;
+
+import bio.terra.profile.app.common.RequestDeadline;
+import jakarta.servlet.*;
+import jakarta.servlet.annotation.WebFilter;
+import java.io.IOException;
+import java.time.Instant;
+
+/** Gives each API request a deadline, after which calls to other services stop retrying. */
+@WebFilter(urlPatterns = {"/api/*"})
+public class RequestDeadlineFilter implements Filter {
+  private final RequestDeadlineConfiguration requestDeadlineConfiguration;
+
+  public RequestDeadlineFilter(RequestDeadlineConfiguration requestDeadlineConfiguration) {
+    this.requestDeadlineConfiguration = requestDeadlineConfiguration;
+  }
+
+  @Override
+  public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+      throws IOException, ServletException {
+    try (var ignored =
+        RequestDeadline.set(Instant.now().plus(requestDeadlineConfiguration.timeout()))) {
+      chain.doFilter(request, response);
+    }
+  }
+}
@@ -0,0 +1,29 @@
+package bio.terra.profile.app.configuration;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/** Configuration for the in-memory caches BPM keeps in front of Sam. */
+@ConfigurationProperties(prefix = "profile.sam.cache")
+public record SamCacheConfiguration(
+    UserStatus userStatus, Settings authorization, Settings profileIds) {
+
+  /**
+   * Cache of Sam user status lookups, keyed by a hash of the caller's token.
+   *
+   * @param enabled whether lookups are cached at all
+   * @param maximumSize the maximum number of tokens held in the cache
+   * @param ttl how long an enabled user is cached; entries never outlive the token itself
+   * @param disabledTtl how long a disabled user is cached
+   */
+  public record UserStatus(boolean enabled, long maximumSize, Duration ttl, Duration disabledTtl) {}
+
+  /**
+   * Settings for a cache whose entries expire a fixed time after they are written.
+   *
+   * @param enabled whether results are cached at all
+   * @param maximumSize the maximum number of entries held in the cache
+   * @param ttl how long an entry is cached
+   */
+  public record Settings(boolean enabled, long maximumSize, Duration ttl) {}
+}
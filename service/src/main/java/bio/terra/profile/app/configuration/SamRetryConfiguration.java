@@ -0,0 +1,39 @@
+package bio.terra.profile.app.configuration;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * How BPM retries Sam calls, and when it stops calling Sam altogether.
+ *
+ * @param maxAttempts the maximum number of attempts at a single call, including the first
+ * @param initialBackoff the upper bound on the jittered delay before the first retry; it doubles
+ *     for each later retry
+ * @param maxBackoff the upper bound on any delay between retries
+ * @param budget limits retries across all calls
+ * @param circuitBreaker stops calling Sam for an operation that keeps failing
+ * @param flightCallTimeout how long a call made by a flight step keeps retrying; these calls are
+ *     not limited by the budget, the circuit breakers or the maximum number of attempts
+ */
+@ConfigurationProperties(prefix = "profile.sam.retry")
+public record SamRetryConfiguration(
+    int maxAttempts,
+    Duration initialBackoff,
+    Duration maxBackoff,
+    Budget budget,
+    CircuitBreaker circuitBreaker,
+    Duration flightCallTimeout) {
+
+  /**
+   * @param ratio the number of retries earned by each call
+   * @param maxTokens the maximum number of retries that can be saved up
+   */
+  public record Budget(double ratio, double maxTokens) {}
+
+  /**
+   * @param failureThreshold the number of consecutive failures of an operation that opens its
+   *     breaker
+   * @param openDuration how long a breaker stays open before letting a trial call through
+   */
+  public record CircuitBreaker(int failureThreshold, Duration openDuration) {}
+}
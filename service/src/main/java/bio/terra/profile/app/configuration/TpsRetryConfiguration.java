@@ -0,0 +1,17 @@
+package bio.terra.profile.app.configuration;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * How BPM retries transient TPS failures.
+ *
+ * @param initialBackoff the upper bound on the jittered delay before the first retry; it doubles
+ *     for each later retry
+ * @param maxBackoff the upper bound on any delay between retries
+ * @param operationTimeout how long a single operation keeps retrying; an API request stops sooner
+ *     if its own deadline arrives first
+ */
+@ConfigurationProperties(prefix = "profile.policy.retry")
+public record TpsRetryConfiguration(
+    Duration initialBackoff, Duration maxBackoff, Duration operationTimeout) {}
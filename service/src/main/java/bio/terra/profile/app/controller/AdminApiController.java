@@ -0,0 +1,111 @@
+package bio.terra.profile.app.controller;
+
+import bio.terra.common.exception.ErrorReportException;
+import bio.terra.common.iam.AuthenticatedUserRequest;
+import bio.terra.common.iam.AuthenticatedUserRequestFactory;
+import bio.terra.profile.app.common.RequestDeadline;
+import bio.terra.profile.model.ProfileExportSummary;
+import bio.terra.profile.service.profile.ProfileService;
+import bio.terra.profile.service.profile.model.ProfileDescription;
+import bio.terra.profile.service.profile.model.ProfileEnrichment;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+
+/**
+ * Admin endpoints. The export writes profiles to the response as they are read rather than
+ * returning a finished body, which the generated AdminApi interface cannot express, so it is mapped
+ * here directly; its contract is still described in the OpenAPI spec.
+ */
+@Controller
+public class AdminApiController {
+  private static final Logger logger = LoggerFactory.getLogger(AdminApiController.class);
+  static final String NDJSON = "application/x-ndjson";
+  static final String EXPORT_SUMMARY = "exportSummary";
+
+  private final HttpServletRequest request;
+  private final ProfileService profileService;
+  private final AuthenticatedUserRequestFactory authenticatedUserRequestFactory;
+  private final ObjectMapper objectMapper;
+
+  @Autowired
+  public AdminApiController(
+      HttpServletRequest request,
+      ProfileService profileService,
+      AuthenticatedUserRequestFactory authenticatedUserRequestFactory,
+      ObjectMapper objectMapper) {
+    this.request = request;
+    this.profileService = profileService;
+    this.authenticatedUserRequestFactory = authenticatedUserRequestFactory;
+    this.objectMapper = objectMapper;
+  }
+
+  @GetMapping("/api/admin/v1/profiles:export")
+  public void exportProfiles(
+      @RequestParam(value = "include", required = false) List<String> include,
+      HttpServletResponse response)
+      throws IOException {
+    Set<ProfileEnrichment> enrichments = ProfileApiController.parseEnrichments(include);
+    AuthenticatedUserRequest user = authenticatedUserRequestFactory.from(request);
+    response.setContentType(NDJSON);
+    ServletOutputStream out = response.getOutputStream();
+    var exported = new AtomicLong();
+    // The export is expected to take longer than an ordinary request
+    try (var ignored = RequestDeadline.set(null)) {
+      profileService.exportProfiles(
+          user, enrichments, batch -> exported.addAndGet(writeLines(out, batch)));
+    } catch (UncheckedIOException e) {
+      // The client has gone away, so there is no one to tell
+      throw e.getCause();
+    } catch (RuntimeException e) {
+      if (!response.isCommitted()) {
+        // Nothing has been sent, so the failure can still be reported with an error status
+        throw e;
+      }
+      // The 200 has already been sent; the summary is the only way to tell the client
+      logger.error("Profile export failed after {} profiles", exported.get(), e);
+      String message = e instanceof ErrorReportException ? e.getMessage() : "Internal server error";
+      writeSummary(
+          out,
+          new ProfileExportSummary().complete(false).profileCount(exported.get()).message(message));
+      return;
+    }
+    writeSummary(out, new ProfileExportSummary().complete(true).profileCount(exported.get()));
+  }
+
+  private int writeLines(ServletOutputStream out, List<ProfileDescription> profiles) {
+    try {
+      for (ProfileDescription profile : profiles) {
+        writeLine(out, profile.toApiProfileModel());
+      }
+      out.flush();
+      return profiles.size();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private void writeSummary(ServletOutputStream out, ProfileExportSummary summary)
+      throws IOException {
+    writeLine(out, Map.of(EXPORT_SUMMARY, summary));
+    out.flush();
+  }
+
+  private void writeLine(ServletOutputStream out, Object value) throws IOException {
+    out.write(objectMapper.writeValueAsBytes(value));
+    out.write('\n');
+  }
+}
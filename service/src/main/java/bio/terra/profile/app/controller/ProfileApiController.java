@@ -7,17 +7,36 @@ import bio.terra.profile.api.ProfileApi;
 import bio.terra.profile.model.*;
 import bio.terra.profile.service.job.JobService;
 import bio.terra.profile.service.profile.ProfileService;
+import bio.terra.profile.service.profile.model.ChangeLogCursor;
+import bio.terra.profile.service.profile.model.ChangeLogEntry;
+import bio.terra.profile.service.profile.model.ChangeLogFilter;
+import bio.terra.profile.service.profile.model.ProfileBatchGetResult;
+import bio.terra.profile.service.profile.model.ProfileCursor;
 import bio.terra.profile.service.profile.model.ProfileDescription;
+import bio.terra.profile.service.profile.model.ProfileEnrichment;
+import bio.terra.profile.service.profile.model.ProfileSearchFilter;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import jakarta.servlet.http.HttpServletRequest;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
+import org.springframework.web.context.request.ServletWebRequest;
 
 @Controller
 public class ProfileApiController implements ProfileApi {
@@ -51,17 +70,122 @@ public class ProfileApiController implements ProfileApi {
   public ResponseEntity<ProfileModel> getProfile(UUID profileId) {
     AuthenticatedUserRequest user = authenticatedUserRequestFactory.from(request);
     ProfileDescription profile = profileService.getProfile(profileId, user);
-    return new ResponseEntity<>(profile.toApiProfileModel(), HttpStatus.OK);
+    return tagged(profile.etag(), profile::toApiProfileModel);
   }
 
   @Override
-  public ResponseEntity<ProfileModelList> listProfiles(Integer offset, Integer limit) {
+  public ResponseEntity<ProfileModelList> listProfiles(
+      Integer offset, Integer limit, String cursor, List<String> include) {
     validatePaginationParams(offset, limit);
+    if (cursor != null && offset > 0) {
+      throw new ValidationException(
+          "Invalid pagination parameters.", List.of("offset cannot be combined with cursor."));
+    }
+    ProfileCursor after = cursor == null ? null : ProfileCursor.decode(cursor);
+    Set<ProfileEnrichment> enrichments = parseEnrichments(include);
+    AuthenticatedUserRequest user = authenticatedUserRequestFactory.from(request);
+    List<ProfileDescription> profiles =
+        profileService.listProfiles(user, offset, limit, after, enrichments);
+    return pageResponse(profiles, limit);
+  }
+
+  @Override
+  public ResponseEntity<ProfileModelList> searchProfiles(
+      String billingAccountId,
+      UUID tenantId,
+      UUID subscriptionId,
+      CloudPlatform cloudPlatform,
+      Integer limit,
+      String cursor,
+      List<String> include) {
+    validatePaginationParams(0, limit);
+    ProfileCursor after = cursor == null ? null : ProfileCursor.decode(cursor);
+    Set<ProfileEnrichment> enrichments = parseEnrichments(include);
+    var filter =
+        new ProfileSearchFilter(
+            Optional.ofNullable(billingAccountId),
+            Optional.ofNullable(tenantId),
+            Optional.ofNullable(subscriptionId),
+            Optional.ofNullable(cloudPlatform));
+    AuthenticatedUserRequest user = authenticatedUserRequestFactory.from(request);
+    List<ProfileDescription> profiles =
+        profileService.searchProfiles(user, filter, limit, after, enrichments);
+    return pageResponse(profiles, limit);
+  }
+
+  /** Builds the response for a page of profiles, continuing after its last one if it is full. */
+  private ResponseEntity<ProfileModelList> pageResponse(
+      List<ProfileDescription> profiles, int limit) {
+    String nextCursor =
+        profiles.size() == limit
+            ? ProfileCursor.after(profiles.get(profiles.size() - 1).billingProfile()).encode()
+            : null;
+    if (profiles.stream().anyMatch(ProfileDescription::policiesUnavailable)) {
+      // Degraded pages are not tagged, so clients do not hold on to them
+      return ResponseEntity.ok().body(listResponse(profiles, nextCursor).policiesUnavailable(true));
+    }
+    return tagged(listEtag(profiles, nextCursor), () -> listResponse(profiles, nextCursor));
+  }
+
+  private static ProfileModelList listResponse(
+      List<ProfileDescription> profiles, @Nullable String nextCursor) {
+    return new ProfileModelList()
+        .items(profiles.stream().map(ProfileDescription::toApiProfileModel).toList())
+        .nextCursor(nextCursor);
+  }
+
+  private static String listEtag(List<ProfileDescription> profiles, @Nullable String nextCursor) {
+    Hasher hasher = Hashing.sha256().newHasher();
+    profiles.forEach(profile -> hasher.putString(profile.etag(), StandardCharsets.UTF_8));
+    hasher.putString(String.valueOf(nextCursor), StandardCharsets.UTF_8);
+    return hasher.hash().toString();
+  }
+
+  static Set<ProfileEnrichment> parseEnrichments(@Nullable List<String> include) {
+    if (include == null) {
+      return ProfileEnrichment.ALL;
+    }
+    Set<ProfileEnrichment> enrichments = EnumSet.noneOf(ProfileEnrichment.class);
+    for (String value : include) {
+      enrichments.add(
+          ProfileEnrichment.fromValue(value)
+              .orElseThrow(
+                  () ->
+                      new ValidationException(
+                          "Invalid include parameter.",
+                          List.of(String.format("%s is not a part of a profile.", value)))));
+    }
+    return enrichments;
+  }
+
+  /**
+   * Answers with a resource tagged with its version. Clients may keep it but must revalidate before
+   * reusing it. When their If-None-Match still matches, the body is never built and Spring answers
+   * 304.
+   */
+  private <T> ResponseEntity<T> tagged(String etag, Supplier<T> body) {
+    var response =
+        ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache().cachePrivate());
+    // Spring only compares If-None-Match when it writes the response, after the body is built
+    if (new ServletWebRequest(request).checkNotModified(etag)) {
+      return response.build();
+    }
+    return response.body(body.get());
+  }
+
+  @Override
+  public ResponseEntity<BatchGetProfilesResponse> batchGetProfiles(BatchGetProfilesRequest body) {
     AuthenticatedUserRequest user = authenticatedUserRequestFactory.from(request);
-    List<ProfileDescription> profiles = profileService.listProfiles(user, offset, limit);
+    List<ProfileBatchGetResult> results = profileService.batchGetProfiles(user, body.getIds());
     var response =
-        new ProfileModelList()
-            .items(profiles.stream().map(ProfileDescription::toApiProfileModel).toList());
+        new BatchGetProfilesResponse()
+            .results(
+                results.stream().map(ProfileBatchGetResult::toApiBatchGetProfileResult).toList());
+    if (results.stream()
+        .flatMap(result -> result.profile().stream())
+        .anyMatch(ProfileDescription::policiesUnavailable)) {
+      response.policiesUnavailable(true);
+    }
     return new ResponseEntity<>(response, HttpStatus.OK);
   }
 
@@ -102,6 +226,48 @@ public class ProfileApiController implements ProfileApi {
     return new ResponseEntity<>(response, HttpStatus.OK);
   }
 
+  @Override
+  public ResponseEntity<ChangeLogModelList> getProfileChanges(
+      UUID profileId,
+      ChangeType changeType,
+      String since,
+      String until,
+      Integer limit,
+      String cursor) {
+    validatePaginationParams(0, limit);
+    ChangeLogCursor after = cursor == null ? null : ChangeLogCursor.decode(cursor);
+    var filter =
+        new ChangeLogFilter(
+            Optional.ofNullable(changeType),
+            parseInstant("since", since),
+            parseInstant("until", until));
+    AuthenticatedUserRequest user = authenticatedUserRequestFactory.from(request);
+    List<ChangeLogEntry> changes =
+        profileService.getProfileChanges(profileId, user, filter, after, limit);
+    String nextCursor =
+        changes.size() == limit
+            ? ChangeLogCursor.after(changes.get(changes.size() - 1)).encode()
+            : null;
+    var response =
+        new ChangeLogModelList()
+            .items(changes.stream().map(ChangeLogEntry::toApiModel).toList())
+            .nextCursor(nextCursor);
+    return ResponseEntity.ok(response);
+  }
+
+  private static Optional<Instant> parseInstant(String name, @Nullable String value) {
+    if (value == null) {
+      return Optional.empty();
+    }
+    try {
+      return Optional.of(Instant.parse(value));
+    } catch (DateTimeParseException e) {
+      throw new ValidationException(
+          "Invalid %s parameter.".formatted(name),
+          List.of(String.format("%s is not an ISO 8601 timestamp.", value)));
+    }
+  }
+
   @Override
   public ResponseEntity<SamPolicyModel> addProfilePolicyMember(
       UUID id, String policyName, PolicyMemberRequest requestBody) {
@@ -120,6 +286,20 @@ public class ProfileApiController implements ProfileApi {
     return new ResponseEntity<>(policy, HttpStatus.OK);
   }
 
+  @Override
+  public ResponseEntity<SamPolicyModel> updateProfilePolicyMembers(
+      UUID id, String policyName, PolicyMembersUpdateRequest requestBody) {
+    AuthenticatedUserRequest user = authenticatedUserRequestFactory.from(request);
+    SamPolicyModel policy =
+        profileService.updateProfilePolicyMembers(
+            id,
+            policyName,
+            Optional.ofNullable(requestBody.getAddMembers()).orElse(List.of()),
+            Optional.ofNullable(requestBody.getRemoveMembers()).orElse(List.of()),
+            user);
+    return new ResponseEntity<>(policy, HttpStatus.OK);
+  }
+
   /**
    * Utility to validate limit/offset parameters used in pagination.
    *
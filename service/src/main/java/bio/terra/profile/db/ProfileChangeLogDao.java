@@ -5,18 +5,22 @@ import bio.terra.common.db.WriteTransaction;
 import bio.terra.common.exception.SerializationException;
 import bio.terra.profile.model.ChangeType;
 import bio.terra.profile.service.profile.model.BillingProfile;
+import bio.terra.profile.service.profile.model.ChangeLogCursor;
 import bio.terra.profile.service.profile.model.ChangeLogEntry;
+import bio.terra.profile.service.profile.model.ChangeLogFilter;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.RawValue;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.ZoneOffset;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import java.util.stream.Collectors;
+import javax.annotation.Nullable;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
@@ -30,8 +34,6 @@ import org.springframework.stereotype.Repository;
  */
 @Repository
 public class ProfileChangeLogDao {
-  private static final Logger logger = LoggerFactory.getLogger(ProfileChangeLogDao.class);
-
   private final NamedParameterJdbcTemplate jdbcTemplate;
   private final ObjectMapper objectMapper;
 
@@ -65,6 +67,64 @@ public class ProfileChangeLogDao {
     return jdbcTemplate.query(SQL_GET_BY_PROFILE_ID, params, new ChangeLogMapper(objectMapper));
   }
 
+  /**
+   * Lists a page of a billing profile's changelog, in order of change date and id, seeking along
+   * the (profile_id, change_date, id) index so every page costs the same however long the history
+   * is. The changes are not decoded: each entry carries them as the raw JSON that was stored, and
+   * they are written out as is when the entry is serialized.
+   *
+   * @param profileId the profile whose changes to list
+   * @param filter which changes to list
+   * @param after if not null, only changes after this position are listed
+   * @param limit the maximum number of changes to list
+   */
+  @ReadTransaction
+  public List<ChangeLogEntry> listChangesByProfile(
+      UUID profileId, ChangeLogFilter filter, @Nullable ChangeLogCursor after, int limit) {
+    var params =
+        new MapSqlParameterSource().addValue(PROFILE_ID, profileId).addValue("limit", limit);
+    List<String> whereClause = new ArrayList<>();
+    whereClause.add("%s = :%s".formatted(PROFILE_ID, PROFILE_ID));
+
+    filter
+        .changeType()
+        .ifPresent(
+            changeType -> {
+              params.addValue(CHANGE_TYPE, changeType.name());
+              whereClause.add("%s = :%s".formatted(CHANGE_TYPE, CHANGE_TYPE));
+            });
+    filter
+        .since()
+        .ifPresent(
+            since -> {
+              params.addValue("since", since.atOffset(ZoneOffset.UTC));
+              whereClause.add("%s >= :since".formatted(CHANGE_DATE));
+            });
+    filter
+        .until()
+        .ifPresent(
+            until -> {
+              params.addValue("until", until.atOffset(ZoneOffset.UTC));
+              whereClause.add("%s < :until".formatted(CHANGE_DATE));
+            });
+    if (after != null) {
+      params
+          .addValue("after_change_date", after.changeDate().atOffset(ZoneOffset.UTC))
+          .addValue("after_id", after.id());
+      whereClause.add("(%s, %s) > (:after_change_date, :after_id)".formatted(CHANGE_DATE, ID));
+    }
+
+    String sql =
+        "SELECT %s FROM %s WHERE %s ORDER BY %s, %s LIMIT :limit"
+            .formatted(
+                SQL_SELECT_LIST,
+                CHANGELOG_TABLE,
+                String.join(" AND ", whereClause),
+                CHANGE_DATE,
+                ID);
+    return jdbcTemplate.query(sql, params, new RawChangeLogMapper());
+  }
+
   @WriteTransaction
   public Optional<UUID> recordProfileCreate(BillingProfile profile, String userId) {
     var sql =
@@ -82,32 +142,34 @@ public class ProfileChangeLogDao {
     return keyHolder.getField(ID, UUID.class);
   }
 
-  @WriteTransaction
-  public Optional<UUID> recordProfileUpdate(UUID profileId, String userId, Map<?, ?> changes) {
-    var sql =
-        INSERT_INTO_TABLE
-            + " (profile_id, change_type, change_by, changes) VALUES "
-            + "(:profile_id, :change_type, :change_by, :changes::jsonb)";
-
-    String serializedChanges = null;
-    try {
-      serializedChanges = objectMapper.writeValueAsString(changes);
-    } catch (JsonProcessingException e) {
-      logger.error(
-          "Unable to serialize billing profile changelog entry for {} update: {}",
-          profileId,
-          changes,
-          e);
-    }
-    MapSqlParameterSource params =
-        new MapSqlParameterSource()
-            .addValue(PROFILE_ID, profileId)
-            .addValue(CHANGE_TYPE, ChangeType.UPDATE.name())
-            .addValue(CHANGE_BY, userId)
-            .addValue(CHANGES, serializedChanges);
-    var keyHolder = new DaoKeyHolder();
-    jdbcTemplate.update(sql, params, keyHolder);
-    return keyHolder.getField(ID, UUID.class);
+  /**
+   * Builds the statement that records an update entry for every profile returned by a CTE, for use
+   * as a data-modifying CTE in the same statement as the update itself, so a profile is never
+   * changed without the change being recorded. Binds the parameters the statement needs.
+   *
+   * @param updatedCte the name of the CTE returning the ids of the updated profiles
+   * @param changes the changed fields, each mapped to a SQL expression for its new value
+   * @param userId the user making the change
+   * @param params the parameters of the enclosing statement
+   */
+  static String recordProfileUpdatesSql(
+      String updatedCte, Map<String, String> changes, String userId, MapSqlParameterSource params) {
+    params.addValue(CHANGE_TYPE, ChangeType.UPDATE.name()).addValue(CHANGE_BY, userId);
+    String changesObject =
+        changes.entrySet().stream()
+            .map(change -> "'%s', %s".formatted(change.getKey(), change.getValue()))
+            .collect(Collectors.joining(", "));
+    return "%s (%s, %s, %s, %s) SELECT id, :%s, :%s, jsonb_build_object(%s) FROM %s"
+        .formatted(
+            INSERT_INTO_TABLE,
+            PROFILE_ID,
+            CHANGE_TYPE,
+            CHANGE_BY,
+            CHANGES,
+            CHANGE_TYPE,
+            CHANGE_BY,
+            changesObject,
+            updatedCte);
   }
 
   @WriteTransaction
@@ -125,6 +187,22 @@ public class ProfileChangeLogDao {
     return keyHolder.getField(ID, UUID.class);
   }
 
+  /** Maps changelog entries, leaving their changes as raw JSON rather than decoding them. */
+  static class RawChangeLogMapper implements RowMapper<ChangeLogEntry> {
+
+    @Override
+    public ChangeLogEntry mapRow(ResultSet rs, int rowNum) throws SQLException {
+      String rawChanges = rs.getString(CHANGES);
+      return new ChangeLogEntry(
+          rs.getObject(ID, UUID.class),
+          rs.getObject(PROFILE_ID, UUID.class),
+          ChangeType.fromValue(rs.getString(CHANGE_TYPE)),
+          rs.getString(CHANGE_BY),
+          rs.getTimestamp(CHANGE_DATE),
+          rawChanges != null ? new RawValue(rawChanges) : Map.of());
+    }
+  }
+
   static class ChangeLogMapper implements RowMapper<ChangeLogEntry> {
 
     private final ObjectMapper objectMapper;
@@ -8,23 +8,37 @@ import bio.terra.profile.service.profile.exception.MissingRequiredFieldsExceptio
 import bio.terra.profile.service.profile.exception.ProfileInUseException;
 import bio.terra.profile.service.profile.exception.ProfileNotFoundException;
 import bio.terra.profile.service.profile.model.BillingProfile;
+import bio.terra.profile.service.profile.model.ProfileCursor;
+import bio.terra.profile.service.profile.model.ProfileSearchFilter;
+import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 import javax.annotation.Nullable;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.DuplicateKeyException;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.SqlTypeValue;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.support.AbstractSqlTypeValue;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
 public class ProfileDao {
@@ -40,18 +54,47 @@ public class ProfileDao {
   private static final String SQL_GET =
       "SELECT " + SQL_SELECT_LIST + " FROM billing_profile WHERE id = :id";
 
+  // The ids are bound as a single uuid[] rather than expanded into an IN list, so the statement
+  // text and plan are the same however many ids the caller can see, and large lists do not run
+  // into the driver's bind parameter limit.
   private static final String SQL_LIST =
       "SELECT "
           + SQL_SELECT_LIST
           + " FROM billing_profile"
-          + " WHERE id in (:profile_ids)"
+          + " WHERE id = ANY(:profile_ids)"
+          + " ORDER BY created_date, id"
           + " OFFSET :offset LIMIT :limit";
 
+  // Seeks past the previous page using the (created_date, id) index, so every page costs the same
+  // however deep into the list it is.
+  private static final String SQL_LIST_AFTER =
+      "SELECT "
+          + SQL_SELECT_LIST
+          + " FROM billing_profile"
+          + " WHERE id = ANY(:profile_ids)"
+          + " AND (created_date, id) > (:created_date, :id)"
+          + " ORDER BY created_date, id"
+          + " LIMIT :limit";
+
+  private static final String SQL_STREAM =
+      "SELECT " + SQL_SELECT_LIST + " FROM billing_profile ORDER BY created_date, id";
+
   @Autowired
   public ProfileDao(NamedParameterJdbcTemplate jdbcTemplate) {
     this.jdbcTemplate = jdbcTemplate;
   }
 
+  /** Binds a collection of ids as a single uuid[] parameter. */
+  static SqlTypeValue uuidArray(Collection<UUID> ids) {
+    return new AbstractSqlTypeValue() {
+      @Override
+      protected Object createTypeValue(Connection connection, int sqlType, String typeName)
+          throws SQLException {
+        return connection.createArrayOf("uuid", ids.toArray());
+      }
+    };
+  }
+
   @WriteTransaction
   public BillingProfile createBillingProfile(BillingProfile profile, String initiatingUser) {
     String sql =
@@ -117,12 +160,156 @@ public class ProfileDao {
     }
     var params =
         new MapSqlParameterSource()
-            .addValue("profile_ids", idList)
+            .addValue("profile_ids", uuidArray(idList))
             .addValue("offset", offset)
             .addValue("limit", limit);
     return jdbcTemplate.query(SQL_LIST, params, new BillingProfileMapper());
   }
 
+  /**
+   * Lists the billing profiles that come after the given cursor, in order of creation date and id.
+   *
+   * @param cursor the position of the last profile on the previous page
+   * @param limit the maximum number of profiles to list
+   * @param idList the ids of the profiles the caller can see
+   */
+  @ReadTransaction
+  public List<BillingProfile> listBillingProfilesAfter(
+      ProfileCursor cursor, int limit, Collection<UUID> idList) {
+    if (idList.isEmpty()) {
+      return Collections.emptyList();
+    }
+    var params =
+        new MapSqlParameterSource()
+            .addValue("profile_ids", uuidArray(idList))
+            .addValue(
+                "created_date", OffsetDateTime.ofInstant(cursor.createdDate(), ZoneOffset.UTC))
+            .addValue("id", cursor.id())
+            .addValue("limit", limit);
+    return jdbcTemplate.query(SQL_LIST_AFTER, params, new BillingProfileMapper());
+  }
+
+  /**
+   * Lists the billing profiles that match a search filter, in order of creation date and id. Each
+   * filter attribute that is present becomes a predicate, so the query can use the index on that
+   * column.
+   *
+   * @param filter the attributes the profiles must have
+   * @param after if not null, only profiles after this position are listed
+   * @param limit the maximum number of profiles to list
+   * @param idList the ids of the profiles the caller can see
+   */
+  @ReadTransaction
+  public List<BillingProfile> searchBillingProfiles(
+      ProfileSearchFilter filter,
+      @Nullable ProfileCursor after,
+      int limit,
+      Collection<UUID> idList) {
+    if (idList.isEmpty()) {
+      return Collections.emptyList();
+    }
+    var params =
+        new MapSqlParameterSource()
+            .addValue("profile_ids", uuidArray(idList))
+            .addValue("limit", limit);
+    List<String> whereClause = new ArrayList<>();
+    whereClause.add("id = ANY(:profile_ids)");
+
+    filter
+        .billingAccountId()
+        .ifPresent(
+            billingAccountId -> {
+              params.addValue("billing_account_id", billingAccountId);
+              whereClause.add("billing_account_id = :billing_account_id");
+            });
+    filter
+        .tenantId()
+        .ifPresent(
+            tenantId -> {
+              params.addValue("tenant_id", tenantId);
+              whereClause.add("tenant_id = :tenant_id");
+            });
+    filter
+        .subscriptionId()
+        .ifPresent(
+            subscriptionId -> {
+              params.addValue("subscription_id", subscriptionId);
+              whereClause.add("subscription_id = :subscription_id");
+            });
+    filter
+        .cloudPlatform()
+        .ifPresent(
+            cloudPlatform -> {
+              params.addValue("cloud_platform", cloudPlatform.name());
+              whereClause.add("cloud_platform = :cloud_platform");
+            });
+    if (after != null) {
+      params
+          .addValue("created_date", OffsetDateTime.ofInstant(after.createdDate(), ZoneOffset.UTC))
+          .addValue("id", after.id());
+      whereClause.add("(created_date, id) > (:created_date, :id)");
+    }
+
+    String sql =
+        String.format(
+            "SELECT %s FROM billing_profile WHERE %s ORDER BY created_date, id LIMIT :limit",
+            SQL_SELECT_LIST, String.join(" AND ", whereClause));
+    return jdbcTemplate.query(sql, params, new BillingProfileMapper());
+  }
+
+  /**
+   * Passes every billing profile, in order of creation date and id, to the given consumer as it is
+   * read. Rows are fetched through a server-side cursor fetchSize at a time, so memory use does not
+   * grow with the number of profiles. Postgres only uses a cursor inside a transaction, which this
+   * holds open until the last row has been consumed.
+   *
+   * <p>That can take as long as the consumer does, so unlike {@link ReadTransaction} the
+   * transaction is read committed, which cannot fail to serialize and does not hold back writers,
+   * and it is not retried: a retry would replay rows the consumer has already been given. The rows
+   * still come from a single snapshot, since Postgres takes one per statement.
+   *
+   * @param fetchSize the number of rows fetched from the cursor at a time
+   * @param consumer called with each profile in turn
+   */
+  @Transactional(
+      transactionManager = "transactionManager",
+      isolation = Isolation.READ_COMMITTED,
+      readOnly = true)
+  public void streamBillingProfiles(int fetchSize, Consumer<BillingProfile> consumer) {
+    var mapper = new BillingProfileMapper();
+    jdbcTemplate
+        .getJdbcOperations()
+        .query(
+            connection -> {
+              var statement =
+                  connection.prepareStatement(
+                      SQL_STREAM, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+              statement.setFetchSize(fetchSize);
+              return statement;
+            },
+            (RowCallbackHandler) rs -> consumer.accept(mapper.mapRow(rs, rs.getRow())));
+  }
+
+  /**
+   * Lists billing profile ids in id order, for walking every profile in batches.
+   *
+   * @param afterId only ids after this one are listed; null to start from the first profile
+   * @param limit the maximum number of ids to list
+   */
+  @ReadTransaction
+  public List<UUID> listBillingProfileIdsAfter(@Nullable UUID afterId, int limit) {
+    var params = new MapSqlParameterSource().addValue("limit", limit);
+    if (afterId == null) {
+      return jdbcTemplate.queryForList(
+          "SELECT id FROM billing_profile ORDER BY id LIMIT :limit", params, UUID.class);
+    }
+    params.addValue("after_id", afterId);
+    return jdbcTemplate.queryForList(
+        "SELECT id FROM billing_profile WHERE id > :after_id ORDER BY id LIMIT :limit",
+        params,
+        UUID.class);
+  }
+
   public List<String> listManagedResourceGroupsInSubscription(UUID subscriptionId) {
     var params = new MapSqlParameterSource().addValue("subscriptionId", subscriptionId);
     return jdbcTemplate.queryForList(
@@ -157,41 +344,83 @@ public class ProfileDao {
     }
   }
 
+  /**
+   * Updates a billing profile and records the change in the changelog, in a single statement.
+   *
+   * @param id the id of the profile to update
+   * @param description the new description, or null to leave it unchanged
+   * @param billingAccountId the new billing account id, or null to leave it unchanged
+   * @param changedBy the subject id of the user making the change
+   * @return the updated profile, or empty if there is no profile with the id
+   */
   @WriteTransaction
-  public boolean updateProfile(
-      UUID id, @Nullable String description, @Nullable String billingAccountId) {
+  public Optional<BillingProfile> updateProfile(
+      UUID id, @Nullable String description, @Nullable String billingAccountId, String changedBy) {
     if (description == null && billingAccountId == null) {
       throw new MissingRequiredFieldsException("Must specify field to update.");
     }
 
     MapSqlParameterSource params = new MapSqlParameterSource();
-    params.addValue("id", id);
     ArrayList<String> setClause = new ArrayList<>();
+    Map<String, String> changes = new LinkedHashMap<>();
 
     if (description != null) {
       params.addValue("description", description);
       setClause.add("description = :description");
+      changes.put("description", ":description::text");
     }
 
     if (billingAccountId != null) {
       params.addValue("billing_account_id", billingAccountId);
       setClause.add("billing_account_id = :billing_account_id");
+      changes.put("billing_account_id", ":billing_account_id::text");
     }
 
-    setClause.add("last_modified = current_timestamp(6)");
-
-    String sql =
-        String.format("UPDATE billing_profile SET %s WHERE id = :id", String.join(",", setClause));
-
-    return jdbcTemplate.update(sql, params) > 0;
+    return updateAndRecordChange(id, String.join(",", setClause), changes, changedBy, params);
   }
 
+  /**
+   * Removes the billing account from a billing profile and records the change in the changelog, in
+   * a single statement.
+   *
+   * @return the updated profile, or empty if there is no profile with the id
+   */
   @WriteTransaction
-  public boolean removeBillingAccount(UUID id) {
-    var sql =
-        "UPDATE billing_profile SET billing_account_id = null, last_modified = current_timestamp(6) where id = :id";
-    MapSqlParameterSource params = new MapSqlParameterSource().addValue("id", id);
-    return jdbcTemplate.update(sql, params) > 0;
+  public Optional<BillingProfile> removeBillingAccount(UUID id, String changedBy) {
+    var changes = new HashMap<String, String>();
+    changes.put("billing_account_id", "null");
+    return updateAndRecordChange(
+        id, "billing_account_id = null", changes, changedBy, new MapSqlParameterSource());
+  }
+
+  /**
+   * Runs an update of one profile together with the insert of its changelog entry, so the profile
+   * is never changed without the change being recorded. The data-modifying CTEs only write the
+   * changelog entry when the update matched a row, and the updated row is returned directly rather
+   * than read back afterwards.
+   *
+   * @param setClause the assignments to make, without last_modified
+   * @param changes the changed fields, each mapped to a SQL expression for its new value
+   */
+  private Optional<BillingProfile> updateAndRecordChange(
+      UUID id,
+      String setClause,
+      Map<String, String> changes,
+      String changedBy,
+      MapSqlParameterSource params) {
+    String sql =
+        String.format(
+            "WITH updated AS ("
+                + "UPDATE billing_profile SET %s, last_modified = current_timestamp(6)"
+                + " WHERE id = :id RETURNING %s), "
+                + "recorded AS (%s) "
+                + "SELECT %s FROM updated",
+            setClause,
+            SQL_SELECT_LIST,
+            ProfileChangeLogDao.recordProfileUpdatesSql("updated", changes, changedBy, params),
+            SQL_SELECT_LIST);
+    params.addValue("id", id);
+    return jdbcTemplate.query(sql, params, new BillingProfileMapper()).stream().findFirst();
   }
 
   private static class BillingProfileMapper implements RowMapper<BillingProfile> {
@@ -0,0 +1,121 @@
+package bio.terra.profile.service.iam;
+
+import bio.terra.common.exception.UnauthorizedException;
+import bio.terra.profile.app.configuration.JwtVerificationConfiguration;
+import com.google.common.annotations.VisibleForTesting;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.jwk.source.JWKSourceBuilder;
+import com.nimbusds.jose.proc.BadJOSEException;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.JWTClaimNames;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.nimbusds.jwt.proc.ConfigurableJWTProcessor;
+import com.nimbusds.jwt.proc.DefaultJWTClaimsVerifier;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URL;
+import java.text.ParseException;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Verifies JWTs from the configured issuer against its published signing keys, which are cached and
+ * refreshed ahead of expiry.
+ *
+ * <p>A token must also be minted for one of the configured audiences, so tokens the issuer minted
+ * for other clients cannot be used here.
+ *
+ * <p>Only tokens this verifier is responsible for produce a result: opaque tokens and JWTs from
+ * other issuers (e.g. Google tokens used by pet service accounts) are left for Sam to resolve.
+ */
+@Component
+public class JwtVerifier {
+  private static final Logger logger = LoggerFactory.getLogger(JwtVerifier.class);
+  private static final long JWKS_REFRESH_TIMEOUT_MILLIS = 15_000;
+
+  private final String issuer;
+  private final ConfigurableJWTProcessor<SecurityContext> jwtProcessor;
+
+  @Autowired
+  public JwtVerifier(JwtVerificationConfiguration configuration) {
+    this(configuration, configuration.enabled() ? remoteJwkSource(configuration) : null);
+  }
+
+  @VisibleForTesting
+  JwtVerifier(JwtVerificationConfiguration configuration, JWKSource<SecurityContext> jwkSource) {
+    this.issuer = configuration.issuer();
+    if (configuration.enabled()) {
+      if (configuration.audiences() == null || configuration.audiences().isEmpty()) {
+        throw new IllegalStateException("JWT verification requires at least one audience");
+      }
+      jwtProcessor = new DefaultJWTProcessor<>();
+      jwtProcessor.setJWSKeySelector(
+          new JWSVerificationKeySelector<>(JWSAlgorithm.RS256, jwkSource));
+      jwtProcessor.setJWTClaimsSetVerifier(
+          new DefaultJWTClaimsVerifier<>(
+              // The verifier probes the set for null, which immutable sets reject
+              new HashSet<>(configuration.audiences()),
+              new JWTClaimsSet.Builder().issuer(issuer).build(),
+              Set.of(JWTClaimNames.SUBJECT, JWTClaimNames.EXPIRATION_TIME),
+              null));
+    } else {
+      jwtProcessor = null;
+    }
+  }
+
+  private static JWKSource<SecurityContext> remoteJwkSource(
+      JwtVerificationConfiguration configuration) {
+    URL jwksUrl;
+    try {
+      jwksUrl = URI.create(configuration.jwksUri()).toURL();
+    } catch (MalformedURLException | IllegalArgumentException e) {
+      throw new IllegalStateException("Invalid JWKS URI: " + configuration.jwksUri(), e);
+    }
+    return JWKSourceBuilder.<SecurityContext>create(jwksUrl)
+        .cache(configuration.jwksRefreshInterval().toMillis(), JWKS_REFRESH_TIMEOUT_MILLIS)
+        .refreshAheadCache(true)
+        .retrying(true)
+        .build();
+  }
+
+  /**
+   * Verifies a token locally if it was issued by the configured issuer.
+   *
+   * @param token the caller's bearer token
+   * @return the verified claims, or empty if the token should be resolved through Sam instead
+   * @throws UnauthorizedException if the token is from the configured issuer but is invalid
+   */
+  public Optional<JWTClaimsSet> verify(String token) {
+    if (jwtProcessor == null) {
+      return Optional.empty();
+    }
+    SignedJWT jwt;
+    try {
+      jwt = SignedJWT.parse(token);
+      if (!issuer.equals(jwt.getJWTClaimsSet().getIssuer())) {
+        return Optional.empty();
+      }
+    } catch (ParseException e) {
+      return Optional.empty();
+    }
+    try {
+      return Optional.of(jwtProcessor.process(jwt, null));
+    } catch (BadJOSEException e) {
+      throw new UnauthorizedException("Invalid access token", e);
+    } catch (JOSEException e) {
+      // The signing keys could not be retrieved, so let Sam decide rather than fail the request
+      logger.warn("Unable to verify access token locally, falling back to Sam", e);
+      return Optional.empty();
+    }
+  }
+}
@@ -4,7 +4,22 @@ import bio.terra.common.exception.UnauthorizedException;
 import bio.terra.common.iam.AuthenticatedUserRequest;
 import bio.terra.common.iam.AuthenticatedUserRequestFactory;
 import bio.terra.common.iam.BearerTokenParser;
+import bio.terra.profile.app.common.MetricUtils;
+import bio.terra.profile.app.configuration.JwtVerificationConfiguration;
+import bio.terra.profile.app.configuration.SamCacheConfiguration;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.google.common.hash.Hashing;
+import com.nimbusds.jwt.SignedJWT;
 import jakarta.servlet.http.HttpServletRequest;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.Optional;
+import org.broadinstitute.dsde.workbench.client.sam.model.UserStatusInfo;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
@@ -14,16 +29,56 @@ import org.springframework.stereotype.Component;
  *
  * <p>This is important for calls made by pet service accounts, which will have a pet email in the
  * request header, but Sam will return the owner's email.
+ *
+ * <p>Sam responses are cached per token, so a client polling BPM only pays for the Sam lookup once
+ * per TTL. Cache keys are a hash of the token, never the token itself.
+ *
+ * <p>When local JWT verification is enabled, tokens from the configured issuer are verified against
+ * its signing keys instead, and Sam is consulted only once per verified subject per (longer) TTL.
+ * The user email and subjectId still come from Sam, since the token's own subject is not Sam's.
  */
 @Component
 public class SamAuthenticatedUserRequestFactory implements AuthenticatedUserRequestFactory {
   private static final String OAUTH2_ACCESS_TOKEN = "OAUTH2_CLAIM_access_token";
   private static final String AUTHORIZATION = "Authorization";
+  private static final String USER_STATUS_CACHE_NAME = "sam.userStatus";
+  private static final String VERIFIED_USER_STATUS_CACHE_NAME = "sam.verifiedUserStatus";
   private final SamService samService;
+  private final JwtVerifier jwtVerifier;
+  private final SamCacheConfiguration.UserStatus cacheConfiguration;
+  private final JwtVerificationConfiguration jwtConfiguration;
+  private final Cache<String, CachedUserStatus> userStatusCache;
+  private final Cache<String, CachedUserStatus> verifiedUserStatusCache;
 
   @Autowired
-  public SamAuthenticatedUserRequestFactory(SamService samService) {
+  public SamAuthenticatedUserRequestFactory(
+      SamService samService,
+      JwtVerifier jwtVerifier,
+      SamCacheConfiguration samCacheConfiguration,
+      JwtVerificationConfiguration jwtConfiguration) {
     this.samService = samService;
+    this.jwtVerifier = jwtVerifier;
+    this.cacheConfiguration = samCacheConfiguration.userStatus();
+    this.jwtConfiguration = jwtConfiguration;
+    this.userStatusCache =
+        cacheConfiguration.enabled()
+            ? buildUserStatusCache(cacheConfiguration.maximumSize(), USER_STATUS_CACHE_NAME)
+            : null;
+    this.verifiedUserStatusCache =
+        jwtConfiguration.enabled()
+            ? buildUserStatusCache(jwtConfiguration.maximumUsers(), VERIFIED_USER_STATUS_CACHE_NAME)
+            : null;
+  }
+
+  private static Cache<String, CachedUserStatus> buildUserStatusCache(
+      long maximumSize, String cacheName) {
+    return MetricUtils.monitorCache(
+        Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfter(new UserStatusExpiry())
+            .recordStats()
+            .build(),
+        cacheName);
   }
 
   @Override
@@ -31,8 +86,7 @@ public class SamAuthenticatedUserRequestFactory implements AuthenticatedUserRequ
     final var token = getRequiredToken(servletRequest);
 
     // Fetch the user status from Sam
-    var userStatusInfo =
-        SamRethrow.onInterrupted(() -> samService.getUserStatusInfo(token), "getUserStatusInfo");
+    var userStatusInfo = getUserStatusInfo(token);
 
     // Fail if user is not enabled
     if (!userStatusInfo.getEnabled()) {
@@ -46,6 +100,74 @@ public class SamAuthenticatedUserRequestFactory implements AuthenticatedUserRequ
         .build();
   }
 
+  /**
+   * Gets the user status for a token, from the cache if possible. Enabled users are cached for the
+   * configured TTL, or until the token expires if that is sooner; disabled users are cached for a
+   * shorter window so a re-enabled user is not locked out for long.
+   */
+  private UserStatusInfo getUserStatusInfo(String token) {
+    var verifiedClaims = jwtVerifier.verify(token);
+    if (verifiedClaims.isPresent()) {
+      return getVerifiedUserStatusInfo(verifiedClaims.get().getSubject(), token);
+    }
+    if (userStatusCache == null) {
+      return fetchUserStatusInfo(token);
+    }
+    var tokenHash = Hashing.sha256().hashString(token, StandardCharsets.UTF_8).toString();
+    var cached = userStatusCache.getIfPresent(tokenHash);
+    if (cached != null) {
+      return cached.userStatusInfo();
+    }
+    var userStatusInfo = fetchUserStatusInfo(token);
+    var timeToLive =
+        userStatusInfo.getEnabled() ? enabledTimeToLive(token) : cacheConfiguration.disabledTtl();
+    if (!timeToLive.isNegative() && !timeToLive.isZero()) {
+      userStatusCache.put(tokenHash, new CachedUserStatus(userStatusInfo, timeToLive));
+    }
+    return userStatusInfo;
+  }
+
+  /**
+   * Gets the user status for a locally verified token. The token has already been authenticated, so
+   * Sam is only needed for the user's identity and enabled flag; both are cached per subject rather
+   * than per token, so a user's refreshed tokens share one Sam lookup.
+   */
+  private UserStatusInfo getVerifiedUserStatusInfo(String subject, String token) {
+    var cached = verifiedUserStatusCache.getIfPresent(subject);
+    if (cached != null) {
+      return cached.userStatusInfo();
+    }
+    var userStatusInfo = fetchUserStatusInfo(token);
+    var timeToLive =
+        userStatusInfo.getEnabled() ? jwtConfiguration.userTtl() : cacheConfiguration.disabledTtl();
+    verifiedUserStatusCache.put(subject, new CachedUserStatus(userStatusInfo, timeToLive));
+    return userStatusInfo;
+  }
+
+  private UserStatusInfo fetchUserStatusInfo(String token) {
+    return SamRethrow.onInterrupted(() -> samService.getUserStatusInfo(token), "getUserStatusInfo");
+  }
+
+  private Duration enabledTimeToLive(String token) {
+    return getTokenExpiration(token)
+        .map(expiration -> Duration.between(Instant.now(), expiration))
+        .filter(untilExpiration -> untilExpiration.compareTo(cacheConfiguration.ttl()) < 0)
+        .orElse(cacheConfiguration.ttl());
+  }
+
+  /**
+   * Reads the expiration claim from a JWT access token. Opaque tokens (e.g. Google access tokens)
+   * have no readable expiration, so they are bounded only by the configured TTL.
+   */
+  private static Optional<Instant> getTokenExpiration(String token) {
+    try {
+      return Optional.ofNullable(SignedJWT.parse(token).getJWTClaimsSet().getExpirationTime())
+          .map(Date::toInstant);
+    } catch (ParseException e) {
+      return Optional.empty();
+    }
+  }
+
   /**
    * Gets the user token from OAuth2 claim or Authorization header. Throws UnauthorizedException if
    * the token could not be found.
@@ -62,4 +184,26 @@ public class SamAuthenticatedUserRequestFactory implements AuthenticatedUserRequ
     }
     throw new UnauthorizedException("Unable to retrieve access token");
   }
+
+  private record CachedUserStatus(UserStatusInfo userStatusInfo, Duration timeToLive) {}
+
+  /** Expires each entry after its own time to live, regardless of how often it is read. */
+  private static class UserStatusExpiry implements Expiry<String, CachedUserStatus> {
+    @Override
+    public long expireAfterCreate(String key, CachedUserStatus cached, long currentTime) {
+      return cached.timeToLive().toNanos();
+    }
+
+    @Override
+    public long expireAfterUpdate(
+        String key, CachedUserStatus cached, long currentTime, long currentDuration) {
+      return cached.timeToLive().toNanos();
+    }
+
+    @Override
+    public long expireAfterRead(
+        String key, CachedUserStatus cached, long currentTime, long currentDuration) {
+      return currentDuration;
+    }
+  }
 }
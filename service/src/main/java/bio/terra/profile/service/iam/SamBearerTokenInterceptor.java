@@ -0,0 +1,48 @@
+package bio.terra.profile.service.iam;
+
+import java.io.IOException;
+import okhttp3.Interceptor;
+import okhttp3.Response;
+
+/**
+ * Adds the caller's bearer token to Sam requests, which lets all callers share one Sam {@code
+ * ApiClient} instead of building a client per token. The token is bound to the calling thread for
+ * the duration of a call with {@link #withToken}. Sam client calls are synchronous, so OkHttp runs
+ * this interceptor on the thread that bound the token.
+ */
+class SamBearerTokenInterceptor implements Interceptor {
+  private static final String AUTHORIZATION = "Authorization";
+  private final ThreadLocal<String> accessToken = new ThreadLocal<>();
+
+  /**
+   * Binds a token to the current thread until the returned scope is closed. A null token sends
+   * requests unauthenticated.
+   */
+  TokenScope withToken(String token) {
+    String previous = accessToken.get();
+    accessToken.set(token);
+    return () -> {
+      if (previous == null) {
+        accessToken.remove();
+      } else {
+        accessToken.set(previous);
+      }
+    };
+  }
+
+  @Override
+  public Response intercept(Chain chain) throws IOException {
+    String token = accessToken.get();
+    if (token == null) {
+      return chain.proceed(chain.request());
+    }
+    return chain.proceed(
+        chain.request().newBuilder().header(AUTHORIZATION, "Bearer " + token).build());
+  }
+
+  /** Restores the thread's previously bound token when closed. */
+  interface TokenScope extends AutoCloseable {
+    @Override
+    void close();
+  }
+}
@@ -0,0 +1,185 @@
+package bio.terra.profile.service.iam;
+
+import bio.terra.profile.app.common.Backoff;
+import bio.terra.profile.app.common.CircuitBreaker;
+import bio.terra.profile.app.common.MetricUtils;
+import bio.terra.profile.app.common.RetryBudget;
+import bio.terra.profile.app.configuration.SamRetryConfiguration;
+import bio.terra.profile.service.iam.exception.SamUnavailableException;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.broadinstitute.dsde.workbench.client.sam.ApiException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Retries Sam calls in place of the TCL SamRetry, which sleeps for up to five minutes per call.
+ * During a Sam outage that ties up request threads until unrelated endpoints stall, so calls here
+ * are instead bounded three ways:
+ *
+ * <ul>
+ *   <li>retries back off exponentially with jitter, up to a maximum number of attempts;
+ *   <li>retries across all operations share a {@link RetryBudget}, so they cannot multiply the load
+ *       on a failing Sam;
+ *   <li>each operation has a {@link CircuitBreaker}, which fails calls immediately with a {@link
+ *       SamUnavailableException} once the operation has failed repeatedly.
+ * </ul>
+ *
+ * <p>Calls made by flight steps are not on a request thread, and failing one can roll back a
+ * half-finished flight whose undo needs Sam too. Those go through {@link #executePatiently}
+ * instead, which waits out an outage the way SamRetry did.
+ */
+class SamCallExecutor {
+  private static final Logger logger = LoggerFactory.getLogger(SamCallExecutor.class);
+  private static final String SERVICE_NAME = "sam";
+
+  // Sam calls which fail at the transport level (e.g. time out) throw ApiExceptions with code 0.
+  // This isn't a real HTTP status code, but we can check for it anyway.
+  private static final int TRANSPORT_FAILURE_STATUS_CODE = 0;
+
+  private final SamRetryConfiguration configuration;
+  private final Backoff backoff;
+  private final RetryBudget retryBudget;
+  private final Clock clock;
+  private final Map<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+
+  SamCallExecutor(SamRetryConfiguration configuration, Clock clock) {
+    this.configuration = configuration;
+    this.backoff = new Backoff(configuration.initialBackoff(), configuration.maxBackoff());
+    this.retryBudget =
+        new RetryBudget(configuration.budget().ratio(), configuration.budget().maxTokens());
+    this.clock = clock;
+  }
+
+  @FunctionalInterface
+  interface SamVoidFunction {
+    void apply() throws ApiException, InterruptedException;
+  }
+
+  @FunctionalInterface
+  interface SamFunction<R> {
+    R apply() throws ApiException, InterruptedException;
+  }
+
+  /**
+   * Makes a Sam call, retrying server errors and transport failures.
+   *
+   * @param operation the name of the operation, which identifies its circuit breaker
+   * @param function the call to make
+   * @return the result of the call
+   * @throws ApiException the last error from Sam, if the call did not succeed
+   * @throws SamUnavailableException if the operation's circuit breaker is open
+   */
+  <T> T execute(String operation, SamFunction<T> function)
+      throws ApiException, InterruptedException {
+    CircuitBreaker circuitBreaker = circuitBreakers.computeIfAbsent(operation, this::newBreaker);
+    retryBudget.recordCall();
+    for (int attempt = 1; ; attempt++) {
+      if (!circuitBreaker.tryAcquire()) {
+        MetricUtils.incrementCircuitBreakerRejection(SERVICE_NAME, operation);
+        throw new SamUnavailableException(
+            "Sam is unavailable: too many recent failures of operation " + operation);
+      }
+      try {
+        T result = function.apply();
+        circuitBreaker.recordSuccess();
+        return result;
+      } catch (ApiException e) {
+        if (!isRetryable(e)) {
+          // Sam answered; the error is about this request, not Sam's health.
+          circuitBreaker.recordSuccess();
+          throw e;
+        }
+        circuitBreaker.recordFailure();
+        if (attempt >= configuration.maxAttempts()) {
+          logger.warn("Sam {} failed after {} attempts", operation, attempt);
+          throw e;
+        }
+        if (!retryBudget.tryRetry()) {
+          MetricUtils.incrementRetryBudgetExhaustion(SERVICE_NAME);
+          logger.warn("Sam {} failed and the retry budget is spent, not retrying", operation);
+          throw e;
+        }
+        var delay = backoff.delay(attempt - 1);
+        logger.info("Sam {} failed with code {}, retrying in {}", operation, e.getCode(), delay);
+        TimeUnit.MILLISECONDS.sleep(delay.toMillis());
+      } catch (RuntimeException | InterruptedException e) {
+        circuitBreaker.recordAbandoned();
+        throw e;
+      }
+    }
+  }
+
+  /**
+   * Makes a Sam call on behalf of a flight step, retrying server errors and transport failures
+   * until the flight call timeout has passed. The call neither spends the retry budget nor consults
+   * the circuit breakers.
+   *
+   * @param operation the name of the operation, for logging
+   * @param function the call to make
+   * @return the result of the call
+   * @throws ApiException the last error from Sam, if the call did not succeed
+   */
+  <T> T executePatiently(String operation, SamFunction<T> function)
+      throws ApiException, InterruptedException {
+    Instant giveUpAt = clock.instant().plus(configuration.flightCallTimeout());
+    for (int attempt = 1; ; attempt++) {
+      try {
+        return function.apply();
+      } catch (ApiException e) {
+        if (!isRetryable(e)) {
+          throw e;
+        }
+        var delay = backoff.delay(attempt - 1);
+        if (!clock.instant().plus(delay).isBefore(giveUpAt)) {
+          logger.warn("Sam {} failed after {} attempts, giving up", operation, attempt);
+          throw e;
+        }
+        logger.info("Sam {} failed with code {}, retrying in {}", operation, e.getCode(), delay);
+        TimeUnit.MILLISECONDS.sleep(delay.toMillis());
+      }
+    }
+  }
+
+  void executeVoid(String operation, SamVoidFunction function)
+      throws ApiException, InterruptedException {
+    execute(
+        operation,
+        () -> {
+          function.apply();
+          return null;
+        });
+  }
+
+  void executeVoidPatiently(String operation, SamVoidFunction function)
+      throws ApiException, InterruptedException {
+    executePatiently(
+        operation,
+        () -> {
+          function.apply();
+          return null;
+        });
+  }
+
+  private CircuitBreaker newBreaker(String operation) {
+    var circuitBreaker =
+        new CircuitBreaker(
+            configuration.circuitBreaker().failureThreshold(),
+            configuration.circuitBreaker().openDuration(),
+            clock);
+    MetricUtils.monitorCircuitBreaker(SERVICE_NAME, operation, circuitBreaker);
+    return circuitBreaker;
+  }
+
+  private static boolean isRetryable(ApiException e) {
+    return e.getCode() == TRANSPORT_FAILURE_STATUS_CODE
+        || e.getCode() == HttpStatus.INTERNAL_SERVER_ERROR.value()
+        || e.getCode() == HttpStatus.BAD_GATEWAY.value()
+        || e.getCode() == HttpStatus.SERVICE_UNAVAILABLE.value()
+        || e.getCode() == HttpStatus.GATEWAY_TIMEOUT.value();
+  }
+}
@@ -1,26 +1,47 @@
 package bio.terra.profile.service.iam;
 
+import bio.terra.common.exception.ErrorReportException;
 import bio.terra.common.exception.ForbiddenException;
+import bio.terra.common.exception.InternalServerErrorException;
 import bio.terra.common.iam.AuthenticatedUserRequest;
-import bio.terra.common.sam.SamRetry;
 import bio.terra.common.sam.exception.SamExceptionFactory;
 import bio.terra.common.tracing.OkHttpClientTracingInterceptor;
+import bio.terra.profile.app.common.MetricUtils;
+import bio.terra.profile.app.common.SingleFlight;
+import bio.terra.profile.app.configuration.SamCacheConfiguration;
 import bio.terra.profile.app.configuration.SamConfiguration;
+import bio.terra.profile.app.configuration.SamRetryConfiguration;
 import bio.terra.profile.model.SamPolicyModel;
 import bio.terra.profile.model.SystemStatusSystems;
+import bio.terra.profile.service.iam.exception.PolicyMembersUpdateException;
 import bio.terra.profile.service.iam.model.SamAction;
 import bio.terra.profile.service.iam.model.SamResourceType;
 import bio.terra.profile.service.iam.model.SamRole;
 import bio.terra.profile.service.profile.model.BillingProfile;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.context.Context;
 import io.opentelemetry.instrumentation.annotations.WithSpan;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Stream;
+import javax.annotation.Nullable;
 import okhttp3.OkHttpClient;
 import org.broadinstitute.dsde.workbench.client.sam.ApiClient;
 import org.broadinstitute.dsde.workbench.client.sam.ApiException;
@@ -35,18 +56,62 @@ import org.springframework.stereotype.Component;
 @Component
 public class SamService {
   private static final Logger logger = LoggerFactory.getLogger(SamService.class);
+  private static final String AUTHORIZATION_CACHE_NAME = "sam.authorization";
+  private static final String PROFILE_IDS_CACHE_NAME = "sam.profileIds";
+  // Bounds the Sam calls made concurrently on behalf of bulk policy membership updates
+  private static final int POLICY_MEMBER_UPDATE_THREADS = 8;
   private final SamConfiguration samConfig;
-  private final OkHttpClient commonHttpClient;
+  private final SamBearerTokenInterceptor bearerTokenInterceptor = new SamBearerTokenInterceptor();
+  private final SamCallExecutor samCallExecutor;
+  private final UsersApi usersApi;
+  private final ResourcesApi resourcesApi;
+  private final AdminApi adminApi;
+  private final AzureApi azureApi;
+  private final StatusApi statusApi;
+  // Caches permission decisions for a short time. Null when caching is disabled.
+  private final Cache<AuthorizationKey, Boolean> authorizationCache;
+  // Caches the profiles each user can see, keyed by subject id. Null when caching is disabled.
+  private final Cache<String, AccessibleProfiles> profileIdsCache;
+  // Coalesces concurrent identical lookups, keyed by token and by subject id respectively.
+  private final SingleFlight<String, UserStatusInfo> userStatusCalls = new SingleFlight<>();
+  private final SingleFlight<String, List<UUID>> profileIdsCalls = new SingleFlight<>();
+  private final ExecutorService policyMemberUpdateExecutor =
+      Context.taskWrapping(
+          Executors.newFixedThreadPool(
+              POLICY_MEMBER_UPDATE_THREADS,
+              new ThreadFactoryBuilder()
+                  .setNameFormat("sam-policy-member-%d")
+                  .setDaemon(true)
+                  .build()));
 
   @Autowired
-  public SamService(SamConfiguration samConfig, OpenTelemetry openTelemetry) {
+  public SamService(
+      SamConfiguration samConfig,
+      SamCacheConfiguration samCacheConfiguration,
+      SamRetryConfiguration samRetryConfiguration,
+      OpenTelemetry openTelemetry) {
     this.samConfig = samConfig;
-    this.commonHttpClient =
-        new ApiClient()
+    this.samCallExecutor = new SamCallExecutor(samRetryConfiguration, Clock.systemUTC());
+    this.authorizationCache =
+        buildCache(samCacheConfiguration.authorization(), AUTHORIZATION_CACHE_NAME);
+    this.profileIdsCache = buildCache(samCacheConfiguration.profileIds(), PROFILE_IDS_CACHE_NAME);
+    // ApiClient objects are expensive to build, and OkHttpClient objects manage their own thread
+    // pools, so share one of each across requests. The caller's token is added to each request by
+    // the bearer token interceptor rather than being set on the client.
+    ApiClient apiClient = new ApiClient();
+    OkHttpClient httpClient =
+        apiClient
             .getHttpClient()
             .newBuilder()
             .addInterceptor(new OkHttpClientTracingInterceptor(openTelemetry))
+            .addInterceptor(bearerTokenInterceptor)
             .build();
+    apiClient.setHttpClient(httpClient).setBasePath(samConfig.basePath());
+    this.usersApi = new UsersApi(apiClient);
+    this.resourcesApi = new ResourcesApi(apiClient);
+    this.adminApi = new AdminApi(apiClient);
+    this.azureApi = new AzureApi(apiClient);
+    this.statusApi = new StatusApi(apiClient);
   }
 
   /**
@@ -61,6 +126,46 @@ public class SamService {
       SamAction action)
       throws InterruptedException {
     final boolean isAuthorized = isAuthorized(userRequest, resourceType, resourceId, action);
+    checkAuthorized(isAuthorized, userRequest, resourceType, resourceId, action);
+  }
+
+  /**
+   * Like {@link #verifyAuthorization}, but for several actions at once. Unless the decisions are
+   * already cached, the user's actions on the resource are fetched from Sam in a single call rather
+   * than checking each action separately.
+   */
+  @WithSpan
+  public void verifyAuthorizations(
+      AuthenticatedUserRequest userRequest,
+      SamResourceType resourceType,
+      UUID resourceId,
+      Set<SamAction> actions)
+      throws InterruptedException {
+    long uncachedActions =
+        actions.stream()
+            .filter(
+                action -> getCachedDecision(userRequest, resourceType, resourceId, action) == null)
+            .count();
+    Set<SamAction> permittedActions =
+        uncachedActions > 1 ? listResourceActions(userRequest, resourceType, resourceId) : null;
+    // Checked in a stable order, so the same action is reported whenever several are missing
+    Set<SamAction> orderedActions = EnumSet.noneOf(SamAction.class);
+    orderedActions.addAll(actions);
+    for (SamAction action : orderedActions) {
+      final boolean isAuthorized =
+          permittedActions != null
+              ? permittedActions.contains(action)
+              : isAuthorized(userRequest, resourceType, resourceId, action);
+      checkAuthorized(isAuthorized, userRequest, resourceType, resourceId, action);
+    }
+  }
+
+  private void checkAuthorized(
+      boolean isAuthorized,
+      AuthenticatedUserRequest userRequest,
+      SamResourceType resourceType,
+      UUID resourceId,
+      SamAction action) {
     final String userEmail = userRequest.getEmail();
     if (!isAuthorized)
       throw new ForbiddenException(
@@ -78,7 +183,9 @@ public class SamService {
   }
 
   /**
-   * Checks if a user authorized to do an action on a resource.
+   * Checks if a user authorized to do an action on a resource. Decisions are cached per user for a
+   * short time; policy changes made through this service evict the cached decisions for the
+   * affected resource.
    *
    * @param userRequest authenticated user
    * @param resourceType resource type
@@ -93,10 +200,83 @@ public class SamService {
       UUID resourceId,
       SamAction action)
       throws InterruptedException {
-    String accessToken = userRequest.getToken();
-    ResourcesApi resourceApi = samResourcesApi(accessToken);
+    if (authorizationCache == null || userRequest.getSubjectId() == null) {
+      return checkResourcePermission(userRequest, resourceType, resourceId, action);
+    }
+    Boolean cached = getCachedDecision(userRequest, resourceType, resourceId, action);
+    if (cached != null) {
+      return cached;
+    }
+    boolean isAuthorized = checkResourcePermission(userRequest, resourceType, resourceId, action);
+    authorizationCache.put(
+        new AuthorizationKey(userRequest.getSubjectId(), resourceType, resourceId, action),
+        isAuthorized);
+    return isAuthorized;
+  }
+
+  /**
+   * Lists the actions a user may take on a resource, in a single Sam call. The result is also
+   * cached as the user's decision for every {@link SamAction} on the resource.
+   *
+   * @param userRequest authenticated user
+   * @param resourceType resource type
+   * @param resourceId resource in question
+   * @return the actions the user may take; actions BPM does not know about are omitted
+   * @throws InterruptedException
+   */
+  public Set<SamAction> listResourceActions(
+      AuthenticatedUserRequest userRequest, SamResourceType resourceType, UUID resourceId)
+      throws InterruptedException {
+    ResourcesApi resourceApi = samResourcesApi();
     try {
-      return SamRetry.retry(
+      List<String> actionNames =
+          callSam(
+              "listResourceActions",
+              userRequest.getToken(),
+              () ->
+                  resourceApi.resourceActionsV2(
+                      resourceType.getSamResourceName(), resourceId.toString()));
+      Set<SamAction> actions = EnumSet.noneOf(SamAction.class);
+      for (SamAction action : SamAction.values()) {
+        boolean permitted = actionNames.contains(action.getSamActionName());
+        if (permitted) {
+          actions.add(action);
+        }
+        if (authorizationCache != null && userRequest.getSubjectId() != null) {
+          authorizationCache.put(
+              new AuthorizationKey(userRequest.getSubjectId(), resourceType, resourceId, action),
+              permitted);
+        }
+      }
+      return actions;
+    } catch (ApiException e) {
+      throw SamExceptionFactory.create("Error listing resource actions in Sam", e);
+    }
+  }
+
+  private Boolean getCachedDecision(
+      AuthenticatedUserRequest userRequest,
+      SamResourceType resourceType,
+      UUID resourceId,
+      SamAction action) {
+    if (authorizationCache == null || userRequest.getSubjectId() == null) {
+      return null;
+    }
+    return authorizationCache.getIfPresent(
+        new AuthorizationKey(userRequest.getSubjectId(), resourceType, resourceId, action));
+  }
+
+  private boolean checkResourcePermission(
+      AuthenticatedUserRequest userRequest,
+      SamResourceType resourceType,
+      UUID resourceId,
+      SamAction action)
+      throws InterruptedException {
+    ResourcesApi resourceApi = samResourcesApi();
+    try {
+      return callSam(
+          "resourcePermission",
+          userRequest.getToken(),
           () ->
               resourceApi.resourcePermissionV2(
                   resourceType.getSamResourceName(),
@@ -110,11 +290,12 @@ public class SamService {
   public void verifyResourceAdmin(
       AuthenticatedUserRequest user, SamResourceType resourceType, SamAction action)
       throws InterruptedException {
-    String accessToken = user.getToken();
-    var adminApi = samAdminApi(accessToken);
+    var adminApi = samAdminApi();
     try {
       var isAuthorized =
-          SamRetry.retry(
+          callSam(
+              "resourceTypeAdminPermission",
+              user.getToken(),
               () ->
                   adminApi.resourceTypeAdminPermission(
                       resourceType.getSamResourceName(), action.getSamActionName()));
@@ -130,7 +311,10 @@ public class SamService {
   }
 
   /**
-   * List all profile IDs in Sam this user has access to.
+   * List all profile IDs in Sam this user has access to. The list is cached per user, so paging
+   * through profiles costs one Sam call per TTL rather than one per page. Membership changes made
+   * through this service evict the lists of the users they affect; a change to a group's membership
+   * is only picked up by the group's members once their cached list expires.
    *
    * @param userRequest authenticated user
    * @return list of profiles
@@ -139,10 +323,32 @@ public class SamService {
   @WithSpan
   public List<UUID> listProfileIds(AuthenticatedUserRequest userRequest)
       throws InterruptedException {
-    ResourcesApi resourceApi = samResourcesApi(userRequest.getToken());
+    if (userRequest.getSubjectId() == null) {
+      return fetchProfileIds(userRequest);
+    }
+    if (profileIdsCache == null) {
+      return profileIdsCalls.execute(
+          userRequest.getSubjectId(), () -> fetchProfileIds(userRequest));
+    }
+    var cached = profileIdsCache.getIfPresent(userRequest.getSubjectId());
+    if (cached != null) {
+      return cached.profileIds();
+    }
+    var profileIds =
+        profileIdsCalls.execute(userRequest.getSubjectId(), () -> fetchProfileIds(userRequest));
+    profileIdsCache.put(
+        userRequest.getSubjectId(), new AccessibleProfiles(userRequest.getEmail(), profileIds));
+    return profileIds;
+  }
+
+  private List<UUID> fetchProfileIds(AuthenticatedUserRequest userRequest)
+      throws InterruptedException {
+    ResourcesApi resourceApi = samResourcesApi();
     try {
       List<UserResourcesResponse> resourceAndPolicies =
-          SamRetry.retry(
+          callSam(
+              "listProfileIds",
+              userRequest.getToken(),
               () ->
                   resourceApi.listResourcesAndPoliciesV2(
                       SamResourceType.PROFILE.getSamResourceName()));
@@ -173,10 +379,12 @@ public class SamService {
    */
   public List<SamPolicyModel> retrieveProfilePolicies(
       AuthenticatedUserRequest userRequest, UUID resourceId) throws InterruptedException {
-    ResourcesApi resourceApi = samResourcesApi(userRequest.getToken());
+    ResourcesApi resourceApi = samResourcesApi();
     try {
       List<AccessPolicyResponseEntryV2> policies =
-          SamRetry.retry(
+          callSam(
+              "listResourcePolicies",
+              userRequest.getToken(),
               () ->
                   resourceApi.listResourcePoliciesV2(
                       SamResourceType.PROFILE.getSamResourceName(), resourceId.toString()));
@@ -206,17 +414,22 @@ public class SamService {
       AuthenticatedUserRequest userRequest, UUID resourceId, String policyName, String userEmail)
       throws InterruptedException {
     try {
-      return SamRetry.retry(
+      return callSam(
+          "addProfilePolicyMember",
+          userRequest.getToken(),
           () -> addProfilePolicyMemberInner(userRequest, resourceId, policyName, userEmail));
     } catch (ApiException e) {
       throw SamExceptionFactory.create("Error adding profile policy member in Sam", e);
+    } finally {
+      invalidateAuthorizations(resourceId);
+      invalidateProfileIdsByEmail(userEmail);
     }
   }
 
   private SamPolicyModel addProfilePolicyMemberInner(
       AuthenticatedUserRequest userRequest, UUID resourceId, String policyName, String userEmail)
       throws ApiException {
-    ResourcesApi samResourceApi = samResourcesApi(userRequest.getToken());
+    ResourcesApi samResourceApi = samResourcesApi();
     String samResourceName = SamResourceType.PROFILE.getSamResourceName();
     samResourceApi.addUserToPolicyV2(
         samResourceName, resourceId.toString(), policyName, userEmail, null);
@@ -239,17 +452,22 @@ public class SamService {
       AuthenticatedUserRequest userRequest, UUID resourceId, String policyName, String userEmail)
       throws InterruptedException {
     try {
-      return SamRetry.retry(
+      return callSam(
+          "deleteProfilePolicyMember",
+          userRequest.getToken(),
           () -> deleteProfilePolicyMemberInner(userRequest, resourceId, policyName, userEmail));
     } catch (ApiException e) {
       throw SamExceptionFactory.create("Error deleting profile policy member in Sam", e);
+    } finally {
+      invalidateAuthorizations(resourceId);
+      invalidateProfileIdsByEmail(userEmail);
     }
   }
 
   private SamPolicyModel deleteProfilePolicyMemberInner(
       AuthenticatedUserRequest userRequest, UUID resourceId, String policyName, String userEmail)
       throws ApiException {
-    ResourcesApi samResourceApi = samResourcesApi(userRequest.getToken());
+    ResourcesApi samResourceApi = samResourcesApi();
     String samResourceName = SamResourceType.PROFILE.getSamResourceName();
     samResourceApi.removeUserFromPolicyV2(
         samResourceName, resourceId.toString(), policyName, userEmail);
@@ -258,6 +476,130 @@ public class SamService {
     return new SamPolicyModel().name(policyName).members(result.getMemberEmails());
   }
 
+  /**
+   * Adds and removes several members of the specified profile policy.
+   *
+   * <p>Each change is applied with its own idempotent Sam call, made in parallel on a bounded pool,
+   * rather than by overwriting the whole policy: an overwrite would have to read the policy first
+   * and could silently undo a concurrent change, such as re-adding a member who was just removed.
+   * The resulting membership is read back from Sam once, after every change has been applied.
+   *
+   * <p>The update is therefore not atomic: if any change fails, the others may still have been
+   * applied, and the error lists the outcome of every change.
+   *
+   * @param userRequest authenticated user
+   * @param resourceId resourceId profile in question
+   * @param policyName the name of the Sam policy
+   * @param addEmails the emails of the users to add
+   * @param removeEmails the emails of the users to remove
+   * @return the policy details after the update
+   * @throws PolicyMembersUpdateException if any of the changes failed
+   * @throws InterruptedException
+   */
+  public SamPolicyModel updateProfilePolicyMembers(
+      AuthenticatedUserRequest userRequest,
+      UUID resourceId,
+      String policyName,
+      Collection<String> addEmails,
+      Collection<String> removeEmails)
+      throws InterruptedException {
+    String samResourceName = SamResourceType.PROFILE.getSamResourceName();
+    String token = userRequest.getToken();
+    List<String> changes = new ArrayList<>();
+    List<Callable<Void>> updates = new ArrayList<>();
+    addEmails.forEach(
+        email -> {
+          changes.add("add " + email);
+          updates.add(
+              () -> {
+                callSam(
+                    "addProfilePolicyMember",
+                    token,
+                    () ->
+                        samResourcesApi()
+                            .addUserToPolicyV2(
+                                samResourceName, resourceId.toString(), policyName, email, null));
+                return null;
+              });
+        });
+    removeEmails.forEach(
+        email -> {
+          changes.add("remove " + email);
+          updates.add(
+              () -> {
+                callSam(
+                    "deleteProfilePolicyMember",
+                    token,
+                    () ->
+                        samResourcesApi()
+                            .removeUserFromPolicyV2(
+                                samResourceName, resourceId.toString(), policyName, email));
+                return null;
+              });
+        });
+    try {
+      List<Future<Void>> results = policyMemberUpdateExecutor.invokeAll(updates);
+      List<String> outcomes = new ArrayList<>();
+      ErrorReportException firstFailure = null;
+      int applied = 0;
+      for (int i = 0; i < results.size(); i++) {
+        ErrorReportException failure = awaitPolicyMemberUpdate(results.get(i));
+        if (failure == null) {
+          applied++;
+          outcomes.add("Applied: " + changes.get(i));
+        } else {
+          outcomes.add("Failed: " + changes.get(i) + ": " + failure.getMessage());
+          firstFailure = firstFailure == null ? failure : firstFailure;
+        }
+      }
+      if (firstFailure != null) {
+        throw new PolicyMembersUpdateException(
+            String.format(
+                "Error updating profile policy members in Sam: %d of %d changes were applied",
+                applied, changes.size()),
+            firstFailure,
+            outcomes,
+            firstFailure.getStatusCode());
+      }
+      AccessPolicyMembershipV2 result =
+          callSam(
+              "getProfilePolicy",
+              token,
+              () ->
+                  samResourcesApi()
+                      .getPolicyV2(samResourceName, resourceId.toString(), policyName));
+      return new SamPolicyModel().name(policyName).members(result.getMemberEmails());
+    } catch (ApiException e) {
+      throw SamExceptionFactory.create("Error updating profile policy members in Sam", e);
+    } finally {
+      invalidateAuthorizations(resourceId);
+      Stream.concat(addEmails.stream(), removeEmails.stream())
+          .forEach(this::invalidateProfileIdsByEmail);
+    }
+  }
+
+  /** Waits for a policy member change, returning the error it failed with, if any. */
+  @Nullable
+  private static ErrorReportException awaitPolicyMemberUpdate(Future<Void> update)
+      throws InterruptedException {
+    try {
+      update.get();
+      return null;
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof InterruptedException interruptedException) {
+        throw interruptedException;
+      }
+      if (e.getCause() instanceof ApiException apiException) {
+        return SamExceptionFactory.create(apiException);
+      }
+      if (e.getCause() instanceof ErrorReportException errorReportException) {
+        return errorReportException;
+      }
+      return new InternalServerErrorException(
+          "Unexpected error updating policy members", e.getCause());
+    }
+  }
+
   /**
    * Removes the authenticated user from the specified resource.
    *
@@ -270,29 +612,40 @@ public class SamService {
       AuthenticatedUserRequest userRequest, String samResourceTypeName, UUID resourceId)
       throws InterruptedException {
     try {
-      SamRetry.retry(() -> leaveResourceInner(userRequest, samResourceTypeName, resourceId));
+      callSam(
+          "leaveResource",
+          userRequest.getToken(),
+          () -> leaveResourceInner(userRequest, samResourceTypeName, resourceId));
     } catch (ApiException e) {
       throw SamExceptionFactory.create("Error leaving resource in Sam", e);
+    } finally {
+      invalidateAuthorizations(resourceId);
+      invalidateProfileIds(userRequest);
     }
   }
 
   private void leaveResourceInner(
       AuthenticatedUserRequest userRequest, String samResourceTypeName, UUID resourceId)
       throws ApiException {
-    ResourcesApi samResourceApi = samResourcesApi(userRequest.getToken());
+    ResourcesApi samResourceApi = samResourcesApi();
     samResourceApi.leaveResourceV2(samResourceTypeName, resourceId.toString());
   }
 
   /**
-   * Fetch the user status (email and subjectId) from Sam.
+   * Fetch the user status (email and subjectId) from Sam. Concurrent lookups for the same token
+   * share a single Sam call.
    *
    * @param userToken user token
    * @return {@link UserStatusInfo}
    */
   public UserStatusInfo getUserStatusInfo(String userToken) throws InterruptedException {
-    UsersApi usersApi = samUsersApi(userToken);
+    return userStatusCalls.execute(userToken, () -> fetchUserStatusInfo(userToken));
+  }
+
+  private UserStatusInfo fetchUserStatusInfo(String userToken) throws InterruptedException {
+    UsersApi usersApi = samUsersApi();
     try {
-      return SamRetry.retry(() -> usersApi.getUserStatusInfo());
+      return callSam("getUserStatusInfo", userToken, () -> usersApi.getUserStatusInfo());
     } catch (ApiException e) {
       throw SamExceptionFactory.create("Error getting user email from Sam", e);
     }
@@ -307,7 +660,7 @@ public class SamService {
    */
   public void createProfileResource(AuthenticatedUserRequest userRequest, UUID profileId)
       throws InterruptedException {
-    ResourcesApi resourcesApi = samResourcesApi(userRequest.getToken());
+    ResourcesApi resourcesApi = samResourcesApi();
 
     Map<String, AccessPolicyMembershipRequest> policyMap = new HashMap<>();
 
@@ -342,13 +695,17 @@ public class SamService {
             .authDomain(Collections.emptyList());
 
     try {
-      SamRetry.retry(
+      callSamFromFlight(
+          "createProfileResource",
+          userRequest.getToken(),
           () ->
               resourcesApi.createResourceV2(
                   SamResourceType.PROFILE.getSamResourceName(), profileRequest));
       logger.info("Created Sam resource for profile {}", profileId);
     } catch (ApiException e) {
       throw SamExceptionFactory.create("Error creating a profile resource in Sam", e);
+    } finally {
+      invalidateProfileIds(userRequest);
     }
   }
 
@@ -361,9 +718,11 @@ public class SamService {
    */
   public void deleteProfileResource(AuthenticatedUserRequest userRequest, UUID profileId)
       throws InterruptedException {
-    ResourcesApi resourcesApi = samResourcesApi(userRequest.getToken());
+    ResourcesApi resourcesApi = samResourcesApi();
     try {
-      SamRetry.retry(
+      callSamFromFlight(
+          "deleteProfileResource",
+          userRequest.getToken(),
           () ->
               resourcesApi.deleteResourceV2(
                   SamResourceType.PROFILE.getSamResourceName(), profileId.toString()));
@@ -375,6 +734,14 @@ public class SamService {
         return;
       }
       throw SamExceptionFactory.create("Error deleting a profile in Sam", e);
+    } finally {
+      invalidateAuthorizations(profileId);
+      if (profileIdsCache != null) {
+        profileIdsCache
+            .asMap()
+            .values()
+            .removeIf(accessible -> accessible.profileIds().contains(profileId));
+      }
     }
   }
 
@@ -387,9 +754,12 @@ public class SamService {
    */
   public void deleteManagedResourceGroup(UUID profileId, AuthenticatedUserRequest userRequest)
       throws InterruptedException {
-    AzureApi azureApi = samAzureApi(userRequest.getToken());
+    AzureApi azureApi = samAzureApi();
     try {
-      SamRetry.retry(() -> azureApi.deleteManagedResourceGroup(profileId.toString()));
+      callSamFromFlight(
+          "deleteManagedResourceGroup",
+          userRequest.getToken(),
+          () -> azureApi.deleteManagedResourceGroup(profileId.toString()));
       logger.info("Deleted mrg in Sam for profile {}", profileId);
     } catch (ApiException e) {
       if (e.getCode() == HttpStatus.NOT_FOUND.value()) {
@@ -410,9 +780,11 @@ public class SamService {
    */
   public void createManagedResourceGroup(
       BillingProfile profile, AuthenticatedUserRequest userRequest) throws InterruptedException {
-    AzureApi azureApi = samAzureApi(userRequest.getToken());
+    AzureApi azureApi = samAzureApi();
     try {
-      SamRetry.retry(
+      callSamFromFlight(
+          "createManagedResourceGroup",
+          userRequest.getToken(),
           () ->
               azureApi.createManagedResourceGroup(
                   profile.id().toString(),
@@ -435,7 +807,6 @@ public class SamService {
 
   public SystemStatusSystems status() {
     // No access token needed since this is an unauthenticated API.
-    StatusApi statusApi = new StatusApi(getApiClient(null));
     try {
       // Don't retry status check
       SystemStatus samStatus = statusApi.getSystemStatus();
@@ -455,31 +826,103 @@ public class SamService {
     }
   }
 
+  /**
+   * Evicts every cached permission decision for a resource, for all users. Called after any change
+   * this instance makes to the resource's policies.
+   */
+  private void invalidateAuthorizations(UUID resourceId) {
+    if (authorizationCache != null) {
+      authorizationCache.asMap().keySet().removeIf(key -> key.resourceId().equals(resourceId));
+    }
+  }
+
+  /** Evicts the cached profile list of the calling user. */
+  private void invalidateProfileIds(AuthenticatedUserRequest userRequest) {
+    if (profileIdsCache != null && userRequest.getSubjectId() != null) {
+      profileIdsCache.invalidate(userRequest.getSubjectId());
+    }
+  }
+
+  /** Evicts the cached profile list of the user with the given email, if there is one. */
+  private void invalidateProfileIdsByEmail(String userEmail) {
+    if (profileIdsCache != null) {
+      profileIdsCache
+          .asMap()
+          .values()
+          .removeIf(accessible -> accessible.userEmail().equalsIgnoreCase(userEmail));
+    }
+  }
+
+  private static <K, V> Cache<K, V> buildCache(
+      SamCacheConfiguration.Settings settings, String cacheName) {
+    if (!settings.enabled()) {
+      return null;
+    }
+    return MetricUtils.monitorCache(
+        Caffeine.newBuilder()
+            .maximumSize(settings.maximumSize())
+            .expireAfterWrite(settings.ttl())
+            .recordStats()
+            .build(),
+        cacheName);
+  }
+
+  /** Makes a Sam call with retries, authenticated as the given token. */
+  private <T> T callSam(
+      String operation, String accessToken, SamCallExecutor.SamFunction<T> function)
+      throws ApiException, InterruptedException {
+    try (var ignored = bearerTokenInterceptor.withToken(accessToken)) {
+      return samCallExecutor.execute(operation, function);
+    }
+  }
+
+  /** Makes a Sam call with retries, authenticated as the given token. */
+  private void callSam(
+      String operation, String accessToken, SamCallExecutor.SamVoidFunction function)
+      throws ApiException, InterruptedException {
+    try (var ignored = bearerTokenInterceptor.withToken(accessToken)) {
+      samCallExecutor.executeVoid(operation, function);
+    }
+  }
+
+  /**
+   * Makes a Sam call on behalf of a flight step, authenticated as the given token. See {@link
+   * SamCallExecutor#executePatiently}.
+   */
+  private void callSamFromFlight(
+      String operation, String accessToken, SamCallExecutor.SamVoidFunction function)
+      throws ApiException, InterruptedException {
+    try (var ignored = bearerTokenInterceptor.withToken(accessToken)) {
+      samCallExecutor.executeVoidPatiently(operation, function);
+    }
+  }
+
   @VisibleForTesting
-  UsersApi samUsersApi(String accessToken) {
-    return new UsersApi(getApiClient(accessToken));
+  SamCallExecutor samCallExecutor() {
+    return samCallExecutor;
   }
 
   @VisibleForTesting
-  ResourcesApi samResourcesApi(String accessToken) {
-    return new ResourcesApi(getApiClient(accessToken));
+  UsersApi samUsersApi() {
+    return usersApi;
   }
 
   @VisibleForTesting
-  AdminApi samAdminApi(String accessToken) {
-    return new AdminApi(getApiClient(accessToken));
+  ResourcesApi samResourcesApi() {
+    return resourcesApi;
   }
 
-  AzureApi samAzureApi(String accessToken) {
-    return new AzureApi(getApiClient(accessToken));
+  @VisibleForTesting
+  AdminApi samAdminApi() {
+    return adminApi;
   }
 
-  private ApiClient getApiClient(String accessToken) {
-    // OkHttpClient objects manage their own thread pools, so it's much more performant to share one
-    // across requests.
-    ApiClient apiClient =
-        new ApiClient().setHttpClient(commonHttpClient).setBasePath(samConfig.basePath());
-    apiClient.setAccessToken(accessToken);
-    return apiClient;
+  AzureApi samAzureApi() {
+    return azureApi;
   }
+
+  private record AccessibleProfiles(String userEmail, List<UUID> profileIds) {}
+
+  private record AuthorizationKey(
+      String subjectId, SamResourceType resourceType, UUID resourceId, SamAction action) {}
 }
@@ -0,0 +1,16 @@
+package bio.terra.profile.service.iam.exception;
+
+import bio.terra.common.exception.ErrorReportException;
+import java.util.List;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Thrown when some of the member changes in a policy update failed. The changes are applied to Sam
+ * one by one, so the causes list which of them were applied and which failed.
+ */
+public class PolicyMembersUpdateException extends ErrorReportException {
+  public PolicyMembersUpdateException(
+      String message, Throwable cause, List<String> causes, HttpStatus statusCode) {
+    super(message, cause, causes, statusCode);
+  }
+}
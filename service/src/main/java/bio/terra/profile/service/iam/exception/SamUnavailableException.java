@@ -0,0 +1,10 @@
+package bio.terra.profile.service.iam.exception;
+
+import bio.terra.common.exception.ServiceUnavailableException;
+
+/** Thrown without calling Sam when recent Sam calls have been failing. */
+public class SamUnavailableException extends ServiceUnavailableException {
+  public SamUnavailableException(String message) {
+    super(message);
+  }
+}
@@ -12,7 +12,8 @@ public enum SamAction {
   LINK("link"),
   READ_SPEND_REPORT("read_spend_report"),
   READ_PROFILE("read_profile"),
-  SPECIFY_ACTING_USER("admin_specify_acting_user");
+  SPECIFY_ACTING_USER("admin_specify_acting_user"),
+  READ_SUMMARY_INFORMATION("admin_read_summary_information");
 
   private final String samActionName;
 
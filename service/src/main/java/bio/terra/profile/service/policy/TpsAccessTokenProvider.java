@@ -0,0 +1,128 @@
+package bio.terra.profile.service.policy;
+
+import bio.terra.profile.app.common.MetricUtils;
+import bio.terra.profile.app.configuration.PolicyServiceConfiguration;
+import bio.terra.profile.app.configuration.PolicyServiceConfiguration.PolicyServiceAccessToken;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Holds BPM's access token for calling TPS.
+ *
+ * <p>The token is fetched on first use and then refreshed in the background shortly before it
+ * expires, so requests to TPS do not wait on a token request. If a background refresh fails, it is
+ * retried while the current token remains usable; callers only fetch a token themselves when there
+ * is no usable one.
+ */
+@Component
+public class TpsAccessTokenProvider {
+  private static final Logger logger = LoggerFactory.getLogger(TpsAccessTokenProvider.class);
+  private static final String SERVICE = "tps";
+  // A token this close to expiry is not handed out, so it cannot expire mid-request
+  private static final Duration EXPIRY_MARGIN = Duration.ofMinutes(1);
+  // How long before expiry the background refresh starts
+  private static final Duration REFRESH_AHEAD = Duration.ofMinutes(5);
+  private static final Duration REFRESH_RETRY_INTERVAL = Duration.ofSeconds(30);
+
+  private final PolicyServiceConfiguration policyServiceConfiguration;
+  private final Clock clock;
+  private final ScheduledExecutorService refreshExecutor;
+  private volatile PolicyServiceAccessToken token;
+
+  @Autowired
+  public TpsAccessTokenProvider(PolicyServiceConfiguration policyServiceConfiguration) {
+    this(
+        policyServiceConfiguration,
+        Clock.systemUTC(),
+        Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder()
+                .setNameFormat("tps-token-refresh-%d")
+                .setDaemon(true)
+                .build()));
+  }
+
+  @VisibleForTesting
+  TpsAccessTokenProvider(
+      PolicyServiceConfiguration policyServiceConfiguration,
+      Clock clock,
+      ScheduledExecutorService refreshExecutor) {
+    this.policyServiceConfiguration = policyServiceConfiguration;
+    this.clock = clock;
+    this.refreshExecutor = refreshExecutor;
+  }
+
+  /**
+   * Gets a usable access token for TPS, fetching one only if there is no usable cached token.
+   *
+   * @throws IOException if a token was needed and could not be fetched
+   */
+  public String getAccessToken() throws IOException {
+    var current = token;
+    if (isUsable(current)) {
+      return current.value();
+    }
+    synchronized (this) {
+      current = token;
+      if (!isUsable(current)) {
+        current = refresh();
+      }
+      return current.value();
+    }
+  }
+
+  private boolean isUsable(PolicyServiceAccessToken candidate) {
+    return candidate != null && clock.instant().plus(EXPIRY_MARGIN).isBefore(candidate.expiresAt());
+  }
+
+  private synchronized PolicyServiceAccessToken refresh() throws IOException {
+    Instant start = clock.instant();
+    boolean succeeded = false;
+    try {
+      var refreshed = policyServiceConfiguration.fetchAccessToken();
+      succeeded = true;
+      token = refreshed;
+      scheduleRefresh(
+          Duration.between(clock.instant(), refreshed.expiresAt()).minus(REFRESH_AHEAD));
+      return refreshed;
+    } finally {
+      MetricUtils.recordAccessTokenRefresh(
+          SERVICE, Duration.between(start, clock.instant()), succeeded);
+    }
+  }
+
+  private void backgroundRefresh() {
+    try {
+      refresh();
+    } catch (IOException | RuntimeException e) {
+      logger.warn("Background refresh of the TPS access token failed", e);
+      if (isUsable(token)) {
+        scheduleRefresh(REFRESH_RETRY_INTERVAL);
+      }
+    }
+  }
+
+  private void scheduleRefresh(Duration delay) {
+    if (delay.isNegative() || delay.isZero()) {
+      // Too short-lived to refresh ahead of time; the next caller will fetch a new token
+      return;
+    }
+    refreshExecutor.schedule(this::backgroundRefresh, delay.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  @PreDestroy
+  void shutdown() {
+    refreshExecutor.shutdownNow();
+  }
+}
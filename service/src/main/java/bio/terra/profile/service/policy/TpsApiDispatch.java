@@ -10,18 +10,44 @@ import bio.terra.policy.model.TpsObjectType;
 import bio.terra.policy.model.TpsPaoCreateRequest;
 import bio.terra.policy.model.TpsPaoGetResult;
 import bio.terra.policy.model.TpsPolicyInputs;
+import bio.terra.profile.app.common.MetricUtils;
+import bio.terra.profile.app.common.RequestContext;
+import bio.terra.profile.app.common.RequestDeadline;
+import bio.terra.profile.app.common.SingleFlight;
+import bio.terra.profile.app.configuration.PolicyCacheConfiguration;
+import bio.terra.profile.app.configuration.PolicyListConfiguration;
 import bio.terra.profile.app.configuration.PolicyServiceConfiguration;
+import bio.terra.profile.app.configuration.TpsRetryConfiguration;
 import bio.terra.profile.service.policy.exception.PolicyConflictException;
 import bio.terra.profile.service.policy.exception.PolicyServiceAPIException;
 import bio.terra.profile.service.policy.exception.PolicyServiceAuthorizationException;
 import bio.terra.profile.service.policy.exception.PolicyServiceDuplicateException;
 import bio.terra.profile.service.policy.exception.PolicyServiceNotFoundException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.context.Context;
 import io.opentelemetry.instrumentation.annotations.WithSpan;
 import jakarta.ws.rs.client.Client;
 import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+import javax.annotation.Nullable;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -34,15 +60,67 @@ import org.springframework.stereotype.Component;
 public class TpsApiDispatch {
 
   private final PolicyServiceConfiguration policyServiceConfiguration;
+  private final TpsAccessTokenProvider tpsAccessTokenProvider;
+  private final TpsRetry tpsRetry;
   private final Client commonHttpClient;
+  // Caches PAOs by object id. Null when caching is disabled.
+  private final Cache<UUID, TpsPaoGetResult> paoCache;
+  // Remembers objects TPS recently reported as having no PAO, so reads of profiles that predate
+  // PAOs do not call TPS every time. Null when caching is disabled.
+  private final Cache<UUID, Boolean> missingPaoCache;
+  // Coalesces concurrent reads of the same PAO.
+  private final SingleFlight<UUID, TpsPaoGetResult> getPaoCalls = new SingleFlight<>();
+  private final int listPaosChunkSize;
+  private final int listPaosMaxConcurrentChunks;
+  // Runs the chunks of large listPaos reads. Each read bounds its own chunks in flight, so reads
+  // never queue behind each other for threads.
+  private final ExecutorService listPaosExecutor;
   private static final Logger logger = LoggerFactory.getLogger(TpsApiDispatch.class);
+  private static final String PAO_CACHE_NAME = "tps.pao";
+  private static final String MISSING_PAO_CACHE_NAME = "tps.pao.missing";
 
   @Autowired
   TpsApiDispatch(
-      PolicyServiceConfiguration policyServiceConfiguration, OpenTelemetry openTelemetry) {
+      PolicyServiceConfiguration policyServiceConfiguration,
+      PolicyCacheConfiguration policyCacheConfiguration,
+      PolicyListConfiguration policyListConfiguration,
+      TpsRetryConfiguration tpsRetryConfiguration,
+      TpsAccessTokenProvider tpsAccessTokenProvider,
+      OpenTelemetry openTelemetry) {
     this.policyServiceConfiguration = policyServiceConfiguration;
+    this.tpsAccessTokenProvider = tpsAccessTokenProvider;
+    this.tpsRetry = new TpsRetry(tpsRetryConfiguration);
     this.commonHttpClient =
         new ApiClient().getHttpClient().register(new JakartaTracingFilter(openTelemetry));
+    this.paoCache =
+        policyCacheConfiguration.enabled()
+            ? MetricUtils.monitorCache(
+                Caffeine.newBuilder()
+                    .maximumSize(policyCacheConfiguration.maximumSize())
+                    .expireAfterWrite(policyCacheConfiguration.ttl())
+                    .recordStats()
+                    .build(),
+                PAO_CACHE_NAME)
+            : null;
+    this.missingPaoCache =
+        policyCacheConfiguration.enabled()
+            ? MetricUtils.monitorCache(
+                Caffeine.newBuilder()
+                    .maximumSize(policyCacheConfiguration.maximumSize())
+                    .expireAfterWrite(policyCacheConfiguration.missingTtl())
+                    .recordStats()
+                    .<UUID, Boolean>build(),
+                MISSING_PAO_CACHE_NAME)
+            : null;
+    this.listPaosChunkSize = policyListConfiguration.chunkSize();
+    this.listPaosMaxConcurrentChunks = policyListConfiguration.maxConcurrentChunks();
+    this.listPaosExecutor =
+        Context.taskWrapping(
+            Executors.newCachedThreadPool(
+                new ThreadFactoryBuilder()
+                    .setNameFormat("tps-list-paos-%d")
+                    .setDaemon(true)
+                    .build()));
   }
 
   private ApiClient getApiClient(String accessToken) {
@@ -56,9 +134,10 @@ public class TpsApiDispatch {
     return client;
   }
 
-  private TpsApi policyApi() {
+  @VisibleForTesting
+  TpsApi policyApi() {
     try {
-      return new TpsApi(getApiClient(policyServiceConfiguration.getAccessToken()));
+      return new TpsApi(getApiClient(tpsAccessTokenProvider.getAccessToken()));
     } catch (IOException e) {
       throw new PolicyServiceAuthorizationException(
           "Error reading or parsing credentials file at %s"
@@ -74,7 +153,7 @@ public class TpsApiDispatch {
       throws InterruptedException {
     TpsApi tpsApi = policyApi();
     try {
-      TpsRetry.retry(
+      tpsRetry.retry(
           () ->
               tpsApi.createPao(
                   new TpsPaoCreateRequest()
@@ -84,6 +163,8 @@ public class TpsApiDispatch {
                       .attributes(inputs)));
     } catch (ApiException e) {
       throw convertApiException(e);
+    } finally {
+      invalidatePao(objectId);
     }
   }
 
@@ -92,51 +173,179 @@ public class TpsApiDispatch {
     TpsApi tpsApi = policyApi();
     try {
       try {
-        TpsRetry.retry(() -> tpsApi.deletePao(objectId));
+        tpsRetry.retry(() -> tpsApi.deletePao(objectId));
       } catch (ApiException e) {
         throw convertApiException(e);
       }
     } catch (PolicyServiceNotFoundException e) {
       // If the PAO is not found, it has either already been deleted by a prior step OR it never
       // existed to begin with if the profile had no policies set. Neither case is an error to BPM.
+    } finally {
+      invalidatePao(objectId);
     }
   }
 
   @WithSpan
   public TpsPaoGetResult getPao(UUID objectId) throws InterruptedException {
+    if (paoCache != null) {
+      var cached = paoCache.getIfPresent(objectId);
+      if (cached != null) {
+        return cached;
+      }
+      if (missingPaoCache.getIfPresent(objectId) != null) {
+        throw new PolicyServiceNotFoundException("Policy service recently returned not found");
+      }
+    }
+    return getPaoCalls.execute(objectId, () -> fetchPao(objectId));
+  }
+
+  private TpsPaoGetResult fetchPao(UUID objectId) throws InterruptedException {
     TpsApi tpsApi = policyApi();
     try {
-      return TpsRetry.retry(() -> tpsApi.getPao(objectId));
+      var pao = tpsRetry.retry(() -> tpsApi.getPao(objectId));
+      cachePao(pao);
+      return pao;
     } catch (ApiException e) {
-      throw convertApiException(e);
+      var exception = convertApiException(e);
+      if (exception instanceof PolicyServiceNotFoundException) {
+        cacheMissingPaos(List.of(objectId));
+      }
+      throw exception;
     }
   }
 
+  /**
+   * Gets the PAOs for several objects. Cached PAOs are returned without calling TPS, and the PAOs
+   * fetched for the rest are added to the cache. Objects without a PAO are omitted from the result,
+   * and objects recently found to have none are not looked up again.
+   */
   @WithSpan
   public List<TpsPaoGetResult> listPaos(List<UUID> objectIds) throws InterruptedException {
+    List<TpsPaoGetResult> result = new ArrayList<>();
+    List<UUID> uncachedIds = objectIds;
+    if (paoCache != null) {
+      var cached = paoCache.getAllPresent(objectIds);
+      result.addAll(cached.values());
+      var missing = missingPaoCache.getAllPresent(objectIds);
+      uncachedIds =
+          objectIds.stream()
+              .filter(id -> !cached.containsKey(id) && !missing.containsKey(id))
+              .toList();
+    }
+    if (!uncachedIds.isEmpty()) {
+      result.addAll(fetchPaos(uncachedIds));
+    }
+    return result;
+  }
+
+  /**
+   * Fetches PAOs from TPS in chunks of at most listPaosChunkSize ids, so a large page costs several
+   * small concurrent calls rather than one large one.
+   */
+  private List<TpsPaoGetResult> fetchPaos(List<UUID> objectIds) throws InterruptedException {
+    List<List<UUID>> chunks = Lists.partition(objectIds, listPaosChunkSize);
+    if (chunks.size() == 1) {
+      // TpsRetry already stops at the request deadline, so a single chunk is fetched right here
+      return fetchPaoChunk(objectIds);
+    }
+    Instant deadline = RequestDeadline.current().orElse(null);
+    // Bounds the chunks this read has in flight, whatever other reads are doing
+    Semaphore inFlight = new Semaphore(listPaosMaxConcurrentChunks);
+    List<Future<List<TpsPaoGetResult>>> fetches = new ArrayList<>();
+    try {
+      for (List<UUID> chunk : chunks) {
+        if (!inFlight.tryAcquire(remainingMillis(deadline), TimeUnit.MILLISECONDS)) {
+          throw new PolicyServiceAPIException("Timed out listing PAOs from Policy Service");
+        }
+        // Carry the request id and deadline over to the executor thread, so its calls are tagged
+        // with the request and its retries respect the deadline.
+        Callable<List<TpsPaoGetResult>> fetch =
+            RequestContext.propagate(() -> fetchPaoChunk(chunk));
+        fetches.add(
+            listPaosExecutor.submit(
+                () -> {
+                  try {
+                    return fetch.call();
+                  } finally {
+                    inFlight.release();
+                  }
+                }));
+      }
+      List<TpsPaoGetResult> result = new ArrayList<>();
+      for (Future<List<TpsPaoGetResult>> fetch : fetches) {
+        result.addAll(awaitPaoChunk(fetch, deadline));
+      }
+      return result;
+    } finally {
+      // Stop any chunks still running once the read has failed or timed out
+      fetches.forEach(fetch -> fetch.cancel(true));
+    }
+  }
+
+  private static long remainingMillis(@Nullable Instant deadline) {
+    return deadline == null
+        ? Long.MAX_VALUE
+        : Math.max(0, Duration.between(Instant.now(), deadline).toMillis());
+  }
+
+  /**
+   * Gets the PAOs held in the cache for the given objects, without calling TPS. Useful when TPS is
+   * unavailable and a partial answer is better than none.
+   */
+  public List<TpsPaoGetResult> listCachedPaos(List<UUID> objectIds) {
+    if (paoCache == null) {
+      return List.of();
+    }
+    return List.copyOf(paoCache.getAllPresent(objectIds).values());
+  }
+
+  private List<TpsPaoGetResult> fetchPaoChunk(List<UUID> objectIds) throws InterruptedException {
     TpsApi tpsApi = policyApi();
     try {
-      return TpsRetry.retry(() -> tpsApi.listPaos(objectIds));
+      var paos = tpsRetry.retry(() -> tpsApi.listPaos(objectIds));
+      paos.forEach(this::cachePao);
+      var found = paos.stream().map(TpsPaoGetResult::getObjectId).collect(Collectors.toSet());
+      cacheMissingPaos(objectIds.stream().filter(id -> !found.contains(id)).toList());
+      return paos;
     } catch (ApiException e) {
       throw convertApiException(e);
     }
   }
 
-  @WithSpan
-  public TpsPaoGetResult getOrCreatePao(
-      UUID objectId, TpsComponent component, TpsObjectType objectType) throws InterruptedException {
+  private static List<TpsPaoGetResult> awaitPaoChunk(
+      Future<List<TpsPaoGetResult>> fetch, @Nullable Instant deadline) throws InterruptedException {
     try {
-      return getPao(objectId);
-    } catch (PolicyServiceNotFoundException ignored) {
-      try {
-        createPao(objectId, null, component, objectType);
-      } catch (PolicyServiceDuplicateException e) {
-        // Thrown if the PAO has been created since we failed to get it previously. We don't care if
-        // this createPao call is the one to actually create the PAO, we just want the PAO to exist.
-        // Drop the DuplicatePAO exception and return the newly created PAO
-        logger.info("PAO already created for {}.", objectId);
+      return fetch.get(remainingMillis(deadline), TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      throw new PolicyServiceAPIException("Timed out listing PAOs from Policy Service", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof InterruptedException interruptedException) {
+        throw interruptedException;
       }
-      return getPao(objectId);
+      if (e.getCause() instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      throw new IllegalStateException("Unexpected error listing PAOs", e.getCause());
+    }
+  }
+
+  private void cachePao(TpsPaoGetResult pao) {
+    if (paoCache != null && pao.getObjectId() != null) {
+      paoCache.put(pao.getObjectId(), pao);
+      missingPaoCache.invalidate(pao.getObjectId());
+    }
+  }
+
+  private void cacheMissingPaos(List<UUID> objectIds) {
+    if (missingPaoCache != null) {
+      objectIds.forEach(objectId -> missingPaoCache.put(objectId, true));
+    }
+  }
+
+  private void invalidatePao(UUID objectId) {
+    if (paoCache != null) {
+      paoCache.invalidate(objectId);
+      missingPaoCache.invalidate(objectId);
     }
   }
 
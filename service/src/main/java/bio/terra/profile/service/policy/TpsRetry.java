@@ -1,9 +1,11 @@
 package bio.terra.profile.service.policy;
 
-import static java.time.Instant.now;
-
 import bio.terra.policy.client.ApiException;
+import bio.terra.profile.app.common.Backoff;
+import bio.terra.profile.app.common.RequestDeadline;
+import bio.terra.profile.app.configuration.TpsRetryConfiguration;
 import java.net.SocketTimeoutException;
+import java.time.Clock;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.concurrent.TimeUnit;
@@ -12,35 +14,34 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * This class is a clone of the TCL SamRetry. Since the definition of ApiException is different
- * (even though it is nearly identical), we cannot just use that code.
+ * Retries TPS calls that fail transiently. This started as a clone of the TCL SamRetry; since the
+ * definition of ApiException is different (even though it is nearly identical), we cannot just use
+ * that code.
+ *
+ * <p>Retries are spaced by exponential backoff with full jitter, and stop once the operation
+ * timeout or the deadline of the API request being served (see {@link RequestDeadline}) would pass
+ * before the next attempt, whichever comes first. User-facing reads therefore fail fast, while
+ * flight steps, which have no request deadline, retry for the whole operation timeout.
  */
 public class TpsRetry {
   private static final Logger logger = LoggerFactory.getLogger(TpsRetry.class);
 
-  // The retry function starts with INITIAL_WAIT between retries, and doubles that until it
-  // reaches MAXIMUM_WAIT, after which all retries are MAXIMUM_WAIT apart.
-  private static final Duration MAXIMUM_WAIT = Duration.ofSeconds(30);
-  private static final Duration INITIAL_WAIT = Duration.ofSeconds(10);
-  private static final Duration OPERATION_TIMEOUT = Duration.ofSeconds(300);
-
   // Tps calls which timeout will throw ApiExceptions wrapping SocketTimeoutExceptions and will have
   // an errorCode 0. This isn't a real HTTP status code, but we can check for it anyway.
   private static final int TIMEOUT_STATUS_CODE = 0;
 
-  private final Instant operationTimeout;
-
-  // How long to wait between retries.
-  private Duration retryDuration;
+  private final Backoff backoff;
+  private final Duration operationTimeout;
+  private final Clock clock;
 
-  TpsRetry() {
-    this.operationTimeout = now().plus(OPERATION_TIMEOUT);
-    this.retryDuration = INITIAL_WAIT;
+  public TpsRetry(TpsRetryConfiguration configuration) {
+    this(configuration, Clock.systemUTC());
   }
 
-  protected TpsRetry(Duration timeout) {
-    this.operationTimeout = now().plus(timeout);
-    this.retryDuration = INITIAL_WAIT;
+  TpsRetry(TpsRetryConfiguration configuration, Clock clock) {
+    this.backoff = new Backoff(configuration.initialBackoff(), configuration.maxBackoff());
+    this.operationTimeout = configuration.operationTimeout();
+    this.clock = clock;
   }
 
   @FunctionalInterface
@@ -64,43 +65,40 @@ public class TpsRetry {
         && apiException.getCause() instanceof SocketTimeoutException;
   }
 
-  public static <T> T retry(TpsFunction<T> function) throws ApiException, InterruptedException {
-    TpsRetry TpsRetry = new TpsRetry();
-    return TpsRetry.perform(function);
-  }
-
-  public static <T> T retry(TpsFunction<T> function, Duration timeout)
-      throws ApiException, InterruptedException {
-    TpsRetry TpsRetry = new TpsRetry(timeout);
-    return TpsRetry.perform(function);
-  }
-
-  public static void retry(TpsVoidFunction function) throws ApiException, InterruptedException {
-    TpsRetry TpsRetry = new TpsRetry();
-    TpsRetry.performVoid(function);
+  public <T> T retry(TpsFunction<T> function) throws ApiException, InterruptedException {
+    return retry(function, operationTimeout);
   }
 
-  public static void retry(TpsVoidFunction function, Duration timeout)
+  public <T> T retry(TpsFunction<T> function, Duration timeout)
       throws ApiException, InterruptedException {
-    TpsRetry TpsRetry = new TpsRetry(timeout);
-    TpsRetry.performVoid(function);
-  }
-
-  private <T> T perform(TpsFunction<T> function) throws ApiException, InterruptedException {
-    while (true) {
+    Instant deadline = deadline(timeout);
+    for (int retry = 0; ; retry++) {
       try {
         return function.apply();
       } catch (ApiException ex) {
-        if (isRetryable(ex)) {
-          logger.info("TpsRetry: caught retry-able exception: ", ex);
-          sleepOrTimeoutBeforeRetrying(ex);
-        } else {
+        if (!isRetryable(ex)) {
           throw ex;
         }
+        logger.info("TpsRetry: caught retry-able exception: ", ex);
+        sleepOrTimeoutBeforeRetrying(ex, backoff.delay(retry), deadline);
       }
     }
   }
 
+  public void retry(TpsVoidFunction function) throws ApiException, InterruptedException {
+    retry(function, operationTimeout);
+  }
+
+  public void retry(TpsVoidFunction function, Duration timeout)
+      throws ApiException, InterruptedException {
+    retry(
+        () -> {
+          function.apply();
+          return null;
+        },
+        timeout);
+  }
+
   private boolean isRetryable(ApiException apiException) {
     return isTimeoutException(apiException)
         || apiException.getCode() == HttpStatus.SC_INTERNAL_SERVER_ERROR
@@ -109,36 +107,31 @@ public class TpsRetry {
         || apiException.getCode() == HttpStatus.SC_GATEWAY_TIMEOUT;
   }
 
-  private void performVoid(TpsVoidFunction function) throws ApiException, InterruptedException {
-    perform(
-        () -> {
-          function.apply();
-          return null;
-        });
+  /** The operation timeout, cut short by the deadline of the current request if there is one. */
+  private Instant deadline(Duration timeout) {
+    Instant operationDeadline = clock.instant().plus(timeout);
+    return RequestDeadline.current()
+        .filter(requestDeadline -> requestDeadline.isBefore(operationDeadline))
+        .orElse(operationDeadline);
   }
 
   /**
-   * Given an exception from Tps, either timeout and rethrow the error from Tps or sleep for
-   * retryDuration. If the thread times out while sleeping, throw the initial exception.
-   *
-   * <p>With the current values of INITIAL_WAIT and MAXIMUM_WAIT, this will sleep with the pattern
-   * 10, 20, 30, 30, 30... seconds.
+   * Given an exception from Tps, either timeout and rethrow the error from Tps or sleep for the
+   * given delay. If the deadline would pass while sleeping, throw the initial exception right away.
    *
    * @param previousException The error Tps threw
    * @throws ApiException InterruptedException
    */
-  private void sleepOrTimeoutBeforeRetrying(ApiException previousException)
+  private void sleepOrTimeoutBeforeRetrying(
+      ApiException previousException, Duration delay, Instant deadline)
       throws ApiException, InterruptedException {
-    if (operationTimeout.minus(retryDuration).isBefore(now())) {
-      logger.error("TpsRetry: operation timed out after " + operationTimeout.toString());
+    if (clock.instant().plus(delay).isAfter(deadline)) {
+      // Not an error: requests are expected to reach their deadline under load
+      logger.warn("TpsRetry: operation timed out at {}", deadline);
       // If we timed out, throw the error from Tps that caused us to need to retry.
       throw previousException;
     }
-    logger.info("TpsRetry: sleeping " + retryDuration.getSeconds() + " seconds");
-    TimeUnit.SECONDS.sleep(retryDuration.getSeconds());
-    retryDuration = retryDuration.plus(INITIAL_WAIT);
-    if (retryDuration.compareTo(MAXIMUM_WAIT) > 0) {
-      retryDuration = MAXIMUM_WAIT;
-    }
+    logger.info("TpsRetry: sleeping {} ms", delay.toMillis());
+    TimeUnit.MILLISECONDS.sleep(delay.toMillis());
   }
 }
@@ -1,13 +1,19 @@
 package bio.terra.profile.service.profile;
 
+import bio.terra.common.exception.InternalServerErrorException;
+import bio.terra.common.exception.ServiceUnavailableException;
 import bio.terra.common.iam.AuthenticatedUserRequest;
-import bio.terra.policy.model.TpsComponent;
-import bio.terra.policy.model.TpsObjectType;
 import bio.terra.policy.model.TpsPaoGetResult;
 import bio.terra.policy.model.TpsPolicyInputs;
 import bio.terra.profile.app.common.MetricUtils;
+import bio.terra.profile.app.common.RequestContext;
+import bio.terra.profile.app.common.RequestDeadline;
 import bio.terra.profile.app.configuration.EnterpriseConfiguration;
 import bio.terra.profile.app.configuration.LimitsConfiguration;
+import bio.terra.profile.app.configuration.PolicyBackfillConfiguration;
+import bio.terra.profile.app.configuration.PolicyListConfiguration;
+import bio.terra.profile.app.configuration.ProfileExportConfiguration;
+import bio.terra.profile.app.configuration.ProfileReadConfiguration;
 import bio.terra.profile.db.ProfileChangeLogDao;
 import bio.terra.profile.db.ProfileDao;
 import bio.terra.profile.model.Organization;
@@ -20,20 +26,50 @@ import bio.terra.profile.service.iam.model.SamAction;
 import bio.terra.profile.service.iam.model.SamResourceType;
 import bio.terra.profile.service.job.JobMapKeys;
 import bio.terra.profile.service.job.JobService;
+import bio.terra.profile.service.job.exception.DuplicateJobIdException;
 import bio.terra.profile.service.policy.TpsApiDispatch;
 import bio.terra.profile.service.policy.exception.PolicyServiceAPIException;
+import bio.terra.profile.service.policy.exception.PolicyServiceNotFoundException;
 import bio.terra.profile.service.profile.exception.InvalidFieldException;
 import bio.terra.profile.service.profile.exception.ProfileNotFoundException;
 import bio.terra.profile.service.profile.flight.ProfileMapKeys;
+import bio.terra.profile.service.profile.flight.backfill.BackfillProfilePoliciesFlight;
 import bio.terra.profile.service.profile.flight.create.CreateProfileFlight;
 import bio.terra.profile.service.profile.flight.delete.DeleteProfileFlight;
 import bio.terra.profile.service.profile.model.BillingProfile;
+import bio.terra.profile.service.profile.model.ChangeLogCursor;
+import bio.terra.profile.service.profile.model.ChangeLogEntry;
+import bio.terra.profile.service.profile.model.ChangeLogFilter;
+import bio.terra.profile.service.profile.model.ProfileBatchGetResult;
+import bio.terra.profile.service.profile.model.ProfileCursor;
 import bio.terra.profile.service.profile.model.ProfileDescription;
+import bio.terra.profile.service.profile.model.ProfileEnrichment;
+import bio.terra.profile.service.profile.model.ProfileSearchFilter;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.opentelemetry.context.Context;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import javax.annotation.Nullable;
 import org.slf4j.Logger;
@@ -45,6 +81,8 @@ import org.springframework.stereotype.Service;
 public class ProfileService {
 
   private static final Logger logger = LoggerFactory.getLogger(ProfileService.class);
+  private static final int MAX_POLICY_MEMBER_UPDATES = 100;
+  private static final int MAX_BATCH_GET_IDS = 100;
 
   private final ProfileDao profileDao;
   private final ProfileChangeLogDao changeLogDao;
@@ -54,6 +92,10 @@ public class ProfileService {
   private final EnterpriseConfiguration enterpriseConfiguration;
   private final GcpService gcpService;
   private final LimitsConfiguration limitsConfiguration;
+  private final PolicyBackfillConfiguration policyBackfillConfiguration;
+  private final PolicyListConfiguration policyListConfiguration;
+  private final ProfileExportConfiguration profileExportConfiguration;
+  private final ExecutorService profileReadExecutor;
 
   @Autowired
   public ProfileService(
@@ -64,7 +106,11 @@ public class ProfileService {
       TpsApiDispatch tpsApiDispatch,
       GcpService gcpService,
       EnterpriseConfiguration enterpriseConfiguration,
-      LimitsConfiguration limitsConfiguration) {
+      LimitsConfiguration limitsConfiguration,
+      PolicyBackfillConfiguration policyBackfillConfiguration,
+      PolicyListConfiguration policyListConfiguration,
+      ProfileExportConfiguration profileExportConfiguration,
+      ProfileReadConfiguration profileReadConfiguration) {
     this.profileDao = profileDao;
     this.changeLogDao = changeLogDao;
     this.samService = samService;
@@ -73,6 +119,22 @@ public class ProfileService {
     this.enterpriseConfiguration = enterpriseConfiguration;
     this.gcpService = gcpService;
     this.limitsConfiguration = limitsConfiguration;
+    this.policyBackfillConfiguration = policyBackfillConfiguration;
+    this.policyListConfiguration = policyListConfiguration;
+    this.profileExportConfiguration = profileExportConfiguration;
+    // Bounded, so that under load reads are made inline rather than queueing behind each other
+    this.profileReadExecutor =
+        Context.taskWrapping(
+            new ThreadPoolExecutor(
+                profileReadConfiguration.threads(),
+                profileReadConfiguration.threads(),
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(profileReadConfiguration.queueCapacity()),
+                new ThreadFactoryBuilder()
+                    .setNameFormat("profile-read-%d")
+                    .setDaemon(true)
+                    .build()));
   }
 
   /**
@@ -148,60 +210,277 @@ public class ProfileService {
    * @throws ProfileNotFoundException when the profile is not found
    */
   public ProfileDescription getProfile(UUID id, AuthenticatedUserRequest user) {
-    // Check Sam permissions before checking in database
+    // Read the profile from the database while Sam is checked, so the request costs the slower of
+    // the two calls rather than their sum. Nothing read is returned unless the check passes, and a
+    // read still running when it fails is cancelled. Policies are only read from TPS once the check
+    // has passed, so callers without access cannot make BPM call TPS.
+    Future<BillingProfile> profileRead = startProfileRead(id);
+    try {
+      SamRethrow.onInterrupted(
+          () ->
+              samService.verifyAuthorization(
+                  user, SamResourceType.PROFILE, id, SamAction.READ_PROFILE),
+          "verifyGetProfileAuthz");
+      // Throws 404 if not found
+      BillingProfile profile =
+          profileRead != null
+              ? awaitProfileRead(profileRead)
+              : profileDao.getBillingProfileById(id);
+      return new ProfileDescription(
+          profile, getPolicies(id), Optional.of(getProfileOrganization(profile)));
+    } finally {
+      if (profileRead != null) {
+        profileRead.cancel(true);
+      }
+    }
+  }
+
+  /**
+   * Starts reading a profile on the read pool.
+   *
+   * @return the read, or null if the pool is full and the profile should be read inline
+   */
+  @Nullable
+  private Future<BillingProfile> startProfileRead(UUID id) {
+    try {
+      return profileReadExecutor.submit(
+          RequestContext.propagate(() -> profileDao.getBillingProfileById(id)));
+    } catch (RejectedExecutionException e) {
+      logger.debug("Profile read pool is full, reading profile {} inline", id);
+      return null;
+    }
+  }
+
+  /** Waits for a read started on the read pool, for no longer than the request deadline. */
+  private static <T> T awaitProfileRead(Future<T> read) {
+    try {
+      Optional<Instant> deadline = RequestDeadline.current();
+      if (deadline.isEmpty()) {
+        return read.get();
+      }
+      long remainingMillis = Duration.between(Instant.now(), deadline.get()).toMillis();
+      return read.get(Math.max(remainingMillis, 0), TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      throw new ServiceUnavailableException("Timed out reading profile");
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      throw new IllegalStateException("Unexpected error reading profile", e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InternalServerErrorException("Interrupted while reading profile", e);
+    }
+  }
+
+  /**
+   * Lists a page of a billing profile's changelog, in order of change date and id.
+   *
+   * @param id unique ID of the billing profile
+   * @param user authenticated user
+   * @param filter which changes to list
+   * @param after if not null, the page starts after this position
+   * @param limit the maximum number of changes to list
+   */
+  public List<ChangeLogEntry> getProfileChanges(
+      UUID id,
+      AuthenticatedUserRequest user,
+      ChangeLogFilter filter,
+      @Nullable ChangeLogCursor after,
+      int limit) {
     SamRethrow.onInterrupted(
         () ->
             samService.verifyAuthorization(
                 user, SamResourceType.PROFILE, id, SamAction.READ_PROFILE),
-        "verifyGetProfileAuthz");
-    // Throws 404 if not found
-    BillingProfile profile = profileDao.getBillingProfileById(id);
-
-    return profileDescription(profile);
+        "verifyGetProfileChangesAuthz");
+    return changeLogDao.listChangesByProfile(id, filter, after, limit);
   }
 
+  /**
+   * Lists a page of the profiles the user can read, in order of creation date and id.
+   *
+   * @param offset the number of profiles to skip; ignored when a cursor is given
+   * @param limit the maximum number of profiles to list
+   * @param after if present, the page starts after this position instead of at the offset
+   * @param enrichments the parts to look up for each profile; the others are left empty
+   */
   public List<ProfileDescription> listProfiles(
-      AuthenticatedUserRequest user, int offset, int limit) {
+      AuthenticatedUserRequest user,
+      int offset,
+      int limit,
+      @Nullable ProfileCursor after,
+      Set<ProfileEnrichment> enrichments) {
     List<UUID> samProfileIds =
         SamRethrow.onInterrupted(() -> samService.listProfileIds(user), "listProfileIds");
-    var profiles = profileDao.listBillingProfiles(offset, limit, samProfileIds);
+    var profiles =
+        after == null
+            ? profileDao.listBillingProfiles(offset, limit, samProfileIds)
+            : profileDao.listBillingProfilesAfter(after, limit, samProfileIds);
+    return describeProfiles(profiles, enrichments, "listProfiles");
+  }
 
-    try {
-      var policyById =
-          tpsApiDispatch.listPaos(profiles.stream().map(BillingProfile::id).toList()).stream()
-              .collect(
-                  Collectors.toMap(
-                      TpsPaoGetResult::getObjectId, TpsPaoGetResult::getEffectiveAttributes));
-
-      return profiles.stream()
-          .map(
-              profile ->
-                  new ProfileDescription(
-                      profile,
-                      Optional.ofNullable(policyById.get(profile.id())),
-                      Optional.of(getProfileOrganization(profile))))
-          .toList();
-    } catch (InterruptedException e) {
-      throw new PolicyServiceAPIException("Interrupted during TPS listPaos operation.", e);
+  /**
+   * Lists a page of the profiles the user can read that match a search filter, in order of creation
+   * date and id.
+   *
+   * @param filter the attributes the profiles must have
+   * @param limit the maximum number of profiles to list
+   * @param after if present, the page starts after this position
+   * @param enrichments the parts to look up for each profile; the others are left empty
+   */
+  public List<ProfileDescription> searchProfiles(
+      AuthenticatedUserRequest user,
+      ProfileSearchFilter filter,
+      int limit,
+      @Nullable ProfileCursor after,
+      Set<ProfileEnrichment> enrichments) {
+    List<UUID> samProfileIds =
+        SamRethrow.onInterrupted(() -> samService.listProfileIds(user), "listProfileIds");
+    var profiles = profileDao.searchBillingProfiles(filter, after, limit, samProfileIds);
+    return describeProfiles(profiles, enrichments, "searchProfiles");
+  }
+
+  /**
+   * Passes every billing profile to the sink, a batch at a time, for reconciliation against other
+   * services. Profiles are read from the database as the sink consumes them, so memory use does not
+   * grow with the number of profiles. Requires the caller to be a billing profile resource admin.
+   *
+   * @param enrichments the parts to look up for each profile; the others are left empty
+   * @param sink called with each batch of profiles in turn
+   */
+  public void exportProfiles(
+      AuthenticatedUserRequest user,
+      Set<ProfileEnrichment> enrichments,
+      Consumer<List<ProfileDescription>> sink) {
+    SamRethrow.onInterrupted(
+        () ->
+            samService.verifyResourceAdmin(
+                user, SamResourceType.PROFILE, SamAction.READ_SUMMARY_INFORMATION),
+        "verifyExportProfilesAuthz");
+    int batchSize = profileExportConfiguration.batchSize();
+    List<BillingProfile> batch = new ArrayList<>(batchSize);
+    profileDao.streamBillingProfiles(
+        profileExportConfiguration.fetchSize(),
+        profile -> {
+          batch.add(profile);
+          if (batch.size() == batchSize) {
+            sink.accept(describeProfiles(batch, enrichments, "exportProfiles"));
+            batch.clear();
+          }
+        });
+    if (!batch.isEmpty()) {
+      sink.accept(describeProfiles(batch, enrichments, "exportProfiles"));
+    }
+  }
+
+  /**
+   * Gets several billing profiles at once, with one Sam listing to check access, one database query
+   * and one TPS call.
+   *
+   * @param ids the ids of the profiles to get; duplicates are ignored
+   * @return a result for each distinct id, in the order requested
+   */
+  public List<ProfileBatchGetResult> batchGetProfiles(
+      AuthenticatedUserRequest user, List<UUID> ids) {
+    Set<UUID> requestedIds = new LinkedHashSet<>(ids);
+    if (requestedIds.isEmpty()) {
+      throw new InvalidFieldException("At least one profile id must be specified.");
+    }
+    if (requestedIds.size() > MAX_BATCH_GET_IDS) {
+      throw new InvalidFieldException(
+          String.format("At most %d profiles may be requested at once.", MAX_BATCH_GET_IDS));
+    }
+    Set<UUID> readableIds =
+        new HashSet<>(
+            SamRethrow.onInterrupted(() -> samService.listProfileIds(user), "listProfileIds"));
+    var authorizedIds = requestedIds.stream().filter(readableIds::contains).toList();
+    var profiles = profileDao.listBillingProfiles(0, authorizedIds.size(), authorizedIds);
+    Map<UUID, ProfileDescription> foundById = new HashMap<>();
+    describeProfiles(profiles, ProfileEnrichment.ALL, "batchGetProfiles")
+        .forEach(profile -> foundById.put(profile.billingProfile().id(), profile));
+
+    List<ProfileBatchGetResult> results = new ArrayList<>();
+    for (UUID id : requestedIds) {
+      if (foundById.containsKey(id)) {
+        results.add(ProfileBatchGetResult.found(foundById.get(id)));
+      } else if (readableIds.contains(id)) {
+        results.add(ProfileBatchGetResult.notFound(id));
+      } else {
+        results.add(ProfileBatchGetResult.forbidden(id));
+      }
+    }
+    return results;
+  }
+
+  /**
+   * Looks up the requested parts of each profile. If TPS fails or does not answer in time, the
+   * profiles are described anyway with whatever policies are cached, and the rest are marked as
+   * unavailable rather than failing the whole request.
+   */
+  private List<ProfileDescription> describeProfiles(
+      List<BillingProfile> profiles, Set<ProfileEnrichment> enrichments, String operation) {
+    Map<UUID, TpsPolicyInputs> policyById = Map.of();
+    boolean degraded = false;
+    if (enrichments.contains(ProfileEnrichment.POLICIES) && !profiles.isEmpty()) {
+      var profileIds = profiles.stream().map(BillingProfile::id).toList();
+      try {
+        policyById = toPolicyMap(listPaosWithinTimeout(profileIds));
+      } catch (PolicyServiceAPIException e) {
+        logger.warn("Unable to read policies from TPS, returning profiles without them", e);
+        MetricUtils.incrementDegradedResponse("tps", operation);
+        policyById = toPolicyMap(tpsApiDispatch.listCachedPaos(profileIds));
+        degraded = true;
+      } catch (InterruptedException e) {
+        throw new PolicyServiceAPIException("Interrupted during TPS listPaos operation.", e);
+      }
+    }
+
+    boolean withOrganization = enrichments.contains(ProfileEnrichment.ORGANIZATION);
+    List<ProfileDescription> result = new ArrayList<>();
+    for (BillingProfile profile : profiles) {
+      result.add(
+          new ProfileDescription(
+              profile,
+              Optional.ofNullable(policyById.get(profile.id())),
+              withOrganization ? Optional.of(getProfileOrganization(profile)) : Optional.empty(),
+              degraded && !policyById.containsKey(profile.id())));
     }
+    return result;
+  }
+
+  /** Lists PAOs, giving up once the list timeout or the request's own deadline passes. */
+  private List<TpsPaoGetResult> listPaosWithinTimeout(List<UUID> profileIds)
+      throws InterruptedException {
+    var timeout = Instant.now().plus(policyListConfiguration.timeout());
+    var deadline = RequestDeadline.current().filter(d -> d.isBefore(timeout)).orElse(timeout);
+    try (var ignored = RequestDeadline.set(deadline)) {
+      return tpsApiDispatch.listPaos(profileIds);
+    }
+  }
+
+  private static Map<UUID, TpsPolicyInputs> toPolicyMap(List<TpsPaoGetResult> paos) {
+    return paos.stream()
+        .collect(
+            Collectors.toMap(
+                TpsPaoGetResult::getObjectId, TpsPaoGetResult::getEffectiveAttributes));
   }
 
   public ProfileDescription updateProfile(
       UUID id, UpdateProfileRequest requestBody, AuthenticatedUserRequest user) {
+    var requiredActions = EnumSet.noneOf(SamAction.class);
     if (requestBody.getDescription() != null) {
+      requiredActions.add(SamAction.UPDATE_METADATA);
+    }
+    if (requestBody.getBillingAccountId() != null) {
+      requiredActions.add(SamAction.UPDATE_BILLING_ACCOUNT);
+    }
+    if (!requiredActions.isEmpty()) {
       SamRethrow.onInterrupted(
-          () ->
-              samService.verifyAuthorization(
-                  user, SamResourceType.PROFILE, id, SamAction.UPDATE_METADATA),
-          "verifyMetadataUpdateAuthz");
+          () -> samService.verifyAuthorizations(user, SamResourceType.PROFILE, id, requiredActions),
+          "verifyUpdateAuthz");
     }
 
     if (requestBody.getBillingAccountId() != null) {
-      SamRethrow.onInterrupted(
-          () ->
-              samService.verifyAuthorization(
-                  user, SamResourceType.PROFILE, id, SamAction.UPDATE_BILLING_ACCOUNT),
-          "verifyBillingAccountUpdateAuthz");
       gcpService.verifyUserBillingAccountAccess(
           Optional.of(requestBody.getBillingAccountId()), user);
       gcpService.verifyTerraBillingAccountAccess(Optional.of(requestBody.getBillingAccountId()));
@@ -209,25 +488,17 @@ public class ProfileService {
 
     var initiatingUser = getInitiatingUserId(user, requestBody.getInitiatingUser());
 
-    if (!profileDao.updateProfile(
-        id, requestBody.getDescription(), requestBody.getBillingAccountId())) {
-      throw new ProfileNotFoundException(String.format("Profile %s not found, update failed.", id));
-    }
-
-    recordUpdate(id, requestBody, initiatingUser);
+    // Records the update in the changelog as part of the same statement
+    BillingProfile updatedProfile =
+        profileDao
+            .updateProfile(
+                id, requestBody.getDescription(), requestBody.getBillingAccountId(), initiatingUser)
+            .orElseThrow(
+                () ->
+                    new ProfileNotFoundException(
+                        String.format("Profile %s not found, update failed.", id)));
 
-    return profileDescription(profileDao.getBillingProfileById(id));
-  }
-
-  private void recordUpdate(UUID id, UpdateProfileRequest request, String initiatingUser) {
-    var update = new HashMap<>();
-    if (request.getDescription() != null) {
-      update.put("description", request.getDescription());
-    }
-    if (request.getBillingAccountId() != null) {
-      update.put("billing_account_id", request.getBillingAccountId());
-    }
-    changeLogDao.recordProfileUpdate(id, initiatingUser, update);
+    return profileDescription(updatedProfile);
   }
 
   /**
@@ -257,10 +528,12 @@ public class ProfileService {
                 user, SamResourceType.PROFILE, id, SamAction.UPDATE_BILLING_ACCOUNT),
         "verifyRemoveBillingAccountAuthz");
 
-    profileDao.removeBillingAccount(id);
-    var changes = new HashMap<String, String>();
-    changes.put("billing_account_id", null);
-    changeLogDao.recordProfileUpdate(id, getInitiatingUserId(user, initiatingUser), changes);
+    profileDao
+        .removeBillingAccount(id, getInitiatingUserId(user, initiatingUser))
+        .orElseThrow(
+            () ->
+                new ProfileNotFoundException(
+                    String.format("Profile %s not found, billing account removal failed.", id)));
   }
 
   /**
@@ -298,6 +571,36 @@ public class ProfileService {
         "deletePolicyMember");
   }
 
+  public SamPolicyModel updateProfilePolicyMembers(
+      UUID profileId,
+      String policyName,
+      List<String> addMembers,
+      List<String> removeMembers,
+      AuthenticatedUserRequest user) {
+    Set<String> addEmails = new LinkedHashSet<>(addMembers);
+    Set<String> removeEmails = new LinkedHashSet<>(removeMembers);
+    if (addEmails.isEmpty() && removeEmails.isEmpty()) {
+      throw new InvalidFieldException("At least one member to add or remove must be specified.");
+    }
+    if (addEmails.size() + removeEmails.size() > MAX_POLICY_MEMBER_UPDATES) {
+      throw new InvalidFieldException(
+          String.format(
+              "At most %d members may be added or removed at once.", MAX_POLICY_MEMBER_UPDATES));
+    }
+    if (!Collections.disjoint(addEmails, removeEmails)) {
+      throw new InvalidFieldException("A member cannot be both added and removed.");
+    }
+    if (removeEmails.contains(user.getEmail())) {
+      throw new InvalidFieldException(
+          "Use leaveProfile to remove the current user from a billing profile.");
+    }
+    return SamRethrow.onInterrupted(
+        () ->
+            samService.updateProfilePolicyMembers(
+                user, profileId, policyName, addEmails, removeEmails),
+        "updateProfilePolicyMembers");
+  }
+
   private Organization getProfileOrganization(BillingProfile profile) {
     return new Organization()
         .enterprise(
@@ -309,17 +612,37 @@ public class ProfileService {
   }
 
   private ProfileDescription profileDescription(BillingProfile profile) {
-    Optional<TpsPolicyInputs> policies;
+    return new ProfileDescription(
+        profile, getPolicies(profile.id()), Optional.of(getProfileOrganization(profile)));
+  }
+
+  private Optional<TpsPolicyInputs> getPolicies(UUID profileId) {
     try {
-      policies =
-          Optional.ofNullable(
-              tpsApiDispatch
-                  .getOrCreatePao(profile.id(), TpsComponent.BPM, TpsObjectType.BILLING_PROFILE)
-                  .getEffectiveAttributes());
+      return Optional.ofNullable(tpsApiDispatch.getPao(profileId).getEffectiveAttributes());
+    } catch (PolicyServiceNotFoundException e) {
+      // Profiles without a PAO have no policies; see BackfillProfilePoliciesFlight
+      return Optional.empty();
     } catch (InterruptedException e) {
       throw new PolicyServiceAPIException("Interrupted during TPS getPao operation.", e);
     }
+  }
 
-    return new ProfileDescription(profile, policies, Optional.of(getProfileOrganization(profile)));
+  /**
+   * Submits the flight that creates PAOs for billing profiles that predate them, unless Stairway
+   * still holds a backfill with the configured job id.
+   */
+  public void submitPolicyBackfill() {
+    try {
+      jobService
+          .newJob()
+          .jobId(policyBackfillConfiguration.jobId())
+          .description("Create missing policy attribute objects for billing profiles")
+          .flightClass(BackfillProfilePoliciesFlight.class)
+          .addParameter(ProfileMapKeys.BACKFILL_BATCH_SIZE, policyBackfillConfiguration.batchSize())
+          .submit();
+      logger.info("Submitted policy backfill {}", policyBackfillConfiguration.jobId());
+    } catch (DuplicateJobIdException e) {
+      logger.info("Policy backfill {} already submitted", policyBackfillConfiguration.jobId());
+    }
   }
 }
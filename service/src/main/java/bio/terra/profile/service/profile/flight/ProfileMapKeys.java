@@ -5,6 +5,10 @@ public final class ProfileMapKeys {
   public static final String PROFILE = "profile";
   public static final String POLICIES = "policies";
   public static final String ORGANIZATION = "organization";
+  public static final String BACKFILL_BATCH_SIZE = "backfillBatchSize";
+  public static final String BACKFILL_LAST_PROFILE_ID = "backfillLastProfileId";
+  public static final String BACKFILL_CHECKED_COUNT = "backfillCheckedCount";
+  public static final String BACKFILL_CREATED_COUNT = "backfillCreatedCount";
 
   private ProfileMapKeys() {}
 }
@@ -0,0 +1,28 @@
+package bio.terra.profile.service.profile.flight.backfill;
+
+import bio.terra.profile.db.ProfileDao;
+import bio.terra.profile.service.policy.TpsApiDispatch;
+import bio.terra.profile.service.profile.flight.ProfileMapKeys;
+import bio.terra.stairway.Flight;
+import bio.terra.stairway.FlightMap;
+import bio.terra.stairway.RetryRuleExponentialBackoff;
+import org.springframework.context.ApplicationContext;
+
+/** Creates an empty PAO in TPS for every billing profile that does not have one. */
+public class BackfillProfilePoliciesFlight extends Flight {
+
+  public BackfillProfilePoliciesFlight(FlightMap inputParameters, Object applicationContext) {
+    super(inputParameters, applicationContext);
+
+    ApplicationContext appContext = (ApplicationContext) applicationContext;
+    ProfileDao profileDao = appContext.getBean(ProfileDao.class);
+    TpsApiDispatch tpsApiDispatch = appContext.getBean(TpsApiDispatch.class);
+
+    var batchSize = inputParameters.get(ProfileMapKeys.BACKFILL_BATCH_SIZE, Integer.class);
+
+    // Retry TPS outages for up to an hour; progress is kept across retries
+    addStep(
+        new BackfillProfilePoliciesStep(profileDao, tpsApiDispatch, batchSize),
+        new RetryRuleExponentialBackoff(10, 300, 3600));
+  }
+}
@@ -0,0 +1,84 @@
+package bio.terra.profile.service.profile.flight.backfill;
+
+import bio.terra.policy.model.TpsComponent;
+import bio.terra.policy.model.TpsObjectType;
+import bio.terra.policy.model.TpsPaoGetResult;
+import bio.terra.profile.db.ProfileDao;
+import bio.terra.profile.service.policy.TpsApiDispatch;
+import bio.terra.profile.service.policy.exception.PolicyServiceAPIException;
+import bio.terra.profile.service.policy.exception.PolicyServiceDuplicateException;
+import bio.terra.profile.service.profile.flight.ProfileMapKeys;
+import bio.terra.stairway.FlightContext;
+import bio.terra.stairway.Step;
+import bio.terra.stairway.StepResult;
+import bio.terra.stairway.StepStatus;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Creates missing PAOs for one batch of billing profiles, in id order, then reruns itself for the
+ * next batch until every profile has been checked. The last profile id checked and the running
+ * totals are kept in the working map, which Stairway persists between runs, so a restarted or
+ * retried flight resumes where it left off.
+ */
+public record BackfillProfilePoliciesStep(
+    ProfileDao profileDao, TpsApiDispatch tpsApiDispatch, int batchSize) implements Step {
+
+  private static final Logger logger = LoggerFactory.getLogger(BackfillProfilePoliciesStep.class);
+
+  @Override
+  public StepResult doStep(FlightContext context) throws InterruptedException {
+    var workingMap = context.getWorkingMap();
+    var lastProfileId = workingMap.get(ProfileMapKeys.BACKFILL_LAST_PROFILE_ID, UUID.class);
+    long checked =
+        Optional.ofNullable(workingMap.get(ProfileMapKeys.BACKFILL_CHECKED_COUNT, Long.class))
+            .orElse(0L);
+    long created =
+        Optional.ofNullable(workingMap.get(ProfileMapKeys.BACKFILL_CREATED_COUNT, Long.class))
+            .orElse(0L);
+
+    var profileIds = profileDao.listBillingProfileIdsAfter(lastProfileId, batchSize);
+    if (profileIds.isEmpty()) {
+      logger.info(
+          "Policy backfill complete: checked {} profiles, created {} PAOs", checked, created);
+      return StepResult.getStepResultSuccess();
+    }
+
+    try {
+      Set<UUID> withPao =
+          tpsApiDispatch.listPaos(profileIds).stream()
+              .map(TpsPaoGetResult::getObjectId)
+              .collect(Collectors.toSet());
+      for (UUID profileId : profileIds) {
+        if (!withPao.contains(profileId)) {
+          try {
+            tpsApiDispatch.createPao(
+                profileId, null, TpsComponent.BPM, TpsObjectType.BILLING_PROFILE);
+            created++;
+          } catch (PolicyServiceDuplicateException e) {
+            // Created since we listed, which is all we need
+          }
+        }
+      }
+    } catch (PolicyServiceAPIException e) {
+      return new StepResult(StepStatus.STEP_RESULT_FAILURE_RETRY, e);
+    }
+
+    checked += profileIds.size();
+    workingMap.put(ProfileMapKeys.BACKFILL_LAST_PROFILE_ID, profileIds.get(profileIds.size() - 1));
+    workingMap.put(ProfileMapKeys.BACKFILL_CHECKED_COUNT, checked);
+    workingMap.put(ProfileMapKeys.BACKFILL_CREATED_COUNT, created);
+    logger.info("Policy backfill progress: checked {} profiles, created {} PAOs", checked, created);
+    return new StepResult(StepStatus.STEP_RESULT_RERUN);
+  }
+
+  @Override
+  public StepResult undoStep(FlightContext context) {
+    // Empty PAOs carry no policies, so the ones created here are harmless and left in place.
+    return StepResult.getStepResultSuccess();
+  }
+}
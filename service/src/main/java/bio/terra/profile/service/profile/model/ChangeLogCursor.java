@@ -0,0 +1,33 @@
+package bio.terra.profile.service.profile.model;
+
+import bio.terra.profile.service.profile.exception.InvalidFieldException;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * A position in a billing profile's changelog, which is listed in order of change date and then id.
+ * API callers see it as an opaque string.
+ *
+ * @param changeDate the date of the last change on the previous page
+ * @param id the id of the last change on the previous page
+ */
+public record ChangeLogCursor(Instant changeDate, UUID id) {
+  /**
+   * The cursor that continues the changelog after the given entry. Entries read from the database
+   * carry a {@link java.sql.Timestamp}, so the change date keeps its full precision.
+   */
+  public static ChangeLogCursor after(ChangeLogEntry entry) {
+    return new ChangeLogCursor(entry.changeDate().toInstant(), entry.id());
+  }
+
+  public String encode() {
+    return KeysetCursor.encode(changeDate, id);
+  }
+
+  /**
+   * @throws InvalidFieldException if the string is not a cursor produced by {@link #encode()}
+   */
+  public static ChangeLogCursor decode(String cursor) {
+    return KeysetCursor.decode(cursor, ChangeLogCursor::new);
+  }
+}
@@ -0,0 +1,15 @@
+package bio.terra.profile.service.profile.model;
+
+import bio.terra.profile.model.ChangeType;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Which of a billing profile's changelog entries to return. Empty attributes match every entry.
+ *
+ * @param changeType only entries of this type
+ * @param since only entries made at or after this time
+ * @param until only entries made before this time
+ */
+public record ChangeLogFilter(
+    Optional<ChangeType> changeType, Optional<Instant> since, Optional<Instant> until) {}
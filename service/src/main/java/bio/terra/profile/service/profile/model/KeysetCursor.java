@@ -0,0 +1,42 @@
+package bio.terra.profile.service.profile.model;
+
+import bio.terra.profile.service.profile.exception.InvalidFieldException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.UUID;
+import java.util.function.BiFunction;
+
+/**
+ * Encodes the (timestamp, id) keys of a position in a keyset-paginated list as the opaque string
+ * API callers see, shared by {@link ProfileCursor} and {@link ChangeLogCursor}.
+ */
+final class KeysetCursor {
+  private static final String SEPARATOR = "/";
+
+  private KeysetCursor() {}
+
+  static String encode(Instant timestamp, UUID id) {
+    return Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString((timestamp + SEPARATOR + id).getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * @throws InvalidFieldException if the string is not a cursor produced by {@link #encode}
+   */
+  static <T> T decode(String cursor, BiFunction<Instant, UUID, T> constructor) {
+    try {
+      var parts =
+          new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8)
+              .split(SEPARATOR, -1);
+      if (parts.length != 2) {
+        throw new InvalidFieldException("Invalid cursor");
+      }
+      return constructor.apply(Instant.parse(parts[0]), UUID.fromString(parts[1]));
+    } catch (IllegalArgumentException | DateTimeParseException e) {
+      throw new InvalidFieldException("Invalid cursor");
+    }
+  }
+}
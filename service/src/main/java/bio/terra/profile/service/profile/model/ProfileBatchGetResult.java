@@ -0,0 +1,43 @@
+package bio.terra.profile.service.profile.model;
+
+import bio.terra.profile.model.BatchGetProfileResult;
+import bio.terra.profile.model.BatchGetProfileStatus;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * The outcome of looking up one id in a batch get.
+ *
+ * @param id the requested id
+ * @param status whether the profile was found
+ * @param profile the profile, present only when it was found
+ */
+public record ProfileBatchGetResult(
+    UUID id, BatchGetProfileStatus status, Optional<ProfileDescription> profile) {
+  public ProfileBatchGetResult {
+    Objects.requireNonNull(id);
+    Objects.requireNonNull(status);
+    Objects.requireNonNull(profile);
+  }
+
+  public static ProfileBatchGetResult found(ProfileDescription profile) {
+    return new ProfileBatchGetResult(
+        profile.billingProfile().id(), BatchGetProfileStatus.FOUND, Optional.of(profile));
+  }
+
+  public static ProfileBatchGetResult notFound(UUID id) {
+    return new ProfileBatchGetResult(id, BatchGetProfileStatus.NOT_FOUND, Optional.empty());
+  }
+
+  public static ProfileBatchGetResult forbidden(UUID id) {
+    return new ProfileBatchGetResult(id, BatchGetProfileStatus.FORBIDDEN, Optional.empty());
+  }
+
+  public BatchGetProfileResult toApiBatchGetProfileResult() {
+    return new BatchGetProfileResult()
+        .id(id)
+        .status(status)
+        .profile(profile.map(ProfileDescription::toApiProfileModel).orElse(null));
+  }
+}
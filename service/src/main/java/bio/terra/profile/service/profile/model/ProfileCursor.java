@@ -0,0 +1,30 @@
+package bio.terra.profile.service.profile.model;
+
+import bio.terra.profile.service.profile.exception.InvalidFieldException;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * A position in the list of billing profiles, which are listed in order of creation date and then
+ * id. API callers see it as an opaque string.
+ *
+ * @param createdDate the creation date of the last profile on the previous page
+ * @param id the id of the last profile on the previous page
+ */
+public record ProfileCursor(Instant createdDate, UUID id) {
+  /** The cursor that continues the list after the given profile. */
+  public static ProfileCursor after(BillingProfile profile) {
+    return new ProfileCursor(profile.createdTime(), profile.id());
+  }
+
+  public String encode() {
+    return KeysetCursor.encode(createdDate, id);
+  }
+
+  /**
+   * @throws InvalidFieldException if the string is not a cursor produced by {@link #encode()}
+   */
+  public static ProfileCursor decode(String cursor) {
+    return KeysetCursor.decode(cursor, ProfileCursor::new);
+  }
+}
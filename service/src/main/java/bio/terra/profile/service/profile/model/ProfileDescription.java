@@ -5,18 +5,33 @@ import bio.terra.profile.model.CreateProfileRequest;
 import bio.terra.profile.model.Organization;
 import bio.terra.profile.model.ProfileModel;
 import bio.terra.profile.service.policy.TpsConversionUtils;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.TreeMap;
+import javax.annotation.Nullable;
 
 public record ProfileDescription(
     BillingProfile billingProfile,
     Optional<TpsPolicyInputs> policies,
-    Optional<Organization> organization) {
+    Optional<Organization> organization,
+    boolean policiesUnavailable) {
   public ProfileDescription {
     Objects.requireNonNull(billingProfile);
     Objects.requireNonNull(policies);
   }
 
+  public ProfileDescription(
+      BillingProfile billingProfile,
+      Optional<TpsPolicyInputs> policies,
+      Optional<Organization> organization) {
+    this(billingProfile, policies, organization, false);
+  }
+
   public ProfileDescription(BillingProfile billingProfile) {
     this(billingProfile, Optional.empty(), Optional.empty());
   }
@@ -28,10 +43,48 @@ public record ProfileDescription(
         Optional.empty());
   }
 
+  /**
+   * A version tag for the API representation of this profile. It changes whenever the profile row
+   * is updated (tracked by last_modified) or its policies or organization change.
+   */
+  public String etag() {
+    Hasher hasher = Hashing.sha256().newHasher();
+    putString(hasher, billingProfile.id().toString());
+    putString(hasher, String.valueOf(billingProfile.lastModified()));
+    putString(hasher, String.valueOf(policiesUnavailable));
+    var inputs = policies.map(TpsPolicyInputs::getInputs).orElse(List.of());
+    for (var input : inputs) {
+      putString(hasher, input.getNamespace());
+      putString(hasher, input.getName());
+      var additionalData = Optional.ofNullable(input.getAdditionalData()).orElse(List.of());
+      for (var pair : additionalData) {
+        putString(hasher, pair.getKey());
+        putString(hasher, pair.getValue());
+      }
+    }
+    organization.ifPresent(
+        org -> {
+          putString(hasher, String.valueOf(org.isEnterprise()));
+          new TreeMap<>(Optional.ofNullable(org.getLimits()).orElse(Map.of()))
+              .forEach(
+                  (key, value) -> {
+                    putString(hasher, key);
+                    putString(hasher, value);
+                  });
+        });
+    return hasher.hash().toString();
+  }
+
+  private static void putString(Hasher hasher, @Nullable String value) {
+    // Terminate each value so that adjacent values cannot run together.
+    hasher.putString(String.valueOf(value), StandardCharsets.UTF_8).putByte((byte) 0);
+  }
+
   public ProfileModel toApiProfileModel() {
     return billingProfile
         .toApiProfileModel()
         .policies(TpsConversionUtils.bpmFromTpsPolicyInputs(policies.orElse(null)))
+        .policiesUnavailable(policiesUnavailable ? true : null)
         .organization(organization.orElse(null));
   }
 }
@@ -0,0 +1,36 @@
+package bio.terra.profile.service.profile.model;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Parts of a billing profile that are not stored with it and have to be looked up separately when
+ * listing profiles. Callers that do not need a part can leave it out to make the list cheaper.
+ */
+public enum ProfileEnrichment {
+  /** The profile's effective policies, read from TPS. */
+  POLICIES("policies"),
+  /** The profile's organization, derived from configuration. */
+  ORGANIZATION("organization");
+
+  public static final Set<ProfileEnrichment> ALL =
+      Collections.unmodifiableSet(EnumSet.allOf(ProfileEnrichment.class));
+
+  private final String value;
+
+  ProfileEnrichment(String value) {
+    this.value = value;
+  }
+
+  public String getValue() {
+    return value;
+  }
+
+  /** The enrichment with the given API name, if there is one. */
+  public static Optional<ProfileEnrichment> fromValue(String value) {
+    return Arrays.stream(values()).filter(e -> e.value.equals(value)).findFirst();
+  }
+}
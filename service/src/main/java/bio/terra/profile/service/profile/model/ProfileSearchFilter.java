@@ -0,0 +1,15 @@
+package bio.terra.profile.service.profile.model;
+
+import bio.terra.profile.model.CloudPlatform;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Attributes a billing profile must have to be returned by a search. Empty attributes match every
+ * profile.
+ */
+public record ProfileSearchFilter(
+    Optional<String> billingAccountId,
+    Optional<UUID> tenantId,
+    Optional<UUID> subscriptionId,
+    Optional<CloudPlatform> cloudPlatform) {}
@@ -0,0 +1,31 @@
+package bio.terra.profile.app.common;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import bio.terra.profile.common.BaseUnitTest;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+class BackoffTest extends BaseUnitTest {
+  private final Backoff backoff = new Backoff(Duration.ofMillis(100), Duration.ofSeconds(1));
+
+  private void assertDelaysWithin(int retry, Duration ceiling) {
+    for (int i = 0; i < 100; i++) {
+      var delay = backoff.delay(retry);
+      assertTrue(!delay.isNegative() && delay.compareTo(ceiling) <= 0, delay.toString());
+    }
+  }
+
+  @Test
+  void delayDoublesEachRetry() {
+    assertDelaysWithin(0, Duration.ofMillis(100));
+    assertDelaysWithin(1, Duration.ofMillis(200));
+    assertDelaysWithin(2, Duration.ofMillis(400));
+  }
+
+  @Test
+  void delayIsCapped() {
+    assertDelaysWithin(4, Duration.ofSeconds(1));
+    assertDelaysWithin(100, Duration.ofSeconds(1));
+  }
+}
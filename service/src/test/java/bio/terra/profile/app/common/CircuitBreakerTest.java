@@ -0,0 +1,117 @@
+package bio.terra.profile.app.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import bio.terra.profile.common.BaseUnitTest;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import org.junit.jupiter.api.Test;
+
+class CircuitBreakerTest extends BaseUnitTest {
+  private static final Duration OPEN_DURATION = Duration.ofSeconds(30);
+
+  private final MutableClock clock = new MutableClock();
+  private final CircuitBreaker circuitBreaker = new CircuitBreaker(3, OPEN_DURATION, clock);
+
+  private void fail(int times) {
+    for (int i = 0; i < times; i++) {
+      assertTrue(circuitBreaker.tryAcquire());
+      circuitBreaker.recordFailure();
+    }
+  }
+
+  @Test
+  void opensAfterConsecutiveFailures() {
+    fail(2);
+    assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+
+    fail(1);
+    assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    assertFalse(circuitBreaker.tryAcquire());
+  }
+
+  @Test
+  void successResetsFailureCount() {
+    fail(2);
+    assertTrue(circuitBreaker.tryAcquire());
+    circuitBreaker.recordSuccess();
+    fail(2);
+
+    assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+  }
+
+  @Test
+  void allowsSingleTrialAfterOpenDuration() {
+    fail(3);
+    clock.advance(OPEN_DURATION);
+
+    assertTrue(circuitBreaker.tryAcquire());
+    assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+    assertFalse(circuitBreaker.tryAcquire());
+  }
+
+  @Test
+  void successfulTrialCloses() {
+    fail(3);
+    clock.advance(OPEN_DURATION);
+
+    assertTrue(circuitBreaker.tryAcquire());
+    circuitBreaker.recordSuccess();
+
+    assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    assertTrue(circuitBreaker.tryAcquire());
+  }
+
+  @Test
+  void failedTrialReopens() {
+    fail(3);
+    clock.advance(OPEN_DURATION);
+
+    fail(1);
+
+    assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    assertFalse(circuitBreaker.tryAcquire());
+    clock.advance(OPEN_DURATION);
+    assertTrue(circuitBreaker.tryAcquire());
+  }
+
+  @Test
+  void abandonedTrialAllowsAnotherTrial() {
+    fail(3);
+    clock.advance(OPEN_DURATION);
+
+    assertTrue(circuitBreaker.tryAcquire());
+    circuitBreaker.recordAbandoned();
+
+    assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+    assertTrue(circuitBreaker.tryAcquire());
+  }
+
+  private static class MutableClock extends Clock {
+    private Instant instant = Instant.EPOCH;
+
+    void advance(Duration duration) {
+      instant = instant.plus(duration);
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return instant;
+    }
+  }
+}
@@ -0,0 +1,47 @@
+package bio.terra.profile.app.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import bio.terra.common.logging.RequestIdFilter;
+import bio.terra.profile.common.BaseUnitTest;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+class RequestContextTest extends BaseUnitTest {
+
+  @AfterEach
+  void clearMdc() {
+    MDC.clear();
+  }
+
+  @Test
+  void propagatesRequestIdAndDeadline() throws Exception {
+    var deadline = Instant.now().plusSeconds(10);
+    Callable<String> task;
+    MDC.put(RequestIdFilter.REQUEST_ID_MDC_KEY, "request-id");
+    try (var ignored = RequestDeadline.set(deadline)) {
+      task =
+          RequestContext.propagate(
+              () -> {
+                assertEquals(Optional.of(deadline), RequestDeadline.current());
+                return MDC.get(RequestIdFilter.REQUEST_ID_MDC_KEY);
+              });
+    }
+    var executor = Executors.newSingleThreadExecutor();
+    try {
+      assertEquals("request-id", executor.submit(task).get());
+      // The worker's own state is restored once the task completes
+      assertTrue(executor.submit(() -> RequestDeadline.current().isEmpty()).get());
+      assertNull(executor.submit(() -> MDC.get(RequestIdFilter.REQUEST_ID_MDC_KEY)).get());
+    } finally {
+      executor.shutdown();
+    }
+  }
+}
@@ -0,0 +1,31 @@
+package bio.terra.profile.app.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import bio.terra.profile.common.BaseUnitTest;
+import java.time.Instant;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+
+class RequestDeadlineTest extends BaseUnitTest {
+
+  @Test
+  void noDeadlineOutsideRequest() {
+    assertTrue(RequestDeadline.current().isEmpty());
+  }
+
+  @Test
+  void scopeRestoresPreviousDeadline() {
+    var outer = Instant.now().plusSeconds(10);
+    var inner = outer.minusSeconds(5);
+
+    try (var ignored = RequestDeadline.set(outer)) {
+      try (var ignored2 = RequestDeadline.set(inner)) {
+        assertEquals(Optional.of(inner), RequestDeadline.current());
+      }
+      assertEquals(Optional.of(outer), RequestDeadline.current());
+    }
+    assertTrue(RequestDeadline.current().isEmpty());
+  }
+}
@@ -0,0 +1,43 @@
+package bio.terra.profile.app.common;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import bio.terra.profile.common.BaseUnitTest;
+import org.junit.jupiter.api.Test;
+
+class RetryBudgetTest extends BaseUnitTest {
+
+  @Test
+  void startsFull() {
+    var budget = new RetryBudget(0.5, 2);
+
+    assertTrue(budget.tryRetry());
+    assertTrue(budget.tryRetry());
+    assertFalse(budget.tryRetry());
+  }
+
+  @Test
+  void callsEarnRetries() {
+    var budget = new RetryBudget(0.5, 2);
+    budget.tryRetry();
+    budget.tryRetry();
+
+    budget.recordCall();
+    assertFalse(budget.tryRetry());
+    budget.recordCall();
+    assertTrue(budget.tryRetry());
+  }
+
+  @Test
+  void savingsAreCapped() {
+    var budget = new RetryBudget(1, 2);
+    for (int i = 0; i < 10; i++) {
+      budget.recordCall();
+    }
+
+    assertTrue(budget.tryRetry());
+    assertTrue(budget.tryRetry());
+    assertFalse(budget.tryRetry());
+  }
+}
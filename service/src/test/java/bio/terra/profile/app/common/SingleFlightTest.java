@@ -0,0 +1,133 @@
+package bio.terra.profile.app.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import bio.terra.profile.common.BaseUnitTest;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class SingleFlightTest extends BaseUnitTest {
+
+  private final SingleFlight<String, String> singleFlight = new SingleFlight<>();
+  private final AtomicInteger calls = new AtomicInteger();
+
+  @Test
+  void concurrentCallsShareResult() throws Exception {
+    var started = new CountDownLatch(1);
+    var release = new CountDownLatch(1);
+    var leader =
+        start(
+            () ->
+                singleFlight.execute(
+                    "key",
+                    () -> {
+                      calls.incrementAndGet();
+                      started.countDown();
+                      release.await();
+                      return "result";
+                    }));
+    started.await();
+
+    var follower = start(() -> singleFlight.execute("key", this::call));
+    awaitWaiting(follower);
+    release.countDown();
+
+    assertEquals("result", leader.task().get());
+    assertEquals("result", follower.task().get());
+    assertEquals(1, calls.get());
+  }
+
+  @Test
+  void concurrentCallsShareException() throws Exception {
+    var started = new CountDownLatch(1);
+    var release = new CountDownLatch(1);
+    var exception = new IllegalStateException("failed");
+    var leader =
+        start(
+            () ->
+                singleFlight.execute(
+                    "key",
+                    () -> {
+                      started.countDown();
+                      release.await();
+                      throw exception;
+                    }));
+    started.await();
+
+    var follower = start(() -> singleFlight.execute("key", this::call));
+    awaitWaiting(follower);
+    release.countDown();
+
+    assertSame(exception, assertThrows(ExecutionException.class, leader.task()::get).getCause());
+    assertSame(exception, assertThrows(ExecutionException.class, follower.task()::get).getCause());
+    assertEquals(0, calls.get());
+  }
+
+  @Test
+  void completedCallsAreNotReused() throws Exception {
+    assertEquals("result", singleFlight.execute("key", this::call));
+    assertEquals("result", singleFlight.execute("key", this::call));
+    assertEquals(2, calls.get());
+  }
+
+  @Test
+  void failedCallsAreNotReused() throws Exception {
+    assertThrows(
+        IllegalStateException.class,
+        () ->
+            singleFlight.execute(
+                "key",
+                () -> {
+                  throw new IllegalStateException("failed");
+                }));
+    assertEquals("result", singleFlight.execute("key", this::call));
+  }
+
+  @Test
+  void differentKeysAreNotShared() throws Exception {
+    var started = new CountDownLatch(1);
+    var release = new CountDownLatch(1);
+    var leader =
+        start(
+            () ->
+                singleFlight.execute(
+                    "key",
+                    () -> {
+                      started.countDown();
+                      release.await();
+                      return "result";
+                    }));
+    started.await();
+
+    assertEquals("result", singleFlight.execute("other-key", this::call));
+    assertEquals(1, calls.get());
+    release.countDown();
+    leader.task().get();
+  }
+
+  private String call() {
+    calls.incrementAndGet();
+    return "result";
+  }
+
+  private static Started start(SingleFlight.Call<String> call) {
+    var task = new FutureTask<>(call::call);
+    var thread = new Thread(task);
+    thread.start();
+    return new Started(thread, task);
+  }
+
+  /** Waits until a thread is blocked waiting on the call it joined. */
+  private static void awaitWaiting(Started started) throws InterruptedException {
+    while (started.thread().getState() != Thread.State.WAITING) {
+      Thread.sleep(10);
+    }
+  }
+
+  private record Started(Thread thread, FutureTask<String> task) {}
+}
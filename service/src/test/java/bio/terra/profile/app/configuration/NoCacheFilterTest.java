@@ -0,0 +1,35 @@
+package bio.terra.profile.app.configuration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import bio.terra.profile.common.BaseUnitTest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+class NoCacheFilterTest extends BaseUnitTest {
+
+  private final NoCacheFilter filter = new NoCacheFilter();
+  private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+  @Test
+  void defaultsToNoStore() throws Exception {
+    filter.doFilter(new MockHttpServletRequest(), response, (req, res) -> {});
+
+    assertEquals(List.of("no-store"), response.getHeaders(HttpHeaders.CACHE_CONTROL));
+  }
+
+  @Test
+  void handlerCacheControlReplacesDefault() throws Exception {
+    filter.doFilter(
+        new MockHttpServletRequest(),
+        response,
+        (req, res) ->
+            ((HttpServletResponse) res).addHeader(HttpHeaders.CACHE_CONTROL, "no-cache, private"));
+
+    assertEquals(List.of("no-cache, private"), response.getHeaders(HttpHeaders.CACHE_CONTROL));
+  }
+}
@@ -0,0 +1,145 @@
+package bio.terra.profile.app.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import bio.terra.common.exception.ForbiddenException;
+import bio.terra.common.iam.AuthenticatedUserRequest;
+import bio.terra.profile.common.BaseSpringUnitTest;
+import bio.terra.profile.common.ProfileFixtures;
+import bio.terra.profile.model.ProfileExportSummary;
+import bio.terra.profile.model.ProfileModel;
+import bio.terra.profile.service.iam.SamService;
+import bio.terra.profile.service.policy.exception.PolicyServiceAPIException;
+import bio.terra.profile.service.profile.ProfileService;
+import bio.terra.profile.service.profile.model.ProfileDescription;
+import bio.terra.profile.service.profile.model.ProfileEnrichment;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import org.broadinstitute.dsde.workbench.client.sam.model.UserStatusInfo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+@AutoConfigureMockMvc
+class AdminApiControllerTest extends BaseSpringUnitTest {
+
+  @Autowired MockMvc mockMvc;
+  @Autowired ObjectMapper objectMapper;
+
+  @MockitoBean SamService samService;
+  @MockitoBean ProfileService profileService;
+  private final AuthenticatedUserRequest userRequest =
+      AuthenticatedUserRequest.builder()
+          .setEmail("example@example.com")
+          .setSubjectId("fake_sub")
+          .setToken("fake_token")
+          .build();
+
+  @BeforeEach
+  void setup() throws Exception {
+    when(samService.getUserStatusInfo(userRequest.getToken()))
+        .thenReturn(
+            new UserStatusInfo()
+                .userSubjectId(userRequest.getSubjectId())
+                .userEmail(userRequest.getEmail())
+                .enabled(true));
+  }
+
+  @Test
+  void exportProfiles_writesOneLinePerProfile() throws Exception {
+    var first = ProfileFixtures.createGcpBillingProfileDescription("ABCD1234");
+    var second = ProfileFixtures.createGcpBillingProfileDescription("EFGH5678");
+    doAnswer(
+            invocation -> {
+              Consumer<List<ProfileDescription>> sink = invocation.getArgument(2);
+              sink.accept(List.of(first));
+              sink.accept(List.of(second));
+              return null;
+            })
+        .when(profileService)
+        .exportProfiles(any(), eq(Set.of(ProfileEnrichment.ORGANIZATION)), any());
+
+    var body =
+        mockMvc
+            .perform(
+                get("/api/admin/v1/profiles:export")
+                    .queryParam("include", "organization")
+                    .header("Authorization", "Bearer " + userRequest.getToken()))
+            .andExpect(status().is(HttpStatus.OK.value()))
+            .andExpect(content().contentType(AdminApiController.NDJSON))
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+
+    var lines = body.split("\n");
+    assertEquals(3, lines.length);
+    assertEquals(
+        List.of(first.billingProfile().id(), second.billingProfile().id()),
+        List.of(
+            objectMapper.readValue(lines[0], ProfileModel.class).getId(),
+            objectMapper.readValue(lines[1], ProfileModel.class).getId()));
+    assertEquals(new ProfileExportSummary().complete(true).profileCount(2L), summary(lines[2]));
+  }
+
+  @Test
+  void exportProfiles_endsWithIncompleteSummaryOnFailure() throws Exception {
+    var first = ProfileFixtures.createGcpBillingProfileDescription("ABCD1234");
+    doAnswer(
+            invocation -> {
+              Consumer<List<ProfileDescription>> sink = invocation.getArgument(2);
+              sink.accept(List.of(first));
+              throw new PolicyServiceAPIException("TPS is unavailable");
+            })
+        .when(profileService)
+        .exportProfiles(any(), any(), any());
+
+    var body =
+        mockMvc
+            .perform(
+                get("/api/admin/v1/profiles:export")
+                    .header("Authorization", "Bearer " + userRequest.getToken()))
+            .andExpect(status().is(HttpStatus.OK.value()))
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+
+    var lines = body.split("\n");
+    assertEquals(2, lines.length);
+    assertEquals(
+        new ProfileExportSummary().complete(false).profileCount(1L).message("TPS is unavailable"),
+        summary(lines[1]));
+  }
+
+  private ProfileExportSummary summary(String line) throws Exception {
+    return objectMapper.treeToValue(
+        objectMapper.readTree(line).get(AdminApiController.EXPORT_SUMMARY),
+        ProfileExportSummary.class);
+  }
+
+  @Test
+  void exportProfiles_forbiddenForNonAdmin() throws Exception {
+    doThrow(new ForbiddenException("forbidden"))
+        .when(profileService)
+        .exportProfiles(any(), any(), any());
+
+    mockMvc
+        .perform(
+            get("/api/admin/v1/profiles:export")
+                .header("Authorization", "Bearer " + userRequest.getToken()))
+        .andExpect(status().is(HttpStatus.FORBIDDEN.value()));
+  }
+}
@@ -0,0 +1,280 @@
+package bio.terra.profile.app.controller;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import bio.terra.common.iam.AuthenticatedUserRequest;
+import bio.terra.profile.common.BaseSpringUnitTest;
+import bio.terra.profile.common.ProfileFixtures;
+import bio.terra.profile.model.ChangeType;
+import bio.terra.profile.model.CloudPlatform;
+import bio.terra.profile.service.iam.SamService;
+import bio.terra.profile.service.profile.ProfileService;
+import bio.terra.profile.service.profile.model.ChangeLogCursor;
+import bio.terra.profile.service.profile.model.ChangeLogEntry;
+import bio.terra.profile.service.profile.model.ChangeLogFilter;
+import bio.terra.profile.service.profile.model.ProfileBatchGetResult;
+import bio.terra.profile.service.profile.model.ProfileDescription;
+import bio.terra.profile.service.profile.model.ProfileEnrichment;
+import bio.terra.profile.service.profile.model.ProfileSearchFilter;
+import com.fasterxml.jackson.databind.util.RawValue;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import org.broadinstitute.dsde.workbench.client.sam.model.UserStatusInfo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+@AutoConfigureMockMvc
+class ProfileApiControllerTest extends BaseSpringUnitTest {
+
+  @Autowired MockMvc mockMvc;
+
+  @MockitoBean SamService samService;
+  @MockitoBean ProfileService profileService;
+  private final AuthenticatedUserRequest userRequest =
+      AuthenticatedUserRequest.builder()
+          .setEmail("example@example.com")
+          .setSubjectId("fake_sub")
+          .setToken("fake_token")
+          .build();
+  private final ProfileDescription profile =
+      ProfileFixtures.createGcpBillingProfileDescription("ABCD1234");
+
+  @BeforeEach
+  void setup() throws Exception {
+    when(samService.getUserStatusInfo(userRequest.getToken()))
+        .thenReturn(
+            new UserStatusInfo()
+                .userSubjectId(userRequest.getSubjectId())
+                .userEmail(userRequest.getEmail())
+                .enabled(true));
+    when(profileService.getProfile(eq(profile.billingProfile().id()), any())).thenReturn(profile);
+    when(profileService.listProfiles(any(), anyInt(), anyInt(), any(), any()))
+        .thenReturn(List.of(profile));
+  }
+
+  @Test
+  void getProfile_returnsEtag() throws Exception {
+    mockMvc
+        .perform(
+            get("/api/profiles/v1/{profileId}", profile.billingProfile().id())
+                .header("Authorization", "Bearer " + userRequest.getToken()))
+        .andExpect(status().is(HttpStatus.OK.value()))
+        .andExpect(header().string(HttpHeaders.ETAG, "\"" + profile.etag() + "\""))
+        .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, private"));
+  }
+
+  @Test
+  void getProfile_returnsNotModifiedForMatchingEtag() throws Exception {
+    var spiedProfile = spy(profile);
+    when(profileService.getProfile(eq(profile.billingProfile().id()), any()))
+        .thenReturn(spiedProfile);
+
+    mockMvc
+        .perform(
+            get("/api/profiles/v1/{profileId}", profile.billingProfile().id())
+                .header("Authorization", "Bearer " + userRequest.getToken())
+                .header(HttpHeaders.IF_NONE_MATCH, "\"" + profile.etag() + "\""))
+        .andExpect(status().is(HttpStatus.NOT_MODIFIED.value()))
+        .andExpect(header().string(HttpHeaders.ETAG, "\"" + profile.etag() + "\""))
+        .andExpect(content().string(""));
+    verify(spiedProfile, never()).toApiProfileModel();
+  }
+
+  @Test
+  void getProfile_returnsOkForStaleEtag() throws Exception {
+    mockMvc
+        .perform(
+            get("/api/profiles/v1/{profileId}", profile.billingProfile().id())
+                .header("Authorization", "Bearer " + userRequest.getToken())
+                .header(HttpHeaders.IF_NONE_MATCH, "\"stale\""))
+        .andExpect(status().is(HttpStatus.OK.value()));
+  }
+
+  @Test
+  void listProfiles_returnsNotModifiedForMatchingEtag() throws Exception {
+    var etag =
+        mockMvc
+            .perform(
+                get("/api/profiles/v1").header("Authorization", "Bearer " + userRequest.getToken()))
+            .andExpect(status().is(HttpStatus.OK.value()))
+            .andReturn()
+            .getResponse()
+            .getHeader(HttpHeaders.ETAG);
+
+    mockMvc
+        .perform(
+            get("/api/profiles/v1")
+                .header("Authorization", "Bearer " + userRequest.getToken())
+                .header(HttpHeaders.IF_NONE_MATCH, etag))
+        .andExpect(status().is(HttpStatus.NOT_MODIFIED.value()));
+  }
+
+  @Test
+  void listProfiles_degradedPageHasNoEtag() throws Exception {
+    when(profileService.listProfiles(any(), anyInt(), anyInt(), any(), any()))
+        .thenReturn(
+            List.of(
+                new ProfileDescription(
+                    profile.billingProfile(), Optional.empty(), Optional.empty(), true)));
+
+    mockMvc
+        .perform(
+            get("/api/profiles/v1").header("Authorization", "Bearer " + userRequest.getToken()))
+        .andExpect(status().is(HttpStatus.OK.value()))
+        .andExpect(header().doesNotExist(HttpHeaders.ETAG));
+  }
+
+  @Test
+  void listProfiles_rejectsOffsetWithCursor() throws Exception {
+    mockMvc
+        .perform(
+            get("/api/profiles/v1")
+                .queryParam("offset", "5")
+                .queryParam("cursor", "abc")
+                .header("Authorization", "Bearer " + userRequest.getToken()))
+        .andExpect(status().is(HttpStatus.BAD_REQUEST.value()));
+  }
+
+  @Test
+  void listProfiles_withInclude() throws Exception {
+    when(profileService.listProfiles(
+            any(), anyInt(), anyInt(), any(), eq(Set.of(ProfileEnrichment.ORGANIZATION))))
+        .thenReturn(List.of(new ProfileDescription(profile.billingProfile())));
+
+    mockMvc
+        .perform(
+            get("/api/profiles/v1")
+                .queryParam("include", "organization")
+                .header("Authorization", "Bearer " + userRequest.getToken()))
+        .andExpect(status().is(HttpStatus.OK.value()));
+  }
+
+  @Test
+  void listProfiles_rejectsUnknownInclude() throws Exception {
+    mockMvc
+        .perform(
+            get("/api/profiles/v1")
+                .queryParam("include", "policies,spend")
+                .header("Authorization", "Bearer " + userRequest.getToken()))
+        .andExpect(status().is(HttpStatus.BAD_REQUEST.value()));
+  }
+
+  @Test
+  void searchProfiles_passesFilter() throws Exception {
+    var tenantId = UUID.randomUUID();
+    var filter =
+        new ProfileSearchFilter(
+            Optional.empty(),
+            Optional.of(tenantId),
+            Optional.empty(),
+            Optional.of(CloudPlatform.AZURE));
+    when(profileService.searchProfiles(any(), eq(filter), eq(10), any(), any()))
+        .thenReturn(List.of(profile));
+
+    mockMvc
+        .perform(
+            get("/api/profiles/v1/search")
+                .queryParam("tenantId", tenantId.toString())
+                .queryParam("cloudPlatform", "AZURE")
+                .header("Authorization", "Bearer " + userRequest.getToken()))
+        .andExpect(status().is(HttpStatus.OK.value()))
+        .andExpect(jsonPath("$.items[0].id").value(profile.billingProfile().id().toString()))
+        .andExpect(header().exists(HttpHeaders.ETAG));
+  }
+
+  @Test
+  void searchProfiles_rejectsInvalidLimit() throws Exception {
+    mockMvc
+        .perform(
+            get("/api/profiles/v1/search")
+                .queryParam("limit", "0")
+                .header("Authorization", "Bearer " + userRequest.getToken()))
+        .andExpect(status().is(HttpStatus.BAD_REQUEST.value()));
+  }
+
+  @Test
+  void getProfileChanges_returnsPage() throws Exception {
+    var profileId = profile.billingProfile().id();
+    var since = Instant.parse("2024-05-01T00:00:00Z");
+    var filter =
+        new ChangeLogFilter(Optional.of(ChangeType.UPDATE), Optional.of(since), Optional.empty());
+    var change =
+        new ChangeLogEntry(
+            UUID.randomUUID(),
+            profileId,
+            ChangeType.UPDATE,
+            userRequest.getSubjectId(),
+            Timestamp.from(since.plusSeconds(60)),
+            new RawValue("{\"description\": {\"newValue\": \"new\"}}"));
+    when(profileService.getProfileChanges(eq(profileId), any(), eq(filter), eq(null), eq(1)))
+        .thenReturn(List.of(change));
+
+    mockMvc
+        .perform(
+            get("/api/profiles/v1/{profileId}/changes", profileId)
+                .queryParam("changeType", "UPDATE")
+                .queryParam("since", since.toString())
+                .queryParam("limit", "1")
+                .header("Authorization", "Bearer " + userRequest.getToken()))
+        .andExpect(status().is(HttpStatus.OK.value()))
+        .andExpect(jsonPath("$.items[0].id").value(change.id().toString()))
+        .andExpect(jsonPath("$.items[0].changes.description.newValue").value("new"))
+        .andExpect(jsonPath("$.nextCursor").value(ChangeLogCursor.after(change).encode()));
+  }
+
+  @Test
+  void getProfileChanges_rejectsInvalidSince() throws Exception {
+    mockMvc
+        .perform(
+            get("/api/profiles/v1/{profileId}/changes", profile.billingProfile().id())
+                .queryParam("since", "yesterday")
+                .header("Authorization", "Bearer " + userRequest.getToken()))
+        .andExpect(status().is(HttpStatus.BAD_REQUEST.value()));
+  }
+
+  @Test
+  void batchGetProfiles_returnsResults() throws Exception {
+    var forbiddenId = UUID.randomUUID();
+    when(profileService.batchGetProfiles(
+            any(), eq(List.of(profile.billingProfile().id(), forbiddenId))))
+        .thenReturn(
+            List.of(
+                ProfileBatchGetResult.found(profile),
+                ProfileBatchGetResult.forbidden(forbiddenId)));
+
+    mockMvc
+        .perform(
+            post("/api/profiles/v1:batchGet")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(
+                    String.format(
+                        "{\"ids\": [\"%s\", \"%s\"]}", profile.billingProfile().id(), forbiddenId))
+                .header("Authorization", "Bearer " + userRequest.getToken()))
+        .andExpect(status().is(HttpStatus.OK.value()))
+        .andExpect(jsonPath("$.results[0].status").value("FOUND"))
+        .andExpect(jsonPath("$.results[1].status").value("FORBIDDEN"));
+  }
+}
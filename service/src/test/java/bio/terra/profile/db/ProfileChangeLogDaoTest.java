@@ -1,14 +1,21 @@
 package bio.terra.profile.db;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 
 import bio.terra.profile.common.BaseSpringUnitTest;
 import bio.terra.profile.model.ChangeType;
 import bio.terra.profile.model.CloudPlatform;
 import bio.terra.profile.service.profile.model.BillingProfile;
+import bio.terra.profile.service.profile.model.ChangeLogCursor;
+import bio.terra.profile.service.profile.model.ChangeLogEntry;
+import bio.terra.profile.service.profile.model.ChangeLogFilter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.RawValue;
 import java.sql.Date;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
@@ -18,6 +25,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 public class ProfileChangeLogDaoTest extends BaseSpringUnitTest {
 
   @Autowired ProfileChangeLogDao dao;
+  @Autowired ProfileDao profileDao;
+  @Autowired ObjectMapper objectMapper;
 
   @Test
   void changeLogCreatesEntryForCreate() {
@@ -54,21 +63,20 @@ public class ProfileChangeLogDaoTest extends BaseSpringUnitTest {
 
   @Test
   void changeLogCreatesUpdateEntryWithChanges() {
-    var descriptionChange = Map.of("oldValue", "old description", "newValue", "new description");
-    var profileId = UUID.randomUUID();
     var userId = UUID.randomUUID().toString();
-    var changes = Map.of("description", descriptionChange);
+    var profile = profileDao.createBillingProfile(azureProfile(userId, Instant.now()), userId);
 
-    var recordId = dao.recordProfileUpdate(profileId, userId, changes);
-    var records = dao.getChangesByProfile(profileId);
+    profileDao.updateProfile(profile.id(), "new description", "new-billing-account", userId);
+    var records = dao.getChangesByProfile(profile.id());
 
     assertEquals(1, records.size());
     var record = records.get(0);
-    assertEquals(recordId.get(), record.id());
-    assertEquals(profileId, record.profileId());
+    assertEquals(profile.id(), record.profileId());
     assertEquals(userId, record.changeBy());
     assertEquals(ChangeType.UPDATE, record.changeType());
-    assertEquals(changes, record.changes());
+    assertEquals(
+        Map.of("description", "new description", "billing_account_id", "new-billing-account"),
+        record.changes());
   }
 
   @Test
@@ -105,15 +113,122 @@ public class ProfileChangeLogDaoTest extends BaseSpringUnitTest {
             profileCreateTime,
             profileCreateTime,
             userId);
-    var descriptionChange = Map.of("oldValue", "old description", "newValue", "new description");
-    var changes = Map.of("description", descriptionChange);
+    profileDao.createBillingProfile(profile, userId);
 
-    var updateRecordId = dao.recordProfileUpdate(profile.id(), userId, changes);
+    var updateRecordId = updateDescription(profile.id(), userId);
     var createRecordId = dao.recordProfileCreate(profile, userId);
 
     var records = dao.getChangesByProfile(profile.id());
     assertEquals(2, records.size());
     assertEquals(createRecordId.get(), records.get(0).id());
-    assertEquals(updateRecordId.get(), records.get(1).id());
+    assertEquals(updateRecordId, records.get(1).id());
+  }
+
+  @Test
+  void listChangesByProfilePagesInOrder() {
+    var userId = UUID.randomUUID().toString();
+    var profile = azureProfile(userId, Instant.now().minus(10, ChronoUnit.SECONDS));
+    profileDao.createBillingProfile(profile, userId);
+    var createRecordId = dao.recordProfileCreate(profile, userId).get();
+    var updateRecordId = updateDescription(profile.id(), userId);
+    var deleteRecordId = dao.recordProfileDelete(profile.id(), userId).get();
+    var noFilter = new ChangeLogFilter(Optional.empty(), Optional.empty(), Optional.empty());
+
+    var firstPage = dao.listChangesByProfile(profile.id(), noFilter, null, 2);
+    var secondPage =
+        dao.listChangesByProfile(
+            profile.id(), noFilter, ChangeLogCursor.after(firstPage.get(1)), 2);
+
+    assertEquals(
+        List.of(createRecordId, updateRecordId),
+        firstPage.stream().map(ChangeLogEntry::id).toList());
+    assertEquals(List.of(deleteRecordId), secondPage.stream().map(ChangeLogEntry::id).toList());
+  }
+
+  @Test
+  void listChangesByProfileFilters() {
+    var userId = UUID.randomUUID().toString();
+    var profileCreateTime = Instant.now().minus(10, ChronoUnit.SECONDS);
+    var profile = azureProfile(userId, profileCreateTime);
+    profileDao.createBillingProfile(profile, userId);
+    dao.recordProfileCreate(profile, userId);
+    var updateRecordId = updateDescription(profile.id(), userId);
+    var deleteRecordId = dao.recordProfileDelete(profile.id(), userId).get();
+
+    var updates =
+        dao.listChangesByProfile(
+            profile.id(),
+            new ChangeLogFilter(Optional.of(ChangeType.UPDATE), Optional.empty(), Optional.empty()),
+            null,
+            10);
+    var sinceCreate =
+        dao.listChangesByProfile(
+            profile.id(),
+            new ChangeLogFilter(
+                Optional.empty(), Optional.of(profileCreateTime.plusSeconds(1)), Optional.empty()),
+            null,
+            10);
+    var untilCreated =
+        dao.listChangesByProfile(
+            profile.id(),
+            new ChangeLogFilter(
+                Optional.empty(), Optional.empty(), Optional.of(profileCreateTime.plusSeconds(1))),
+            null,
+            10);
+
+    assertEquals(List.of(updateRecordId), updates.stream().map(ChangeLogEntry::id).toList());
+    assertEquals(
+        List.of(updateRecordId, deleteRecordId),
+        sinceCreate.stream().map(ChangeLogEntry::id).toList());
+    assertEquals(1, untilCreated.size());
+    assertEquals(ChangeType.CREATE, untilCreated.get(0).changeType());
+  }
+
+  @Test
+  void listChangesByProfileLeavesChangesUndecoded() throws Exception {
+    var userId = UUID.randomUUID().toString();
+    var profileId =
+        profileDao.createBillingProfile(azureProfile(userId, Instant.now()), userId).id();
+    updateDescription(profileId, userId);
+
+    var records =
+        dao.listChangesByProfile(
+            profileId,
+            new ChangeLogFilter(Optional.empty(), Optional.empty(), Optional.empty()),
+            null,
+            10);
+
+    assertEquals(1, records.size());
+    var record = records.get(0);
+    assertInstanceOf(RawValue.class, record.changes());
+    assertEquals(
+        objectMapper.valueToTree(Map.of("description", "new description")),
+        objectMapper.readTree(objectMapper.writeValueAsString(record.toApiModel().getChanges())));
+  }
+
+  /** Updates the profile's description and returns the id of the resulting changelog entry. */
+  private UUID updateDescription(UUID profileId, String userId) {
+    profileDao.updateProfile(profileId, "new description", null, userId);
+    return dao.getChangesByProfile(profileId).stream()
+        .filter(record -> record.changeType() == ChangeType.UPDATE)
+        .findFirst()
+        .orElseThrow()
+        .id();
+  }
+
+  private static BillingProfile azureProfile(String userId, Instant createTime) {
+    return new BillingProfile(
+        UUID.randomUUID(),
+        "profile name",
+        "profile description",
+        "direct",
+        CloudPlatform.AZURE,
+        Optional.empty(),
+        Optional.of(UUID.randomUUID()),
+        Optional.of(UUID.randomUUID()),
+        Optional.of("mrg_id"),
+        createTime,
+        createTime,
+        userId);
   }
 }
@@ -9,13 +9,18 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import bio.terra.common.iam.AuthenticatedUserRequest;
 import bio.terra.profile.common.BaseSpringUnitTest;
+import bio.terra.profile.model.ChangeType;
 import bio.terra.profile.model.CloudPlatform;
 import bio.terra.profile.service.profile.exception.DuplicateManagedApplicationException;
 import bio.terra.profile.service.profile.exception.MissingRequiredFieldsException;
 import bio.terra.profile.service.profile.exception.ProfileNotFoundException;
 import bio.terra.profile.service.profile.model.BillingProfile;
+import bio.terra.profile.service.profile.model.ProfileCursor;
+import bio.terra.profile.service.profile.model.ProfileSearchFilter;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -29,6 +34,7 @@ import org.springframework.dao.DuplicateKeyException;
 class ProfileDaoTest extends BaseSpringUnitTest {
 
   @Autowired private ProfileDao profileDao;
+  @Autowired private ProfileChangeLogDao changeLogDao;
   private AuthenticatedUserRequest user;
   private List<UUID> profileIds;
 
@@ -151,6 +157,35 @@ class ProfileDaoTest extends BaseSpringUnitTest {
     assertProfileListEquals(profiles.stream().limit(3).collect(Collectors.toList()), listResult);
   }
 
+  @Test
+  void listProfiles_manyIds() {
+    var profile = profileDao.createBillingProfile(makeGCPProfile(), user.getSubjectId());
+    profileIds.add(profile.id());
+    // More ids than the driver allows bind parameters in a single statement
+    var keys = Stream.concat(Stream.of(profile.id()), Stream.generate(UUID::randomUUID));
+    var listResult = profileDao.listBillingProfiles(0, 10, keys.limit(40_000).toList());
+    assertProfileListEquals(List.of(profile), listResult);
+  }
+
+  @Test
+  void listBillingProfileIdsAfter() {
+    for (int i = 0; i < 3; i++) {
+      profileIds.add(profileDao.createBillingProfile(makeGCPProfile(), user.getSubjectId()).id());
+    }
+
+    // Ids are listed in database order, which is not the same as UUID.compareTo order
+    var ordered =
+        profileDao.listBillingProfileIdsAfter(null, Integer.MAX_VALUE).stream()
+            .filter(profileIds::contains)
+            .toList();
+    assertEquals(3, ordered.size());
+    var afterFirst =
+        profileDao.listBillingProfileIdsAfter(ordered.get(0), Integer.MAX_VALUE).stream()
+            .filter(profileIds::contains)
+            .toList();
+    assertEquals(ordered.subList(1, 3), afterFirst);
+  }
+
   @Test
   void listProfiles_offset() {
     var profiles =
@@ -175,6 +210,125 @@ class ProfileDaoTest extends BaseSpringUnitTest {
     assertProfileListEquals(profiles.stream().limit(5).collect(Collectors.toList()), listResult);
   }
 
+  @Test
+  void listProfiles_afterCursor() {
+    var profiles =
+        Stream.generate(
+                () -> profileDao.createBillingProfile(makeGCPProfile(), user.getSubjectId()))
+            .limit(10)
+            .collect(Collectors.toList());
+    var keys = profiles.stream().map(BillingProfile::id).collect(Collectors.toList());
+
+    var firstPage = profileDao.listBillingProfiles(0, 4, keys);
+    var secondPage =
+        profileDao.listBillingProfilesAfter(ProfileCursor.after(firstPage.get(3)), 4, keys);
+    var lastPage =
+        profileDao.listBillingProfilesAfter(ProfileCursor.after(secondPage.get(3)), 4, keys);
+
+    assertEquals(
+        keys,
+        Stream.of(firstPage, secondPage, lastPage)
+            .flatMap(List::stream)
+            .map(BillingProfile::id)
+            .toList());
+  }
+
+  @Test
+  void searchProfiles() {
+    UUID tenantId = UUID.randomUUID();
+    var gcpProfile = profileDao.createBillingProfile(makeGCPProfile(), user.getSubjectId());
+    var azureProfile =
+        profileDao.createBillingProfile(
+            makeAzureProfile(tenantId, UUID.randomUUID(), "mrg1"), user.getSubjectId());
+    var otherAzureProfile =
+        profileDao.createBillingProfile(
+            makeAzureProfile(UUID.randomUUID(), UUID.randomUUID(), "mrg2"), user.getSubjectId());
+    var keys = List.of(gcpProfile.id(), azureProfile.id(), otherAzureProfile.id());
+
+    assertProfileListEquals(
+        List.of(gcpProfile),
+        profileDao.searchBillingProfiles(
+            searchFilter(Optional.of("billingAccount"), Optional.empty(), Optional.empty()),
+            null,
+            10,
+            keys));
+    assertProfileListEquals(
+        List.of(azureProfile),
+        profileDao.searchBillingProfiles(
+            searchFilter(Optional.empty(), Optional.of(tenantId), Optional.empty()),
+            null,
+            10,
+            keys));
+    assertProfileListEquals(
+        List.of(azureProfile, otherAzureProfile),
+        profileDao.searchBillingProfiles(
+            searchFilter(Optional.empty(), Optional.empty(), Optional.of(CloudPlatform.AZURE)),
+            null,
+            10,
+            keys));
+    // Filters are combined
+    assertProfileListEquals(
+        List.of(),
+        profileDao.searchBillingProfiles(
+            searchFilter(Optional.empty(), Optional.of(tenantId), Optional.of(CloudPlatform.GCP)),
+            null,
+            10,
+            keys));
+  }
+
+  @Test
+  void searchProfiles_onlyVisibleIds() {
+    var visible = profileDao.createBillingProfile(makeGCPProfile(), user.getSubjectId());
+    profileDao.createBillingProfile(makeGCPProfile(), user.getSubjectId());
+    var filter = searchFilter(Optional.of("billingAccount"), Optional.empty(), Optional.empty());
+    assertProfileListEquals(
+        List.of(visible),
+        profileDao.searchBillingProfiles(filter, null, 10, List.of(visible.id())));
+    assertEquals(List.of(), profileDao.searchBillingProfiles(filter, null, 10, List.of()));
+  }
+
+  @Test
+  void searchProfiles_afterCursor() {
+    var profiles =
+        Stream.generate(
+                () -> profileDao.createBillingProfile(makeGCPProfile(), user.getSubjectId()))
+            .limit(5)
+            .collect(Collectors.toList());
+    var keys = profiles.stream().map(BillingProfile::id).collect(Collectors.toList());
+    var filter = searchFilter(Optional.empty(), Optional.empty(), Optional.of(CloudPlatform.GCP));
+
+    var firstPage = profileDao.searchBillingProfiles(filter, null, 3, keys);
+    var secondPage =
+        profileDao.searchBillingProfiles(filter, ProfileCursor.after(firstPage.get(2)), 3, keys);
+
+    assertEquals(
+        keys,
+        Stream.of(firstPage, secondPage).flatMap(List::stream).map(BillingProfile::id).toList());
+  }
+
+  @Test
+  void streamBillingProfiles() {
+    var profiles =
+        Stream.generate(
+                () -> profileDao.createBillingProfile(makeGCPProfile(), user.getSubjectId()))
+            .limit(5)
+            .collect(Collectors.toList());
+
+    List<BillingProfile> streamed = new ArrayList<>();
+    // A fetch size smaller than the result set makes the cursor fetch more than once
+    profileDao.streamBillingProfiles(
+        2,
+        profile -> {
+          if (profileIds.contains(profile.id())) {
+            streamed.add(profile);
+          }
+        });
+
+    assertEquals(
+        profiles.stream().map(BillingProfile::id).toList(),
+        streamed.stream().map(BillingProfile::id).toList());
+  }
+
   @Test
   void listManagedResourceGroupsInSubscription() {
     UUID tenantId = UUID.randomUUID();
@@ -198,10 +352,12 @@ class ProfileDaoTest extends BaseSpringUnitTest {
     var profile = makeGCPProfile();
     profileDao.createBillingProfile(profile, user.getSubjectId());
 
-    assert profileDao.updateProfile(profile.id(), "new description", null);
+    var updated = profileDao.updateProfile(profile.id(), "new description", null, "updater");
     var result = profileDao.getBillingProfileById(profile.id());
     assertEquals("new description", result.description());
     assertEquals(profile.billingAccountId(), result.billingAccountId());
+    assertEquals(Optional.of(result), updated);
+    assertLastChange(profile.id(), "updater", Map.of("description", "new description"));
   }
 
   @Test
@@ -209,10 +365,12 @@ class ProfileDaoTest extends BaseSpringUnitTest {
     var profile = makeGCPProfile();
     profileDao.createBillingProfile(profile, user.getSubjectId());
 
-    assert profileDao.updateProfile(profile.id(), null, "newBillingAccountId");
+    var updated = profileDao.updateProfile(profile.id(), null, "newBillingAccountId", "updater");
     var result = profileDao.getBillingProfileById(profile.id());
     assertEquals(profile.description(), result.description());
     assertEquals(Optional.of("newBillingAccountId"), result.billingAccountId());
+    assertEquals(Optional.of(result), updated);
+    assertLastChange(profile.id(), "updater", Map.of("billing_account_id", "newBillingAccountId"));
   }
 
   @Test
@@ -220,10 +378,17 @@ class ProfileDaoTest extends BaseSpringUnitTest {
     var profile = makeGCPProfile();
     profileDao.createBillingProfile(profile, user.getSubjectId());
 
-    assert profileDao.updateProfile(profile.id(), "new description", "newBillingAccountId");
+    var updated =
+        profileDao.updateProfile(
+            profile.id(), "new description", "newBillingAccountId", user.getSubjectId());
     var result = profileDao.getBillingProfileById(profile.id());
     assertEquals("new description", result.description());
     assertEquals(Optional.of("newBillingAccountId"), result.billingAccountId());
+    assertEquals(Optional.of(result), updated);
+    assertLastChange(
+        profile.id(),
+        user.getSubjectId(),
+        Map.of("description", "new description", "billing_account_id", "newBillingAccountId"));
   }
 
   @Test
@@ -233,25 +398,41 @@ class ProfileDaoTest extends BaseSpringUnitTest {
 
     assertThrows(
         MissingRequiredFieldsException.class,
-        () -> profileDao.updateProfile(profile.id(), null, null));
+        () -> profileDao.updateProfile(profile.id(), null, null, user.getSubjectId()));
   }
 
   @Test
-  void updateProfile_falseIfProfileNotFound() {
+  void updateProfile_emptyIfProfileNotFound() {
     UUID notFoundId = UUID.randomUUID();
     assertThrows(
         ProfileNotFoundException.class, () -> profileDao.getBillingProfileById(notFoundId));
 
-    assert !profileDao.updateProfile(notFoundId, "description", "billingAccount");
+    assertEquals(
+        Optional.empty(),
+        profileDao.updateProfile(notFoundId, "description", "billingAccount", user.getSubjectId()));
+    // Nothing is recorded for an update that did not happen
+    assertEquals(List.of(), changeLogDao.getChangesByProfile(notFoundId));
   }
 
   @Test
   void removeBillingAccount() {
     var profile = makeGCPProfile();
     profileDao.createBillingProfile(profile, user.getSubjectId());
-    assert profileDao.removeBillingAccount(profile.id());
+    var updated = profileDao.removeBillingAccount(profile.id(), user.getSubjectId());
     assertEquals(
         Optional.empty(), profileDao.getBillingProfileById(profile.id()).billingAccountId());
+    assertEquals(Optional.empty(), updated.orElseThrow().billingAccountId());
+    var changes = new HashMap<String, String>();
+    changes.put("billing_account_id", null);
+    assertLastChange(profile.id(), user.getSubjectId(), changes);
+  }
+
+  private void assertLastChange(UUID profileId, String changeBy, Map<String, String> changes) {
+    var entries = changeLogDao.getChangesByProfile(profileId);
+    var last = entries.get(entries.size() - 1);
+    assertEquals(ChangeType.UPDATE, last.changeType());
+    assertEquals(changeBy, last.changeBy());
+    assertEquals(changes, last.changes());
   }
 
   // Keeps track of the profiles that are made so they can be cleaned up
@@ -292,6 +473,13 @@ class ProfileDaoTest extends BaseSpringUnitTest {
         null);
   }
 
+  private static ProfileSearchFilter searchFilter(
+      Optional<String> billingAccountId,
+      Optional<UUID> tenantId,
+      Optional<CloudPlatform> cloudPlatform) {
+    return new ProfileSearchFilter(billingAccountId, tenantId, Optional.empty(), cloudPlatform);
+  }
+
   // Tests profile equality, ignoring createdTime and createdBy
   private void assertProfileEquals(BillingProfile expected, BillingProfile actual) {
     assertEquals(expected.id(), actual.id());
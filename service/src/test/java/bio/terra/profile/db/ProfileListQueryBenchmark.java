@@ -0,0 +1,125 @@
+package bio.terra.profile.db;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import bio.terra.profile.app.Main;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Compares listing profiles by binding the caller's ids as a single uuid[] against expanding them
+ * into an IN list, over a table seeded with 100,000 profiles. Run with {@code ./gradlew
+ * benchmarkTests} against a local database.
+ */
+@Tag("benchmark")
+@SpringBootTest(
+    classes = Main.class,
+    properties = {
+      "otel.instrumentation.spring-webmvc.enabled=false",
+      "terra.common.google.tracing.enabled=false"
+    })
+@ActiveProfiles({"test", "unit", "human-readable-logging"})
+class ProfileListQueryBenchmark {
+  private static final Logger logger = LoggerFactory.getLogger(ProfileListQueryBenchmark.class);
+  private static final int PROFILE_COUNT = 100_000;
+  private static final int SEED_BATCH_SIZE = 5_000;
+  // An IN list is limited to 32767 bind parameters by the driver, so larger lists only run as an
+  // array.
+  private static final List<Integer> ID_COUNTS = List.of(10, 100, 1_000, 10_000, 30_000);
+  private static final int WARMUP_ITERATIONS = 5;
+  private static final int ITERATIONS = 20;
+  private static final int LIMIT = 1_000;
+  private static final String CREATED_BY = "profile-list-query-benchmark";
+
+  private static final String SQL_IN_LIST =
+      "SELECT * FROM billing_profile WHERE id in (:profile_ids) OFFSET 0 LIMIT :limit";
+  private static final String SQL_ANY =
+      "SELECT * FROM billing_profile WHERE id = ANY(:profile_ids) OFFSET 0 LIMIT :limit";
+
+  @Autowired private NamedParameterJdbcTemplate jdbcTemplate;
+  private List<UUID> profileIds;
+
+  @BeforeEach
+  void seed() {
+    profileIds = Stream.generate(UUID::randomUUID).limit(PROFILE_COUNT).toList();
+    for (int start = 0; start < PROFILE_COUNT; start += SEED_BATCH_SIZE) {
+      var batch =
+          profileIds.subList(start, start + SEED_BATCH_SIZE).stream()
+              .map(
+                  id ->
+                      new MapSqlParameterSource()
+                          .addValue("id", id)
+                          .addValue("display_name", "benchmark-" + id)
+                          .addValue("billing_account_id", "billingAccount")
+                          .addValue("created_by", CREATED_BY))
+              .toArray(SqlParameterSource[]::new);
+      jdbcTemplate.batchUpdate(
+          "INSERT INTO billing_profile"
+              + " (id, display_name, biller, billing_account_id, cloud_platform, created_by)"
+              + " VALUES (:id, :display_name, 'direct', :billing_account_id, 'GCP', :created_by)",
+          batch);
+    }
+    jdbcTemplate.update("ANALYZE billing_profile", new MapSqlParameterSource());
+  }
+
+  @AfterEach
+  void cleanup() {
+    jdbcTemplate.update(
+        "DELETE FROM billing_profile WHERE created_by = :created_by",
+        new MapSqlParameterSource("created_by", CREATED_BY));
+  }
+
+  @Test
+  void arrayParameterComparedToInList() {
+    for (int idCount : ID_COUNTS) {
+      // Spread the ids across the table, as a caller's accessible profiles would be
+      var ids = new ArrayList<UUID>();
+      for (int i = 0; i < idCount; i++) {
+        ids.add(profileIds.get(i * (PROFILE_COUNT / idCount)));
+      }
+      long inListMicros = microsPerQuery(SQL_IN_LIST, ids, list -> list);
+      long anyMicros = microsPerQuery(SQL_ANY, ids, ProfileDao::uuidArray);
+      logger.info(
+          "Listing with {} ids takes {} us per query with an IN list, {} us with an array",
+          idCount,
+          inListMicros,
+          anyMicros);
+    }
+
+    long allMicros = microsPerQuery(SQL_ANY, profileIds, ProfileDao::uuidArray);
+    logger.info(
+        "Listing with {} ids takes {} us per query with an array", PROFILE_COUNT, allMicros);
+  }
+
+  private long microsPerQuery(
+      String sql, List<UUID> ids, Function<List<UUID>, Object> profileIdsParameter) {
+    var params =
+        new MapSqlParameterSource()
+            .addValue("profile_ids", profileIdsParameter.apply(ids))
+            .addValue("limit", LIMIT);
+    int expected = Math.min(ids.size(), LIMIT);
+    for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+      assertEquals(expected, jdbcTemplate.queryForList(sql, params).size());
+    }
+    long start = System.nanoTime();
+    for (int i = 0; i < ITERATIONS; i++) {
+      assertEquals(expected, jdbcTemplate.queryForList(sql, params).size());
+    }
+    return (System.nanoTime() - start) / ITERATIONS / 1_000;
+  }
+}
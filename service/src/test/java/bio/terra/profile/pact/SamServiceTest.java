@@ -10,15 +10,31 @@ import au.com.dius.pact.consumer.junit5.PactTestFor;
 import au.com.dius.pact.core.model.PactSpecVersion;
 import au.com.dius.pact.core.model.RequestResponsePact;
 import au.com.dius.pact.core.model.annotations.Pact;
+import bio.terra.profile.app.configuration.SamCacheConfiguration;
 import bio.terra.profile.app.configuration.SamConfiguration;
+import bio.terra.profile.app.configuration.SamRetryConfiguration;
 import bio.terra.profile.service.iam.SamService;
 import io.opentelemetry.api.OpenTelemetry;
+import java.time.Duration;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 
 @Tag("pact-test")
 @PactConsumerTest
 public class SamServiceTest {
+  private static final SamCacheConfiguration CACHE_CONFIGURATION =
+      new SamCacheConfiguration(
+          new SamCacheConfiguration.UserStatus(false, 0, Duration.ZERO, Duration.ZERO),
+          new SamCacheConfiguration.Settings(false, 0, Duration.ZERO),
+          new SamCacheConfiguration.Settings(false, 0, Duration.ZERO));
+  private static final SamRetryConfiguration RETRY_CONFIGURATION =
+      new SamRetryConfiguration(
+          1,
+          Duration.ZERO,
+          Duration.ZERO,
+          new SamRetryConfiguration.Budget(0, 0),
+          new SamRetryConfiguration.CircuitBreaker(Integer.MAX_VALUE, Duration.ZERO),
+          Duration.ZERO);
 
   @Pact(consumer = "bpm", provider = "sam")
   public RequestResponsePact statusApiPact(PactDslWithProvider builder) {
@@ -58,7 +74,8 @@ public class SamServiceTest {
   @PactTestFor(pactMethod = "statusApiPact", pactVersion = PactSpecVersion.V3)
   public void testSamServiceStatusCheck(MockServer mockServer) {
     SamConfiguration config = new SamConfiguration(mockServer.getUrl(), "test@test.com");
-    var samService = new SamService(config, OpenTelemetry.noop());
+    var samService =
+        new SamService(config, CACHE_CONFIGURATION, RETRY_CONFIGURATION, OpenTelemetry.noop());
     var system = samService.status();
     assertTrue(system.isOk());
 
@@ -71,7 +88,8 @@ public class SamServiceTest {
   @PactTestFor(pactMethod = "userStatusPact", pactVersion = PactSpecVersion.V3)
   public void testSamServiceUserStatusInfo(MockServer mockServer) throws Exception {
     SamConfiguration config = new SamConfiguration(mockServer.getUrl(), "test@test.com");
-    var samService = new SamService(config, OpenTelemetry.noop());
+    var samService =
+        new SamService(config, CACHE_CONFIGURATION, RETRY_CONFIGURATION, OpenTelemetry.noop());
     samService.getUserStatusInfo("accessToken");
   }
 }
@@ -49,7 +49,6 @@ import java.math.BigDecimal;
 import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import org.apache.commons.lang3.StringUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
@@ -128,8 +127,6 @@ public class BPMProviderTest {
 
   @BeforeEach
   void setUp(PactVerificationContext context) {
-    // For creation and deletion, the changes are recorded in the stairway flights
-    when(changeLogDao.recordProfileUpdate(any(), any(), any())).thenReturn(Optional.empty());
     when(authenticatedUserRequestFactory.from(any())).thenReturn(userRequest);
     context.setTarget(new HttpTestTarget("localhost", port, "/"));
   }
@@ -154,7 +151,7 @@ public class BPMProviderTest {
   Map<String, Object> gcpBillingProfileState() throws InterruptedException {
     var profile = ProviderStateData.gcpBillingProfile;
     setUpProfileDaoGets(List.of(profile));
-    when(tpsApiDispatch.getOrCreatePao(any(), any(), any()))
+    when(tpsApiDispatch.getPao(any()))
         .thenReturn(new TpsPaoGetResult().effectiveAttributes(new TpsPolicyInputs()));
     return Map.of(
         "gcpProfileId", profile.id().toString(),
@@ -165,7 +162,7 @@ public class BPMProviderTest {
   Map<String, Object> azureBillingProfileState() throws InterruptedException {
     var profile = ProviderStateData.azureBillingProfile;
     setUpProfileDaoGets(List.of(profile));
-    when(tpsApiDispatch.getOrCreatePao(any(), any(), any()))
+    when(tpsApiDispatch.getPao(any()))
         .thenReturn(new TpsPaoGetResult().effectiveAttributes(new TpsPolicyInputs()));
     return Map.of(
         "azureProfileId", profile.id().toString(),
@@ -190,7 +187,7 @@ public class BPMProviderTest {
     when(profileDao.listBillingProfiles(anyInt(), anyInt(), eq(profilesIds)))
         .thenReturn(
             List.of(ProviderStateData.azureBillingProfile, ProviderStateData.gcpBillingProfile));
-    when(tpsApiDispatch.getOrCreatePao(any(), any(), any())).thenReturn(new TpsPaoGetResult());
+    when(tpsApiDispatch.getPao(any())).thenReturn(new TpsPaoGetResult());
   }
 
   @State("a managed app exists")
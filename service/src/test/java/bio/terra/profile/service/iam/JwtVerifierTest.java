@@ -0,0 +1,144 @@
+package bio.terra.profile.service.iam;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import bio.terra.common.exception.UnauthorizedException;
+import bio.terra.profile.app.configuration.JwtVerificationConfiguration;
+import bio.terra.profile.common.BaseUnitTest;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.KeySourceException;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class JwtVerifierTest extends BaseUnitTest {
+  private static final String ISSUER = "https://issuer.unit.com";
+  private static final String AUDIENCE = "bpm-client";
+  private static final JwtVerificationConfiguration CONFIGURATION =
+      new JwtVerificationConfiguration(
+          true,
+          ISSUER,
+          Set.of(AUDIENCE),
+          null,
+          Duration.ofMinutes(15),
+          Duration.ofMinutes(10),
+          100);
+
+  private static RSAKey signingKey;
+  private static JwtVerifier verifier;
+
+  @BeforeAll
+  static void setup() throws Exception {
+    signingKey = new RSAKeyGenerator(2048).keyID("unit").generate();
+    verifier =
+        new JwtVerifier(CONFIGURATION, new ImmutableJWKSet<>(new JWKSet(signingKey.toPublicJWK())));
+  }
+
+  @Test
+  void validToken() throws Exception {
+    var claims = verifier.verify(signedToken(signingKey, ISSUER, Instant.now().plusSeconds(600)));
+
+    assertEquals("b2c-subject", claims.orElseThrow().getSubject());
+  }
+
+  @Test
+  void opaqueTokenNotVerified() {
+    assertTrue(verifier.verify("not-a-jwt").isEmpty());
+  }
+
+  @Test
+  void otherIssuerNotVerified() throws Exception {
+    var token =
+        signedToken(signingKey, "https://accounts.google.com", Instant.now().plusSeconds(600));
+
+    assertTrue(verifier.verify(token).isEmpty());
+  }
+
+  @Test
+  void otherAudienceRejected() throws Exception {
+    var token = signedToken(signingKey, ISSUER, "another-client", Instant.now().plusSeconds(600));
+
+    assertThrows(UnauthorizedException.class, () -> verifier.verify(token));
+  }
+
+  @Test
+  void enabledWithoutAudienceFails() {
+    var noAudiences =
+        new JwtVerificationConfiguration(
+            true, ISSUER, Set.of(), null, Duration.ofMinutes(15), Duration.ofMinutes(10), 100);
+    var jwkSource = new ImmutableJWKSet<SecurityContext>(new JWKSet(signingKey.toPublicJWK()));
+
+    assertThrows(IllegalStateException.class, () -> new JwtVerifier(noAudiences, jwkSource));
+  }
+
+  @Test
+  void expiredTokenRejected() throws Exception {
+    var token = signedToken(signingKey, ISSUER, Instant.now().minusSeconds(600));
+
+    assertThrows(UnauthorizedException.class, () -> verifier.verify(token));
+  }
+
+  @Test
+  void wrongSignatureRejected() throws Exception {
+    var otherKey = new RSAKeyGenerator(2048).keyID("unit").generate();
+    var token = signedToken(otherKey, ISSUER, Instant.now().plusSeconds(600));
+
+    assertThrows(UnauthorizedException.class, () -> verifier.verify(token));
+  }
+
+  @Test
+  void unavailableKeysFallBackToSam() throws Exception {
+    var unavailable =
+        new JwtVerifier(
+            CONFIGURATION,
+            (selector, context) -> {
+              throw new KeySourceException("jwks unavailable");
+            });
+    var token = signedToken(signingKey, ISSUER, Instant.now().plusSeconds(600));
+
+    assertTrue(unavailable.verify(token).isEmpty());
+  }
+
+  @Test
+  void disabled() throws Exception {
+    var disabled =
+        new JwtVerifier(new JwtVerificationConfiguration(false, null, null, null, null, null, 0));
+    var token = signedToken(signingKey, ISSUER, Instant.now().plusSeconds(600));
+
+    assertTrue(disabled.verify(token).isEmpty());
+  }
+
+  private static String signedToken(RSAKey key, String issuer, Instant expiration)
+      throws Exception {
+    return signedToken(key, issuer, AUDIENCE, expiration);
+  }
+
+  private static String signedToken(RSAKey key, String issuer, String audience, Instant expiration)
+      throws Exception {
+    var jwt =
+        new SignedJWT(
+            new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(key.getKeyID()).build(),
+            new JWTClaimsSet.Builder()
+                .issuer(issuer)
+                .audience(audience)
+                .subject("b2c-subject")
+                .expirationTime(Date.from(expiration))
+                .build());
+    jwt.sign(new RSASSASigner(key));
+    return jwt.serialize();
+  }
+}
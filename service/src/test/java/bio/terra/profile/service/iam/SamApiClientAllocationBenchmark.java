@@ -0,0 +1,75 @@
+package bio.terra.profile.service.iam;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.sun.management.ThreadMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.function.Supplier;
+import okhttp3.OkHttpClient;
+import org.broadinstitute.dsde.workbench.client.sam.ApiClient;
+import org.broadinstitute.dsde.workbench.client.sam.api.ResourcesApi;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compares the per-call allocation of building a Sam client for each caller's token against binding
+ * the token to a shared client. Run with {@code ./gradlew benchmarkTests}.
+ */
+@Tag("benchmark")
+class SamApiClientAllocationBenchmark {
+  private static final Logger logger =
+      LoggerFactory.getLogger(SamApiClientAllocationBenchmark.class);
+  private static final int WARMUP_ITERATIONS = 1_000;
+  private static final int ITERATIONS = 10_000;
+  private static final String BASE_PATH = "https://sam.example.com";
+  private static final String TOKEN = "token";
+
+  private final OkHttpClient httpClient = new ApiClient().getHttpClient();
+
+  /** Builds a client per call, bound to the caller's token. */
+  private ResourcesApi perCallClient() {
+    ApiClient apiClient = new ApiClient().setHttpClient(httpClient).setBasePath(BASE_PATH);
+    apiClient.setAccessToken(TOKEN);
+    return new ResourcesApi(apiClient);
+  }
+
+  @Test
+  void sharedClientAllocatesLessThanPerCallClient() {
+    var interceptor = new SamBearerTokenInterceptor();
+    var sharedApi = new ResourcesApi(new ApiClient().setHttpClient(httpClient));
+
+    long perCallBytes = bytesPerCall(this::perCallClient);
+    long sharedBytes =
+        bytesPerCall(
+            () -> {
+              try (var ignored = interceptor.withToken(TOKEN)) {
+                return sharedApi;
+              }
+            });
+
+    logger.info(
+        "Sam client setup allocates {} bytes per call with a per-call client, {} bytes per call"
+            + " with a shared client",
+        perCallBytes,
+        sharedBytes);
+    assertTrue(sharedBytes * 10 < perCallBytes);
+  }
+
+  private static long bytesPerCall(Supplier<ResourcesApi> call) {
+    var threadBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long threadId = Thread.currentThread().getId();
+    Object sink = null;
+    for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+      sink = call.get();
+    }
+    long before = threadBean.getThreadAllocatedBytes(threadId);
+    for (int i = 0; i < ITERATIONS; i++) {
+      sink = call.get();
+    }
+    long after = threadBean.getThreadAllocatedBytes(threadId);
+    assertTrue(sink != null);
+    return (after - before) / ITERATIONS;
+  }
+}
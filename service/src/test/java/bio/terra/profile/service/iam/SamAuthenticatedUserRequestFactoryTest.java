@@ -3,11 +3,30 @@ package bio.terra.profile.service.iam;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import bio.terra.common.exception.UnauthorizedException;
 import bio.terra.common.iam.AuthenticatedUserRequest;
+import bio.terra.profile.app.configuration.JwtVerificationConfiguration;
+import bio.terra.profile.app.configuration.SamCacheConfiguration;
 import bio.terra.profile.common.BaseSpringUnitTest;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.MACSigner;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.Set;
+import java.util.UUID;
 import org.broadinstitute.dsde.workbench.client.sam.model.UserStatusInfo;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -18,6 +37,25 @@ class SamAuthenticatedUserRequestFactoryTest extends BaseSpringUnitTest {
   private static final String EMAIL = "billing@unit.com";
   private static final String SUBJECT = "12345";
   private static final String TOKEN = "not-a-real-token";
+  private static final SamCacheConfiguration CACHE_CONFIGURATION =
+      new SamCacheConfiguration(
+          new SamCacheConfiguration.UserStatus(
+              true, 100, Duration.ofMinutes(1), Duration.ofSeconds(5)),
+          null,
+          null);
+  private static final String ISSUER = "https://issuer.unit.com";
+  private static final String AUDIENCE = "bpm-client";
+  private static final JwtVerificationConfiguration JWT_DISABLED =
+      new JwtVerificationConfiguration(false, null, null, null, null, null, 0);
+  private static final JwtVerificationConfiguration JWT_ENABLED =
+      new JwtVerificationConfiguration(
+          true,
+          ISSUER,
+          Set.of(AUDIENCE),
+          null,
+          Duration.ofMinutes(15),
+          Duration.ofMinutes(10),
+          100);
 
   private static final UserStatusInfo SAM_ENABLED_USER =
       new UserStatusInfo().userEmail(EMAIL).userSubjectId(SUBJECT).enabled(true);
@@ -30,7 +68,9 @@ class SamAuthenticatedUserRequestFactoryTest extends BaseSpringUnitTest {
 
   @BeforeEach
   public void before() throws InterruptedException {
-    factory = new SamAuthenticatedUserRequestFactory(samService);
+    factory =
+        new SamAuthenticatedUserRequestFactory(
+            samService, new JwtVerifier(JWT_DISABLED), CACHE_CONFIGURATION, JWT_DISABLED);
     when(samService.getUserStatusInfo(eq(TOKEN))).thenReturn(SAM_ENABLED_USER);
   }
 
@@ -78,4 +118,160 @@ class SamAuthenticatedUserRequestFactoryTest extends BaseSpringUnitTest {
 
     assertThrows(UnauthorizedException.class, () -> factory.from(new MockHttpServletRequest()));
   }
+
+  @Test
+  void userStatusCached() throws InterruptedException {
+    var request = new MockHttpServletRequest();
+    request.addHeader("OAUTH2_CLAIM_access_token", TOKEN);
+
+    factory.from(request);
+    var result = factory.from(request);
+
+    assertEquals(EMAIL, result.getEmail());
+    verify(samService, times(1)).getUserStatusInfo(TOKEN);
+  }
+
+  @Test
+  void userStatusNotCachedWhenDisabled() throws InterruptedException {
+    factory =
+        new SamAuthenticatedUserRequestFactory(
+            samService,
+            new JwtVerifier(JWT_DISABLED),
+            new SamCacheConfiguration(
+                new SamCacheConfiguration.UserStatus(
+                    false, 100, Duration.ofMinutes(1), Duration.ofSeconds(5)),
+                null,
+                null),
+            JWT_DISABLED);
+    var request = new MockHttpServletRequest();
+    request.addHeader("OAUTH2_CLAIM_access_token", TOKEN);
+
+    factory.from(request);
+    factory.from(request);
+
+    verify(samService, times(2)).getUserStatusInfo(TOKEN);
+  }
+
+  @Test
+  void disabledUserCached() throws InterruptedException {
+    when(samService.getUserStatusInfo(eq(TOKEN))).thenReturn(SAM_DISABLED_USER);
+
+    var request = new MockHttpServletRequest();
+    request.addHeader("OAUTH2_CLAIM_access_token", TOKEN);
+
+    assertThrows(UnauthorizedException.class, () -> factory.from(request));
+    assertThrows(UnauthorizedException.class, () -> factory.from(request));
+    verify(samService, times(1)).getUserStatusInfo(TOKEN);
+  }
+
+  @Test
+  void expiredTokenNotCached() throws Exception {
+    var expiredToken = signedToken(Instant.now().minusSeconds(10));
+    when(samService.getUserStatusInfo(eq(expiredToken))).thenReturn(SAM_ENABLED_USER);
+
+    var request = new MockHttpServletRequest();
+    request.addHeader("OAUTH2_CLAIM_access_token", expiredToken);
+
+    factory.from(request);
+    factory.from(request);
+
+    verify(samService, times(2)).getUserStatusInfo(expiredToken);
+  }
+
+  @Test
+  void unexpiredTokenCached() throws Exception {
+    var token = signedToken(Instant.now().plusSeconds(600));
+    when(samService.getUserStatusInfo(eq(token))).thenReturn(SAM_ENABLED_USER);
+
+    var request = new MockHttpServletRequest();
+    request.addHeader("OAUTH2_CLAIM_access_token", token);
+
+    factory.from(request);
+    factory.from(request);
+
+    verify(samService, times(1)).getUserStatusInfo(token);
+  }
+
+  @Test
+  void verifiedTokensShareUserStatusPerSubject() throws Exception {
+    var signingKey = new RSAKeyGenerator(2048).keyID("unit").generate();
+    factory = jwtVerifyingFactory(signingKey);
+    var firstToken = rsaSignedToken(signingKey, "b2c-subject");
+    var refreshedToken = rsaSignedToken(signingKey, "b2c-subject");
+    when(samService.getUserStatusInfo(eq(firstToken))).thenReturn(SAM_ENABLED_USER);
+
+    var first = new MockHttpServletRequest();
+    first.addHeader("Authorization", "Bearer " + firstToken);
+    var refreshed = new MockHttpServletRequest();
+    refreshed.addHeader("Authorization", "Bearer " + refreshedToken);
+
+    factory.from(first);
+    var result = factory.from(refreshed);
+
+    assertEquals(SUBJECT, result.getSubjectId());
+    assertEquals(EMAIL, result.getEmail());
+    assertEquals(refreshedToken, result.getToken());
+    verify(samService, times(1)).getUserStatusInfo(firstToken);
+    verify(samService, times(0)).getUserStatusInfo(refreshedToken);
+  }
+
+  @Test
+  void verifiedTokenForDisabledUser() throws Exception {
+    var signingKey = new RSAKeyGenerator(2048).keyID("unit").generate();
+    factory = jwtVerifyingFactory(signingKey);
+    var token = rsaSignedToken(signingKey, "b2c-subject");
+    when(samService.getUserStatusInfo(eq(token))).thenReturn(SAM_DISABLED_USER);
+
+    var request = new MockHttpServletRequest();
+    request.addHeader("Authorization", "Bearer " + token);
+
+    assertThrows(UnauthorizedException.class, () -> factory.from(request));
+  }
+
+  @Test
+  void unverifiedTokenFallsBackToSam() throws Exception {
+    var signingKey = new RSAKeyGenerator(2048).keyID("unit").generate();
+    factory = jwtVerifyingFactory(signingKey);
+
+    var request = new MockHttpServletRequest();
+    request.addHeader("OAUTH2_CLAIM_access_token", TOKEN);
+
+    assertEquals(SUBJECT, factory.from(request).getSubjectId());
+    verify(samService).getUserStatusInfo(TOKEN);
+  }
+
+  private SamAuthenticatedUserRequestFactory jwtVerifyingFactory(RSAKey signingKey) {
+    return new SamAuthenticatedUserRequestFactory(
+        samService,
+        new JwtVerifier(JWT_ENABLED, new ImmutableJWKSet<>(new JWKSet(signingKey.toPublicJWK()))),
+        CACHE_CONFIGURATION,
+        JWT_ENABLED);
+  }
+
+  private static String rsaSignedToken(RSAKey signingKey, String subject) throws Exception {
+    var jwt =
+        new SignedJWT(
+            new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(signingKey.getKeyID()).build(),
+            new JWTClaimsSet.Builder()
+                .issuer(ISSUER)
+                .audience(AUDIENCE)
+                .subject(subject)
+                .jwtID(UUID.randomUUID().toString())
+                .expirationTime(Date.from(Instant.now().plusSeconds(600)))
+                .build());
+    jwt.sign(new RSASSASigner(signingKey));
+    return jwt.serialize();
+  }
+
+  private static String signedToken(Instant expiration) throws Exception {
+    var jwt =
+        new SignedJWT(
+            new JWSHeader(JWSAlgorithm.HS256),
+            new JWTClaimsSet.Builder()
+                .subject(SUBJECT)
+                .expirationTime(Date.from(expiration))
+                .build());
+    jwt.sign(new MACSigner("an-unsafe-test-secret-at-least-256-bits-long"));
+    return jwt.serialize();
+  }
 }
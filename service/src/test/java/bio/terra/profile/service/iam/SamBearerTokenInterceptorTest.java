@@ -0,0 +1,78 @@
+package bio.terra.profile.service.iam;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import bio.terra.profile.common.BaseUnitTest;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+class SamBearerTokenInterceptorTest extends BaseUnitTest {
+
+  private final SamBearerTokenInterceptor interceptor = new SamBearerTokenInterceptor();
+  private Interceptor.Chain chain;
+
+  @BeforeEach
+  void before() {
+    chain = mock(Interceptor.Chain.class);
+    when(chain.request()).thenReturn(new Request.Builder().url("https://sam.example.com").build());
+  }
+
+  private String sentAuthorization() throws Exception {
+    interceptor.intercept(chain);
+    var captor = ArgumentCaptor.forClass(Request.class);
+    verify(chain).proceed(captor.capture());
+    return captor.getValue().header("Authorization");
+  }
+
+  @Test
+  void addsBoundToken() throws Exception {
+    try (var ignored = interceptor.withToken("token")) {
+      assertEquals("Bearer token", sentAuthorization());
+    }
+  }
+
+  @Test
+  void noTokenBound() throws Exception {
+    assertNull(sentAuthorization());
+  }
+
+  @Test
+  void closingScopeUnbindsToken() throws Exception {
+    interceptor.withToken("token").close();
+    assertNull(sentAuthorization());
+  }
+
+  @Test
+  void closingNestedScopeRestoresOuterToken() throws Exception {
+    try (var ignored = interceptor.withToken("outer")) {
+      interceptor.withToken("inner").close();
+      assertEquals("Bearer outer", sentAuthorization());
+    }
+  }
+
+  @Test
+  void tokenIsBoundPerThread() throws Exception {
+    try (var ignored = interceptor.withToken("token")) {
+      var sent = new String[1];
+      var otherThread =
+          new Thread(
+              () -> {
+                try {
+                  sent[0] = sentAuthorization();
+                } catch (Exception e) {
+                  throw new RuntimeException(e);
+                }
+              });
+      otherThread.start();
+      otherThread.join();
+      assertNull(sent[0]);
+    }
+  }
+}
@@ -0,0 +1,166 @@
+package bio.terra.profile.service.iam;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import bio.terra.profile.app.configuration.SamRetryConfiguration;
+import bio.terra.profile.common.BaseUnitTest;
+import bio.terra.profile.service.iam.exception.SamUnavailableException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.broadinstitute.dsde.workbench.client.sam.ApiException;
+import org.junit.jupiter.api.Test;
+
+class SamCallExecutorTest extends BaseUnitTest {
+
+  private final AtomicInteger calls = new AtomicInteger();
+
+  private static SamCallExecutor executor(
+      int maxAttempts, double budgetTokens, int failureThreshold) {
+    return executor(maxAttempts, budgetTokens, failureThreshold, Duration.ofMinutes(1));
+  }
+
+  private static SamCallExecutor executor(
+      int maxAttempts, double budgetTokens, int failureThreshold, Duration flightCallTimeout) {
+    return new SamCallExecutor(
+        new SamRetryConfiguration(
+            maxAttempts,
+            Duration.ZERO,
+            Duration.ZERO,
+            new SamRetryConfiguration.Budget(0, budgetTokens),
+            new SamRetryConfiguration.CircuitBreaker(failureThreshold, Duration.ofMinutes(1)),
+            flightCallTimeout),
+        Clock.systemUTC());
+  }
+
+  private SamCallExecutor.SamFunction<String> failing(int code) {
+    return () -> {
+      calls.incrementAndGet();
+      throw new ApiException(code, "failed");
+    };
+  }
+
+  @Test
+  void retriesServerErrorsUntilSuccess() throws Exception {
+    var executor = executor(3, 10, 10);
+
+    var result =
+        executor.execute(
+            "operation",
+            () -> {
+              if (calls.incrementAndGet() < 3) {
+                throw new ApiException(503, "unavailable");
+              }
+              return "result";
+            });
+
+    assertEquals("result", result);
+    assertEquals(3, calls.get());
+  }
+
+  @Test
+  void stopsAfterMaxAttempts() {
+    var executor = executor(3, 10, 10);
+
+    var e = assertThrows(ApiException.class, () -> executor.execute("operation", failing(500)));
+
+    assertEquals(500, e.getCode());
+    assertEquals(3, calls.get());
+  }
+
+  @Test
+  void doesNotRetryClientErrors() {
+    var executor = executor(3, 10, 10);
+
+    assertThrows(ApiException.class, () -> executor.execute("operation", failing(404)));
+
+    assertEquals(1, calls.get());
+  }
+
+  @Test
+  void stopsWhenRetryBudgetIsSpent() {
+    var executor = executor(3, 1, 10);
+
+    assertThrows(ApiException.class, () -> executor.execute("operation", failing(502)));
+    assertThrows(ApiException.class, () -> executor.execute("operation", failing(502)));
+
+    // The first call retries once, spending the budget; the second cannot retry.
+    assertEquals(3, calls.get());
+  }
+
+  @Test
+  void failsFastWhenCircuitBreakerIsOpen() {
+    var executor = executor(1, 0, 2);
+    assertThrows(ApiException.class, () -> executor.execute("operation", failing(503)));
+    assertThrows(ApiException.class, () -> executor.execute("operation", failing(503)));
+
+    assertThrows(SamUnavailableException.class, () -> executor.execute("operation", failing(503)));
+    assertEquals(2, calls.get());
+  }
+
+  @Test
+  void circuitBreakersArePerOperation() throws Exception {
+    var executor = executor(1, 0, 1);
+    assertThrows(ApiException.class, () -> executor.execute("operation", failing(503)));
+
+    assertEquals("result", executor.execute("other-operation", () -> "result"));
+  }
+
+  @Test
+  void executePatientlyIgnoresOpenCircuitBreaker() throws Exception {
+    var executor = executor(1, 0, 1);
+    assertThrows(ApiException.class, () -> executor.execute("operation", failing(503)));
+    assertThrows(SamUnavailableException.class, () -> executor.execute("operation", failing(503)));
+
+    assertEquals("result", executor.executePatiently("operation", () -> "result"));
+  }
+
+  @Test
+  void executePatientlyRetriesPastMaxAttemptsAndBudget() throws Exception {
+    var executor = executor(1, 0, 1);
+
+    var result =
+        executor.executePatiently(
+            "operation",
+            () -> {
+              if (calls.incrementAndGet() < 5) {
+                throw new ApiException(503, "unavailable");
+              }
+              return "result";
+            });
+
+    assertEquals("result", result);
+    assertEquals(5, calls.get());
+  }
+
+  @Test
+  void executePatientlyStopsAtTimeout() {
+    var executor = executor(3, 10, 10, Duration.ZERO);
+
+    var e =
+        assertThrows(
+            ApiException.class, () -> executor.executePatiently("operation", failing(500)));
+
+    assertEquals(500, e.getCode());
+    assertEquals(1, calls.get());
+  }
+
+  @Test
+  void executePatientlyDoesNotRetryClientErrors() {
+    var executor = executor(3, 10, 10);
+
+    assertThrows(ApiException.class, () -> executor.executePatiently("operation", failing(409)));
+
+    assertEquals(1, calls.get());
+  }
+
+  @Test
+  void clientErrorsDoNotOpenCircuitBreaker() {
+    var executor = executor(1, 0, 1);
+    assertThrows(ApiException.class, () -> executor.execute("operation", failing(403)));
+
+    assertThrows(ApiException.class, () -> executor.execute("operation", failing(403)));
+    assertEquals(2, calls.get());
+  }
+}
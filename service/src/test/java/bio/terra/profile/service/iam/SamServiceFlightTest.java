@@ -0,0 +1,93 @@
+package bio.terra.profile.service.iam;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import bio.terra.cloudres.google.billing.CloudBillingClientCow;
+import bio.terra.common.iam.AuthenticatedUserRequest;
+import bio.terra.profile.app.configuration.GcpConfiguration;
+import bio.terra.profile.common.BaseSpringUnitTest;
+import bio.terra.profile.common.ProfileFixtures;
+import bio.terra.profile.service.crl.GcpCrlService;
+import bio.terra.profile.service.gcp.GcpService;
+import bio.terra.profile.service.iam.exception.SamUnavailableException;
+import bio.terra.profile.service.policy.TpsApiDispatch;
+import bio.terra.profile.service.profile.ProfileService;
+import com.google.auth.oauth2.GoogleCredentials;
+import com.google.iam.v1.TestIamPermissionsResponse;
+import org.broadinstitute.dsde.workbench.client.sam.ApiException;
+import org.broadinstitute.dsde.workbench.client.sam.api.ResourcesApi;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+/** Sam calls made by flight steps, run through real flights. */
+@TestPropertySource(
+    properties = {"profile.sam.retry.initial-backoff=0ms", "profile.sam.retry.max-backoff=0ms"})
+class SamServiceFlightTest extends BaseSpringUnitTest {
+
+  @Autowired ProfileService profileService;
+  @MockitoSpyBean SamService samService;
+  @MockitoBean GcpCrlService crlService;
+  @MockitoBean GcpConfiguration gcpConfiguration;
+  @MockitoBean TpsApiDispatch tpsApiDispatch;
+
+  AuthenticatedUserRequest userRequest =
+      AuthenticatedUserRequest.builder()
+          .setToken("fake-token")
+          .setSubjectId("fake-sub")
+          .setEmail("example@example.com")
+          .build();
+
+  @Test
+  void createProfileSucceedsWhileCircuitBreakerIsOpen() throws Exception {
+    var resourcesApi = mock(ResourcesApi.class);
+    doReturn(resourcesApi).when(samService).samResourcesApi();
+    var billingCow = mock(CloudBillingClientCow.class);
+    when(crlService.getBillingClientCow((AuthenticatedUserRequest) any())).thenReturn(billingCow);
+    when(crlService.getBillingClientCow((GoogleCredentials) any())).thenReturn(billingCow);
+    when(billingCow.testIamPermissions(any()))
+        .thenReturn(
+            TestIamPermissionsResponse.newBuilder()
+                .addAllPermissions(GcpService.BILLING_ACCOUNT_PERMISSIONS_TO_TEST)
+                .build());
+    openCircuitBreaker("createProfileResource");
+    // Sam is still failing when the flight starts, and recovers after the next call
+    doThrow(new ApiException(503, "unavailable"))
+        .doNothing()
+        .when(resourcesApi)
+        .createResourceV2(any(), any());
+    var profile = ProfileFixtures.createGcpBillingProfileDescription("ABCD1234");
+
+    var createdProfile = profileService.createProfile(profile, userRequest, null).billingProfile();
+
+    assertEquals(profile.billingProfile().id(), createdProfile.id());
+    verify(resourcesApi, times(2)).createResourceV2(any(), any());
+  }
+
+  private void openCircuitBreaker(String operation) {
+    var executor = samService.samCallExecutor();
+    SamCallExecutor.SamFunction<Void> failing =
+        () -> {
+          throw new ApiException(503, "unavailable");
+        };
+    // Each failed attempt counts towards the breaker, so this ends within the failure threshold
+    while (true) {
+      try {
+        executor.execute(operation, failing);
+      } catch (SamUnavailableException e) {
+        return;
+      } catch (ApiException | InterruptedException e) {
+        // Keep failing until the breaker opens
+      }
+    }
+  }
+}
@@ -0,0 +1,459 @@
+package bio.terra.profile.service.iam;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import bio.terra.common.exception.ForbiddenException;
+import bio.terra.common.iam.AuthenticatedUserRequest;
+import bio.terra.profile.app.configuration.SamCacheConfiguration;
+import bio.terra.profile.app.configuration.SamConfiguration;
+import bio.terra.profile.app.configuration.SamRetryConfiguration;
+import bio.terra.profile.common.BaseUnitTest;
+import bio.terra.profile.service.iam.exception.PolicyMembersUpdateException;
+import bio.terra.profile.service.iam.exception.SamUnavailableException;
+import bio.terra.profile.service.iam.model.SamAction;
+import bio.terra.profile.service.iam.model.SamResourceType;
+import io.opentelemetry.api.OpenTelemetry;
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+import org.broadinstitute.dsde.workbench.client.sam.ApiException;
+import org.broadinstitute.dsde.workbench.client.sam.api.ResourcesApi;
+import org.broadinstitute.dsde.workbench.client.sam.model.AccessPolicyMembershipV2;
+import org.broadinstitute.dsde.workbench.client.sam.model.UserResourcesResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+@SpringJUnitConfig
+class SamServiceUnitTest extends BaseUnitTest {
+  private static final String PROFILE = SamResourceType.PROFILE.getSamResourceName();
+  private static final String READ = SamAction.READ_PROFILE.getSamActionName();
+  private static final EnumSet<SamAction> UPDATE_ACTIONS =
+      EnumSet.of(SamAction.UPDATE_METADATA, SamAction.UPDATE_BILLING_ACCOUNT);
+
+  @Mock private ResourcesApi resourcesApi;
+
+  private SamService samService;
+  private UUID profileId;
+
+  private final AuthenticatedUserRequest user =
+      AuthenticatedUserRequest.builder()
+          .setSubjectId("12345")
+          .setEmail("profile@unit.com")
+          .setToken("token")
+          .build();
+
+  private final AuthenticatedUserRequest otherUser =
+      AuthenticatedUserRequest.builder()
+          .setSubjectId("67890")
+          .setEmail("other@unit.com")
+          .setToken("other-token")
+          .build();
+
+  @BeforeEach
+  void before() throws Exception {
+    samService = samService(true);
+    profileId = UUID.randomUUID();
+    when(resourcesApi.resourcePermissionV2(PROFILE, profileId.toString(), READ)).thenReturn(true);
+    when(resourcesApi.listResourcesAndPoliciesV2(PROFILE))
+        .thenReturn(
+            List.of(
+                new UserResourcesResponse().resourceId(profileId.toString()),
+                new UserResourcesResponse().resourceId("not-a-uuid")));
+  }
+
+  private SamService samService(boolean cacheEnabled) {
+    var cacheConfiguration =
+        new SamCacheConfiguration(
+            new SamCacheConfiguration.UserStatus(
+                cacheEnabled, 100, Duration.ofMinutes(1), Duration.ofSeconds(5)),
+            new SamCacheConfiguration.Settings(cacheEnabled, 100, Duration.ofMinutes(1)),
+            new SamCacheConfiguration.Settings(cacheEnabled, 100, Duration.ofMinutes(1)));
+    var service =
+        spy(
+            new SamService(
+                new SamConfiguration("https://sam.example.com", "admins@example.com"),
+                cacheConfiguration,
+                new SamRetryConfiguration(
+                    3,
+                    Duration.ZERO,
+                    Duration.ZERO,
+                    new SamRetryConfiguration.Budget(0.1, 10),
+                    new SamRetryConfiguration.CircuitBreaker(5, Duration.ofMinutes(1)),
+                    Duration.ofMinutes(1)),
+                OpenTelemetry.noop()));
+    doReturn(resourcesApi).when(service).samResourcesApi();
+    return service;
+  }
+
+  private boolean isAuthorized(AuthenticatedUserRequest userRequest) throws Exception {
+    return samService.isAuthorized(
+        userRequest, SamResourceType.PROFILE, profileId, SamAction.READ_PROFILE);
+  }
+
+  @Test
+  void isAuthorizedCached() throws Exception {
+    assertTrue(isAuthorized(user));
+    assertTrue(isAuthorized(user));
+
+    verify(resourcesApi, times(1)).resourcePermissionV2(PROFILE, profileId.toString(), READ);
+  }
+
+  @Test
+  void isAuthorizedCachedPerUser() throws Exception {
+    isAuthorized(user);
+    isAuthorized(otherUser);
+
+    verify(resourcesApi, times(2)).resourcePermissionV2(PROFILE, profileId.toString(), READ);
+  }
+
+  @Test
+  void isAuthorizedCachesDenial() throws Exception {
+    when(resourcesApi.resourcePermissionV2(PROFILE, profileId.toString(), READ)).thenReturn(false);
+
+    assertFalse(isAuthorized(user));
+    assertFalse(isAuthorized(user));
+
+    verify(resourcesApi, times(1)).resourcePermissionV2(PROFILE, profileId.toString(), READ);
+  }
+
+  @Test
+  void isAuthorizedNotCachedWhenDisabled() throws Exception {
+    samService = samService(false);
+
+    isAuthorized(user);
+    isAuthorized(user);
+
+    verify(resourcesApi, times(2)).resourcePermissionV2(PROFILE, profileId.toString(), READ);
+  }
+
+  @Test
+  void addPolicyMemberEvictsAuthorizations() throws Exception {
+    when(resourcesApi.getPolicyV2(PROFILE, profileId.toString(), "user"))
+        .thenReturn(new AccessPolicyMembershipV2().memberEmails(List.of("other@unit.com")));
+
+    isAuthorized(user);
+    isAuthorized(otherUser);
+    samService.addProfilePolicyMember(user, profileId, "user", "other@unit.com");
+    isAuthorized(user);
+    isAuthorized(otherUser);
+
+    verify(resourcesApi, times(4)).resourcePermissionV2(PROFILE, profileId.toString(), READ);
+  }
+
+  @Test
+  void deletePolicyMemberEvictsAuthorizations() throws Exception {
+    when(resourcesApi.getPolicyV2(PROFILE, profileId.toString(), "user"))
+        .thenReturn(new AccessPolicyMembershipV2().memberEmails(List.of()));
+
+    isAuthorized(otherUser);
+    samService.deleteProfilePolicyMember(user, profileId, "user", "other@unit.com");
+    isAuthorized(otherUser);
+
+    verify(resourcesApi, times(2)).resourcePermissionV2(PROFILE, profileId.toString(), READ);
+  }
+
+  @Test
+  void leaveResourceEvictsAuthorizations() throws Exception {
+    isAuthorized(user);
+    samService.leaveResource(user, PROFILE, profileId);
+    isAuthorized(user);
+
+    verify(resourcesApi, times(2)).resourcePermissionV2(PROFILE, profileId.toString(), READ);
+  }
+
+  @Test
+  void deleteProfileResourceEvictsAuthorizations() throws Exception {
+    isAuthorized(user);
+    samService.deleteProfileResource(user, profileId);
+    isAuthorized(user);
+
+    verify(resourcesApi, times(2)).resourcePermissionV2(PROFILE, profileId.toString(), READ);
+  }
+
+  @Test
+  void evictionIsScopedToResource() throws Exception {
+    var otherProfileId = UUID.randomUUID();
+    when(resourcesApi.resourcePermissionV2(PROFILE, otherProfileId.toString(), READ))
+        .thenReturn(true);
+
+    isAuthorized(user);
+    samService.deleteProfileResource(user, otherProfileId);
+    isAuthorized(user);
+
+    verify(resourcesApi, times(1)).resourcePermissionV2(PROFILE, profileId.toString(), READ);
+  }
+
+  @Test
+  void listProfileIdsCached() throws Exception {
+    assertEquals(List.of(profileId), samService.listProfileIds(user));
+    assertEquals(List.of(profileId), samService.listProfileIds(user));
+
+    verify(resourcesApi, times(1)).listResourcesAndPoliciesV2(PROFILE);
+  }
+
+  @Test
+  void listProfileIdsCachedPerUser() throws Exception {
+    samService.listProfileIds(user);
+    samService.listProfileIds(otherUser);
+
+    verify(resourcesApi, times(2)).listResourcesAndPoliciesV2(PROFILE);
+  }
+
+  @Test
+  void listProfileIdsNotCachedWhenDisabled() throws Exception {
+    samService = samService(false);
+
+    samService.listProfileIds(user);
+    samService.listProfileIds(user);
+
+    verify(resourcesApi, times(2)).listResourcesAndPoliciesV2(PROFILE);
+  }
+
+  @Test
+  void createProfileResourceEvictsCreatorProfileIds() throws Exception {
+    samService.listProfileIds(user);
+    samService.listProfileIds(otherUser);
+    samService.createProfileResource(user, UUID.randomUUID());
+    samService.listProfileIds(user);
+    samService.listProfileIds(otherUser);
+
+    verify(resourcesApi, times(3)).listResourcesAndPoliciesV2(PROFILE);
+  }
+
+  @Test
+  void deleteProfileResourceEvictsProfileIdsContainingProfile() throws Exception {
+    samService.listProfileIds(user);
+    samService.deleteProfileResource(user, UUID.randomUUID());
+    samService.listProfileIds(user);
+    samService.deleteProfileResource(user, profileId);
+    samService.listProfileIds(user);
+
+    verify(resourcesApi, times(2)).listResourcesAndPoliciesV2(PROFILE);
+  }
+
+  @Test
+  void policyMemberChangesEvictMemberProfileIds() throws Exception {
+    when(resourcesApi.getPolicyV2(PROFILE, profileId.toString(), "user"))
+        .thenReturn(new AccessPolicyMembershipV2().memberEmails(List.of("other@unit.com")));
+
+    samService.listProfileIds(user);
+    samService.listProfileIds(otherUser);
+    samService.addProfilePolicyMember(user, profileId, "user", "OTHER@unit.com");
+    samService.listProfileIds(user);
+    samService.listProfileIds(otherUser);
+    samService.deleteProfilePolicyMember(user, profileId, "user", "other@unit.com");
+    samService.listProfileIds(otherUser);
+
+    verify(resourcesApi, times(4)).listResourcesAndPoliciesV2(PROFILE);
+  }
+
+  @Test
+  void leaveResourceEvictsProfileIds() throws Exception {
+    samService.listProfileIds(user);
+    samService.leaveResource(user, PROFILE, profileId);
+    samService.listProfileIds(user);
+
+    verify(resourcesApi, times(2)).listResourcesAndPoliciesV2(PROFILE);
+  }
+
+  @Test
+  void listResourceActions() throws Exception {
+    when(resourcesApi.resourceActionsV2(PROFILE, profileId.toString()))
+        .thenReturn(List.of(READ, "update_metadata", "some_action_bpm_does_not_know"));
+
+    assertEquals(
+        EnumSet.of(SamAction.READ_PROFILE, SamAction.UPDATE_METADATA),
+        samService.listResourceActions(user, SamResourceType.PROFILE, profileId));
+  }
+
+  @Test
+  void listResourceActionsPopulatesDecisionCache() throws Exception {
+    when(resourcesApi.resourceActionsV2(PROFILE, profileId.toString())).thenReturn(List.of(READ));
+
+    samService.listResourceActions(user, SamResourceType.PROFILE, profileId);
+
+    assertTrue(isAuthorized(user));
+    assertFalse(
+        samService.isAuthorized(
+            user, SamResourceType.PROFILE, profileId, SamAction.UPDATE_METADATA));
+    verify(resourcesApi, never()).resourcePermissionV2(any(), any(), any());
+  }
+
+  @Test
+  void verifyAuthorizationsUsesSingleSamCall() throws Exception {
+    when(resourcesApi.resourceActionsV2(PROFILE, profileId.toString()))
+        .thenReturn(List.of("update_metadata", "update_billing_account"));
+
+    samService.verifyAuthorizations(user, SamResourceType.PROFILE, profileId, UPDATE_ACTIONS);
+
+    verify(resourcesApi, times(1)).resourceActionsV2(PROFILE, profileId.toString());
+    verify(resourcesApi, never()).resourcePermissionV2(any(), any(), any());
+  }
+
+  @Test
+  void verifyAuthorizationsMissingAction() throws Exception {
+    when(resourcesApi.resourceActionsV2(PROFILE, profileId.toString()))
+        .thenReturn(List.of("update_metadata"));
+
+    assertThrows(
+        ForbiddenException.class,
+        () ->
+            samService.verifyAuthorizations(
+                user, SamResourceType.PROFILE, profileId, UPDATE_ACTIONS));
+  }
+
+  @Test
+  void verifyAuthorizationsSingleActionUsesPermissionCheck() throws Exception {
+    samService.verifyAuthorizations(
+        user, SamResourceType.PROFILE, profileId, EnumSet.of(SamAction.READ_PROFILE));
+
+    verify(resourcesApi, times(1)).resourcePermissionV2(PROFILE, profileId.toString(), READ);
+    verify(resourcesApi, never()).resourceActionsV2(any(), any());
+  }
+
+  @Test
+  void createProfileResourceIgnoresOpenCircuitBreaker() throws Exception {
+    SamCallExecutor.SamFunction<Void> failing =
+        () -> {
+          throw new ApiException(503, "unavailable");
+        };
+    // Two calls of three attempts each reach the failure threshold of five
+    assertThrows(
+        ApiException.class,
+        () -> samService.samCallExecutor().execute("createProfileResource", failing));
+    assertThrows(
+        SamUnavailableException.class,
+        () -> samService.samCallExecutor().execute("createProfileResource", failing));
+    doThrow(new ApiException(503, "unavailable"))
+        .doNothing()
+        .when(resourcesApi)
+        .createResourceV2(any(), any());
+
+    samService.createProfileResource(user, profileId);
+
+    verify(resourcesApi, times(2)).createResourceV2(any(), any());
+  }
+
+  @Test
+  void verifyAuthorizationsNoActions() throws Exception {
+    samService.verifyAuthorizations(user, SamResourceType.PROFILE, profileId, new HashSet<>());
+
+    verify(resourcesApi, never()).resourcePermissionV2(any(), any(), any());
+    verify(resourcesApi, never()).resourceActionsV2(any(), any());
+  }
+
+  @Test
+  void verifyAuthorizationsUsesCachedDecisions() throws Exception {
+    when(resourcesApi.resourceActionsV2(PROFILE, profileId.toString()))
+        .thenReturn(List.of("update_metadata", "update_billing_account"));
+
+    samService.verifyAuthorizations(user, SamResourceType.PROFILE, profileId, UPDATE_ACTIONS);
+    samService.verifyAuthorizations(user, SamResourceType.PROFILE, profileId, UPDATE_ACTIONS);
+
+    verify(resourcesApi, times(1)).resourceActionsV2(PROFILE, profileId.toString());
+  }
+
+  @Test
+  void verifyAuthorizationsWithoutCache() throws Exception {
+    samService = samService(false);
+    when(resourcesApi.resourceActionsV2(PROFILE, profileId.toString()))
+        .thenReturn(List.of("update_metadata", "update_billing_account"));
+
+    samService.verifyAuthorizations(user, SamResourceType.PROFILE, profileId, UPDATE_ACTIONS);
+
+    verify(resourcesApi, times(1)).resourceActionsV2(PROFILE, profileId.toString());
+    verify(resourcesApi, never()).resourcePermissionV2(any(), any(), any());
+  }
+
+  @Test
+  void updateProfilePolicyMembers() throws Exception {
+    when(resourcesApi.getPolicyV2(PROFILE, profileId.toString(), "user"))
+        .thenReturn(
+            new AccessPolicyMembershipV2().memberEmails(List.of("a@unit.com", "b@unit.com")));
+
+    var result =
+        samService.updateProfilePolicyMembers(
+            user, profileId, "user", List.of("a@unit.com", "b@unit.com"), List.of("c@unit.com"));
+
+    assertEquals("user", result.getName());
+    assertEquals(List.of("a@unit.com", "b@unit.com"), result.getMembers());
+    verify(resourcesApi)
+        .addUserToPolicyV2(PROFILE, profileId.toString(), "user", "a@unit.com", null);
+    verify(resourcesApi)
+        .addUserToPolicyV2(PROFILE, profileId.toString(), "user", "b@unit.com", null);
+    verify(resourcesApi)
+        .removeUserFromPolicyV2(PROFILE, profileId.toString(), "user", "c@unit.com");
+    verify(resourcesApi, times(1)).getPolicyV2(PROFILE, profileId.toString(), "user");
+  }
+
+  @Test
+  void updateProfilePolicyMembersInvalidatesAuthorizations() throws Exception {
+    when(resourcesApi.getPolicyV2(PROFILE, profileId.toString(), "user"))
+        .thenReturn(new AccessPolicyMembershipV2().memberEmails(List.of()));
+    isAuthorized(user);
+
+    samService.updateProfilePolicyMembers(
+        user, profileId, "user", List.of(), List.of(otherUser.getEmail()));
+    isAuthorized(user);
+
+    verify(resourcesApi, times(2)).resourcePermissionV2(PROFILE, profileId.toString(), READ);
+  }
+
+  @Test
+  void updateProfilePolicyMembersFailure() throws Exception {
+    doThrow(new ApiException(403, "forbidden"))
+        .when(resourcesApi)
+        .addUserToPolicyV2(PROFILE, profileId.toString(), "user", "a@unit.com", null);
+
+    var exception =
+        assertThrows(
+            PolicyMembersUpdateException.class,
+            () ->
+                samService.updateProfilePolicyMembers(
+                    user, profileId, "user", List.of("a@unit.com"), List.of()));
+    assertEquals(HttpStatus.FORBIDDEN, exception.getStatusCode());
+    assertInstanceOf(ForbiddenException.class, exception.getCause());
+    verify(resourcesApi, never()).getPolicyV2(any(), any(), any());
+  }
+
+  @Test
+  void updateProfilePolicyMembersReportsPartialFailure() throws Exception {
+    doThrow(new ApiException(404, "not found"))
+        .when(resourcesApi)
+        .removeUserFromPolicyV2(PROFILE, profileId.toString(), "user", "c@unit.com");
+
+    var exception =
+        assertThrows(
+            PolicyMembersUpdateException.class,
+            () ->
+                samService.updateProfilePolicyMembers(
+                    user, profileId, "user", List.of("a@unit.com"), List.of("c@unit.com")));
+
+    assertEquals(
+        "Error updating profile policy members in Sam: 1 of 2 changes were applied",
+        exception.getMessage());
+    assertEquals(HttpStatus.NOT_FOUND, exception.getStatusCode());
+    assertEquals(2, exception.getCauses().size());
+    assertEquals("Applied: add a@unit.com", exception.getCauses().get(0));
+    assertTrue(exception.getCauses().get(1).startsWith("Failed: remove c@unit.com: "));
+    verify(resourcesApi)
+        .addUserToPolicyV2(PROFILE, profileId.toString(), "user", "a@unit.com", null);
+  }
+}
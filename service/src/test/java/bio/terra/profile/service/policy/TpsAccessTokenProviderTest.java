@@ -0,0 +1,105 @@
+package bio.terra.profile.service.policy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import bio.terra.profile.app.configuration.PolicyServiceConfiguration;
+import bio.terra.profile.app.configuration.PolicyServiceConfiguration.PolicyServiceAccessToken;
+import bio.terra.profile.common.BaseUnitTest;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+class TpsAccessTokenProviderTest extends BaseUnitTest {
+  private static final Instant NOW = Instant.parse("2024-01-01T00:00:00Z");
+
+  private PolicyServiceConfiguration configuration;
+  private Clock clock;
+  private ScheduledExecutorService executor;
+  private TpsAccessTokenProvider provider;
+
+  @BeforeEach
+  void before() {
+    configuration = mock(PolicyServiceConfiguration.class);
+    clock = mock(Clock.class);
+    executor = mock(ScheduledExecutorService.class);
+    when(clock.instant()).thenReturn(NOW);
+    provider = new TpsAccessTokenProvider(configuration, clock, executor);
+  }
+
+  @Test
+  void tokenCached() throws IOException {
+    when(configuration.fetchAccessToken())
+        .thenReturn(new PolicyServiceAccessToken("first", NOW.plus(Duration.ofHours(1))));
+
+    assertEquals("first", provider.getAccessToken());
+    assertEquals("first", provider.getAccessToken());
+
+    verify(configuration, times(1)).fetchAccessToken();
+  }
+
+  @Test
+  void refreshScheduledBeforeExpiry() throws IOException {
+    when(configuration.fetchAccessToken())
+        .thenReturn(new PolicyServiceAccessToken("first", NOW.plus(Duration.ofHours(1))))
+        .thenReturn(new PolicyServiceAccessToken("second", NOW.plus(Duration.ofHours(2))));
+    provider.getAccessToken();
+
+    var refresh = ArgumentCaptor.forClass(Runnable.class);
+    verify(executor)
+        .schedule(
+            refresh.capture(), eq(Duration.ofMinutes(55).toMillis()), eq(TimeUnit.MILLISECONDS));
+    refresh.getValue().run();
+
+    assertEquals("second", provider.getAccessToken());
+    verify(configuration, times(2)).fetchAccessToken();
+  }
+
+  @Test
+  void failedBackgroundRefreshKeepsCurrentToken() throws IOException {
+    when(configuration.fetchAccessToken())
+        .thenReturn(new PolicyServiceAccessToken("first", NOW.plus(Duration.ofHours(1))))
+        .thenThrow(new IOException("unavailable"));
+    provider.getAccessToken();
+
+    var refresh = ArgumentCaptor.forClass(Runnable.class);
+    verify(executor).schedule(refresh.capture(), anyLong(), any());
+    refresh.getValue().run();
+
+    assertEquals("first", provider.getAccessToken());
+    // The failed refresh is retried while the current token is still usable
+    verify(executor).schedule(any(Runnable.class), eq(30_000L), eq(TimeUnit.MILLISECONDS));
+  }
+
+  @Test
+  void expiringTokenRefetched() throws IOException {
+    when(configuration.fetchAccessToken())
+        .thenReturn(new PolicyServiceAccessToken("first", NOW.plus(Duration.ofSeconds(30))))
+        .thenReturn(new PolicyServiceAccessToken("second", NOW.plus(Duration.ofHours(1))));
+
+    assertEquals("first", provider.getAccessToken());
+    assertEquals("second", provider.getAccessToken());
+  }
+
+  @Test
+  void fetchFailurePropagated() throws IOException {
+    when(configuration.fetchAccessToken()).thenThrow(new IOException("unavailable"));
+
+    assertThrows(IOException.class, () -> provider.getAccessToken());
+    verify(executor, never()).schedule(any(Runnable.class), anyLong(), any());
+  }
+}
@@ -0,0 +1,280 @@
+package bio.terra.profile.service.policy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import bio.terra.policy.api.TpsApi;
+import bio.terra.policy.client.ApiException;
+import bio.terra.policy.model.TpsComponent;
+import bio.terra.policy.model.TpsObjectType;
+import bio.terra.policy.model.TpsPaoGetResult;
+import bio.terra.profile.app.common.RequestDeadline;
+import bio.terra.profile.app.configuration.PolicyCacheConfiguration;
+import bio.terra.profile.app.configuration.PolicyListConfiguration;
+import bio.terra.profile.app.configuration.PolicyServiceConfiguration;
+import bio.terra.profile.app.configuration.TpsRetryConfiguration;
+import bio.terra.profile.common.BaseUnitTest;
+import bio.terra.profile.service.policy.exception.PolicyServiceAPIException;
+import bio.terra.profile.service.policy.exception.PolicyServiceNotFoundException;
+import io.opentelemetry.api.OpenTelemetry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import org.apache.http.HttpStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class TpsApiDispatchTest extends BaseUnitTest {
+  private TpsApi tpsApi;
+  private TpsApiDispatch tpsApiDispatch;
+  private UUID objectId;
+  private TpsPaoGetResult pao;
+
+  @BeforeEach
+  void before() throws Exception {
+    tpsApi = mock(TpsApi.class);
+    tpsApiDispatch = tpsApiDispatch(true);
+    objectId = UUID.randomUUID();
+    pao = new TpsPaoGetResult().objectId(objectId);
+    when(tpsApi.getPao(objectId)).thenReturn(pao);
+  }
+
+  private TpsApiDispatch tpsApiDispatch(boolean cacheEnabled) {
+    return tpsApiDispatch(cacheEnabled, 2);
+  }
+
+  private TpsApiDispatch tpsApiDispatch(boolean cacheEnabled, int maxConcurrentChunks) {
+    var dispatch =
+        spy(
+            new TpsApiDispatch(
+                mock(PolicyServiceConfiguration.class),
+                new PolicyCacheConfiguration(
+                    cacheEnabled, 100, Duration.ofMinutes(5), Duration.ofMinutes(1)),
+                new PolicyListConfiguration(2, maxConcurrentChunks, Duration.ofSeconds(3)),
+                new TpsRetryConfiguration(Duration.ZERO, Duration.ZERO, Duration.ofSeconds(1)),
+                mock(TpsAccessTokenProvider.class),
+                OpenTelemetry.noop()));
+    doReturn(tpsApi).when(dispatch).policyApi();
+    return dispatch;
+  }
+
+  @Test
+  void getPaoCached() throws Exception {
+    assertSame(pao, tpsApiDispatch.getPao(objectId));
+    assertSame(pao, tpsApiDispatch.getPao(objectId));
+
+    verify(tpsApi, times(1)).getPao(objectId);
+  }
+
+  @Test
+  void getPaoNotCachedWhenDisabled() throws Exception {
+    tpsApiDispatch = tpsApiDispatch(false);
+
+    tpsApiDispatch.getPao(objectId);
+    tpsApiDispatch.getPao(objectId);
+
+    verify(tpsApi, times(2)).getPao(objectId);
+  }
+
+  @Test
+  void createPaoInvalidatesCache() throws Exception {
+    tpsApiDispatch.getPao(objectId);
+    tpsApiDispatch.createPao(objectId, null, TpsComponent.BPM, TpsObjectType.BILLING_PROFILE);
+    tpsApiDispatch.getPao(objectId);
+
+    verify(tpsApi, times(2)).getPao(objectId);
+  }
+
+  @Test
+  void deletePaoInvalidatesCache() throws Exception {
+    tpsApiDispatch.getPao(objectId);
+    tpsApiDispatch.deletePao(objectId);
+    tpsApiDispatch.getPao(objectId);
+
+    verify(tpsApi, times(2)).getPao(objectId);
+  }
+
+  @Test
+  void getPaoCachesNotFound() throws Exception {
+    var missingId = UUID.randomUUID();
+    when(tpsApi.getPao(missingId))
+        .thenThrow(new ApiException(HttpStatus.SC_NOT_FOUND, "not found"));
+
+    assertThrows(PolicyServiceNotFoundException.class, () -> tpsApiDispatch.getPao(missingId));
+    assertThrows(PolicyServiceNotFoundException.class, () -> tpsApiDispatch.getPao(missingId));
+
+    verify(tpsApi, times(1)).getPao(missingId);
+  }
+
+  @Test
+  void createPaoInvalidatesNotFound() throws Exception {
+    when(tpsApi.getPao(objectId))
+        .thenThrow(new ApiException(HttpStatus.SC_NOT_FOUND, "not found"))
+        .thenReturn(pao);
+
+    assertThrows(PolicyServiceNotFoundException.class, () -> tpsApiDispatch.getPao(objectId));
+    tpsApiDispatch.createPao(objectId, null, TpsComponent.BPM, TpsObjectType.BILLING_PROFILE);
+
+    assertSame(pao, tpsApiDispatch.getPao(objectId));
+  }
+
+  @Test
+  void listPaosCachesMissing() throws Exception {
+    var missingId = UUID.randomUUID();
+    when(tpsApi.listPaos(List.of(objectId, missingId))).thenReturn(List.of(pao));
+
+    assertEquals(List.of(pao), tpsApiDispatch.listPaos(List.of(objectId, missingId)));
+    assertEquals(List.of(pao), tpsApiDispatch.listPaos(List.of(objectId, missingId)));
+    assertThrows(PolicyServiceNotFoundException.class, () -> tpsApiDispatch.getPao(missingId));
+
+    verify(tpsApi, times(1)).listPaos(any());
+    verify(tpsApi, never()).getPao(any());
+  }
+
+  @Test
+  void listPaosFillsCache() throws Exception {
+    when(tpsApi.listPaos(List.of(objectId))).thenReturn(List.of(pao));
+
+    assertEquals(List.of(pao), tpsApiDispatch.listPaos(List.of(objectId)));
+    assertSame(pao, tpsApiDispatch.getPao(objectId));
+
+    verify(tpsApi, never()).getPao(any());
+  }
+
+  @Test
+  void listPaosFetchesOnlyUncached() throws Exception {
+    var otherId = UUID.randomUUID();
+    var otherPao = new TpsPaoGetResult().objectId(otherId);
+    when(tpsApi.listPaos(List.of(otherId))).thenReturn(List.of(otherPao));
+    tpsApiDispatch.getPao(objectId);
+
+    var result = tpsApiDispatch.listPaos(List.of(objectId, otherId));
+
+    assertEquals(2, result.size());
+    verify(tpsApi).listPaos(List.of(otherId));
+    tpsApiDispatch.listPaos(List.of(objectId, otherId));
+    verify(tpsApi, times(1)).listPaos(any());
+  }
+
+  @Test
+  void listPaosInChunks() throws Exception {
+    var objectIds = Stream.generate(UUID::randomUUID).limit(5).toList();
+    when(tpsApi.listPaos(any()))
+        .thenAnswer(
+            invocation ->
+                invocation.<List<UUID>>getArgument(0).stream()
+                    .map(id -> new TpsPaoGetResult().objectId(id))
+                    .toList());
+
+    var result = tpsApiDispatch.listPaos(objectIds);
+
+    assertEquals(objectIds, result.stream().map(TpsPaoGetResult::getObjectId).toList());
+    verify(tpsApi).listPaos(objectIds.subList(0, 2));
+    verify(tpsApi).listPaos(objectIds.subList(2, 4));
+    verify(tpsApi).listPaos(objectIds.subList(4, 5));
+  }
+
+  @Test
+  void listPaosStopsWaitingAtDeadline() throws Exception {
+    var objectIds = Stream.generate(UUID::randomUUID).limit(3).toList();
+    when(tpsApi.listPaos(any()))
+        .thenAnswer(
+            invocation -> {
+              Thread.sleep(5000);
+              return List.of();
+            });
+
+    try (var ignored = RequestDeadline.set(Instant.now().plusMillis(100))) {
+      assertThrows(PolicyServiceAPIException.class, () -> tpsApiDispatch.listPaos(objectIds));
+    }
+  }
+
+  @Test
+  void listPaosFetchesSingleChunkOnCallerThread() throws Exception {
+    // A single pool thread would make the second read wait for the first, which waits for the
+    // second
+    tpsApiDispatch = tpsApiDispatch(true, 1);
+    var bothFetching = new CountDownLatch(2);
+    when(tpsApi.listPaos(any()))
+        .thenAnswer(
+            invocation -> {
+              bothFetching.countDown();
+              assertTrue(bothFetching.await(5, TimeUnit.SECONDS));
+              return List.of();
+            });
+    var executor = Executors.newFixedThreadPool(2);
+    try {
+      var reads =
+          Stream.generate(
+                  () ->
+                      executor.submit(
+                          () -> {
+                            try (var ignored = RequestDeadline.set(Instant.now().plusSeconds(10))) {
+                              return tpsApiDispatch.listPaos(List.of(UUID.randomUUID()));
+                            }
+                          }))
+              .limit(2)
+              .toList();
+
+      for (var read : reads) {
+        assertEquals(List.of(), read.get(10, TimeUnit.SECONDS));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void listPaosBoundsChunksInFlightPerRead() throws Exception {
+    var objectIds = Stream.generate(UUID::randomUUID).limit(10).toList();
+    var inFlight = new AtomicInteger();
+    var maxInFlight = new AtomicInteger();
+    when(tpsApi.listPaos(any()))
+        .thenAnswer(
+            invocation -> {
+              maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+              Thread.sleep(20);
+              inFlight.decrementAndGet();
+              return List.of();
+            });
+
+    tpsApiDispatch.listPaos(objectIds);
+
+    verify(tpsApi, times(5)).listPaos(any());
+    assertTrue(maxInFlight.get() <= 2);
+  }
+
+  @Test
+  void listCachedPaos() throws Exception {
+    tpsApiDispatch.getPao(objectId);
+
+    assertEquals(List.of(pao), tpsApiDispatch.listCachedPaos(List.of(objectId, UUID.randomUUID())));
+    assertEquals(List.of(), tpsApiDispatch(false).listCachedPaos(List.of(objectId)));
+  }
+
+  @Test
+  void listPaosChunkFailureFailsList() throws Exception {
+    var objectIds = Stream.generate(UUID::randomUUID).limit(3).toList();
+    when(tpsApi.listPaos(objectIds.subList(0, 2))).thenReturn(List.of());
+    when(tpsApi.listPaos(objectIds.subList(2, 3)))
+        .thenThrow(new ApiException(HttpStatus.SC_BAD_REQUEST, "bad request"));
+
+    assertThrows(PolicyServiceAPIException.class, () -> tpsApiDispatch.listPaos(objectIds));
+  }
+}
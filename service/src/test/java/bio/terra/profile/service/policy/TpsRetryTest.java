@@ -0,0 +1,95 @@
+package bio.terra.profile.service.policy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import bio.terra.policy.client.ApiException;
+import bio.terra.profile.app.common.RequestDeadline;
+import bio.terra.profile.app.configuration.TpsRetryConfiguration;
+import bio.terra.profile.common.BaseUnitTest;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.http.HttpStatus;
+import org.junit.jupiter.api.Test;
+
+class TpsRetryTest extends BaseUnitTest {
+  private final AtomicInteger attempts = new AtomicInteger();
+
+  private TpsRetry tpsRetry(Duration backoff, Duration operationTimeout) {
+    return new TpsRetry(new TpsRetryConfiguration(backoff, backoff, operationTimeout));
+  }
+
+  @Test
+  void retriesTransientFailures() throws Exception {
+    var result =
+        tpsRetry(Duration.ofMillis(1), Duration.ofSeconds(10))
+            .retry(
+                () -> {
+                  if (attempts.incrementAndGet() < 3) {
+                    throw new ApiException(HttpStatus.SC_BAD_GATEWAY, "bad gateway");
+                  }
+                  return "pao";
+                });
+
+    assertEquals("pao", result);
+    assertEquals(3, attempts.get());
+  }
+
+  @Test
+  void doesNotRetryClientErrors() {
+    var exception = new ApiException(HttpStatus.SC_BAD_REQUEST, "bad request");
+
+    var thrown =
+        assertThrows(
+            ApiException.class,
+            () ->
+                tpsRetry(Duration.ofMillis(1), Duration.ofSeconds(10))
+                    .retry(
+                        () -> {
+                          attempts.incrementAndGet();
+                          throw exception;
+                        }));
+
+    assertSame(exception, thrown);
+    assertEquals(1, attempts.get());
+  }
+
+  @Test
+  void stopsAtOperationTimeout() {
+    assertThrows(
+        ApiException.class,
+        () ->
+            tpsRetry(Duration.ofMillis(10), Duration.ofMillis(100))
+                .retry(
+                    () -> {
+                      attempts.incrementAndGet();
+                      throw new ApiException(HttpStatus.SC_SERVICE_UNAVAILABLE, "unavailable");
+                    }));
+  }
+
+  @Test
+  void stopsAtRequestDeadline() {
+    var now = Instant.now();
+    var tpsRetry =
+        new TpsRetry(
+            new TpsRetryConfiguration(Duration.ZERO, Duration.ZERO, Duration.ofMinutes(5)),
+            Clock.fixed(now, ZoneOffset.UTC));
+
+    try (var ignored = RequestDeadline.set(now.minusMillis(1))) {
+      assertThrows(
+          ApiException.class,
+          () ->
+              tpsRetry.retry(
+                  () -> {
+                    attempts.incrementAndGet();
+                    throw new ApiException(HttpStatus.SC_BAD_GATEWAY, "bad gateway");
+                  }));
+    }
+
+    assertEquals(1, attempts.get());
+  }
+}
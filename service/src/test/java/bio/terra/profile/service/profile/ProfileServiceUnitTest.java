@@ -7,11 +7,12 @@ import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
-import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
@@ -20,19 +21,24 @@ import bio.terra.cloudres.google.billing.CloudBillingClientCow;
 import bio.terra.common.exception.BadRequestException;
 import bio.terra.common.exception.ForbiddenException;
 import bio.terra.common.exception.NotFoundException;
+import bio.terra.common.exception.ServiceUnavailableException;
 import bio.terra.common.iam.AuthenticatedUserRequest;
 import bio.terra.common.stairway.StairwayComponent;
-import bio.terra.policy.model.TpsComponent;
-import bio.terra.policy.model.TpsObjectType;
 import bio.terra.policy.model.TpsPaoGetResult;
 import bio.terra.policy.model.TpsPolicyInput;
 import bio.terra.policy.model.TpsPolicyInputs;
+import bio.terra.profile.app.common.RequestDeadline;
 import bio.terra.profile.app.configuration.EnterpriseConfiguration;
 import bio.terra.profile.app.configuration.LimitsConfiguration;
+import bio.terra.profile.app.configuration.PolicyBackfillConfiguration;
+import bio.terra.profile.app.configuration.PolicyListConfiguration;
+import bio.terra.profile.app.configuration.ProfileExportConfiguration;
+import bio.terra.profile.app.configuration.ProfileReadConfiguration;
 import bio.terra.profile.common.BaseUnitTest;
 import bio.terra.profile.common.ProfileFixtures;
 import bio.terra.profile.db.ProfileChangeLogDao;
 import bio.terra.profile.db.ProfileDao;
+import bio.terra.profile.model.ChangeType;
 import bio.terra.profile.model.CloudPlatform;
 import bio.terra.profile.model.Organization;
 import bio.terra.profile.model.SamPolicyModel;
@@ -46,16 +52,33 @@ import bio.terra.profile.service.job.JobBuilder;
 import bio.terra.profile.service.job.JobMapKeys;
 import bio.terra.profile.service.job.JobService;
 import bio.terra.profile.service.policy.TpsApiDispatch;
+import bio.terra.profile.service.policy.exception.PolicyServiceAPIException;
+import bio.terra.profile.service.policy.exception.PolicyServiceNotFoundException;
+import bio.terra.profile.service.profile.exception.InvalidFieldException;
 import bio.terra.profile.service.profile.exception.ProfileNotFoundException;
 import bio.terra.profile.service.profile.flight.ProfileMapKeys;
 import bio.terra.profile.service.profile.flight.create.CreateProfileFlight;
 import bio.terra.profile.service.profile.flight.delete.DeleteProfileFlight;
 import bio.terra.profile.service.profile.model.BillingProfile;
+import bio.terra.profile.service.profile.model.ChangeLogCursor;
+import bio.terra.profile.service.profile.model.ChangeLogEntry;
+import bio.terra.profile.service.profile.model.ChangeLogFilter;
+import bio.terra.profile.service.profile.model.ProfileBatchGetResult;
+import bio.terra.profile.service.profile.model.ProfileCursor;
 import bio.terra.profile.service.profile.model.ProfileDescription;
+import bio.terra.profile.service.profile.model.ProfileEnrichment;
+import bio.terra.profile.service.profile.model.ProfileSearchFilter;
 import com.google.iam.v1.TestIamPermissionsResponse;
 import io.opentelemetry.api.OpenTelemetry;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -91,16 +114,7 @@ class ProfileServiceUnitTest extends BaseUnitTest {
 
   @BeforeEach
   void before() {
-    profileService =
-        new ProfileService(
-            profileDao,
-            changeLogDao,
-            samService,
-            jobService,
-            tpsApiDispatch,
-            gcpService,
-            enterpriseConfiguration,
-            limitsConfiguration);
+    profileService = profileService(new ProfileReadConfiguration(4, 16));
     user =
         AuthenticatedUserRequest.builder()
             .setSubjectId("12345")
@@ -226,10 +240,26 @@ class ProfileServiceUnitTest extends BaseUnitTest {
         () -> profileService.deleteProfile(UUID.randomUUID(), user, null));
   }
 
+  private ProfileService profileService(ProfileReadConfiguration profileReadConfiguration) {
+    return new ProfileService(
+        profileDao,
+        changeLogDao,
+        samService,
+        jobService,
+        tpsApiDispatch,
+        gcpService,
+        enterpriseConfiguration,
+        limitsConfiguration,
+        new PolicyBackfillConfiguration(false, "backfill", 100),
+        new PolicyListConfiguration(50, 4, Duration.ofSeconds(3)),
+        new ProfileExportConfiguration(100, 2),
+        profileReadConfiguration);
+  }
+
   @Test
   void getProfile() throws InterruptedException {
     when(profileDao.getBillingProfileById(profile.id())).thenReturn(profile);
-    when(tpsApiDispatch.getOrCreatePao(any(), any(), any())).thenReturn(new TpsPaoGetResult());
+    when(tpsApiDispatch.getPao(any())).thenReturn(new TpsPaoGetResult());
     var result = profileService.getProfile(profile.id(), user);
     assertEquals(profileDescription, result);
     verify(samService)
@@ -242,6 +272,114 @@ class ProfileServiceUnitTest extends BaseUnitTest {
         .when(samService)
         .verifyAuthorization(user, SamResourceType.PROFILE, profile.id(), SamAction.READ_PROFILE);
     assertThrows(ForbiddenException.class, () -> profileService.getProfile(profile.id(), user));
+    verifyNoInteractions(tpsApiDispatch);
+  }
+
+  @Test
+  void getProfileNoAccessHidesMissingProfile() throws InterruptedException {
+    when(profileDao.getBillingProfileById(profile.id()))
+        .thenThrow(new ProfileNotFoundException("not found"));
+    doThrow(new ForbiddenException("forbidden"))
+        .when(samService)
+        .verifyAuthorization(user, SamResourceType.PROFILE, profile.id(), SamAction.READ_PROFILE);
+    assertThrows(ForbiddenException.class, () -> profileService.getProfile(profile.id(), user));
+  }
+
+  @Test
+  void getProfileReadsWhileCheckingAccess() throws InterruptedException {
+    // Sam only answers once the read has started, so this would time out if it waited on Sam
+    var readStarted = new CountDownLatch(1);
+    when(profileDao.getBillingProfileById(profile.id()))
+        .thenAnswer(
+            invocation -> {
+              readStarted.countDown();
+              return profile;
+            });
+    when(tpsApiDispatch.getPao(profile.id()))
+        .thenThrow(new PolicyServiceNotFoundException("not found"));
+    doAnswer(
+            invocation -> {
+              assertTrue(readStarted.await(10, TimeUnit.SECONDS));
+              verifyNoInteractions(tpsApiDispatch);
+              return null;
+            })
+        .when(samService)
+        .verifyAuthorization(user, SamResourceType.PROFILE, profile.id(), SamAction.READ_PROFILE);
+    var result = profileService.getProfile(profile.id(), user);
+    assertEquals(
+        new ProfileDescription(
+            profile,
+            Optional.empty(),
+            Optional.of(new Organization().enterprise(false).limits(Map.of()))),
+        result);
+  }
+
+  @Test
+  void getProfileReadsInlineWhenPoolIsFull() throws Exception {
+    profileService = profileService(new ProfileReadConfiguration(1, 1));
+    var blockedId = UUID.randomUUID();
+    var release = new CountDownLatch(1);
+    var blockedReadStarted = new CountDownLatch(1);
+    var queuedReadSubmitted = new CountDownLatch(1);
+    when(profileDao.getBillingProfileById(blockedId))
+        .thenAnswer(
+            invocation -> {
+              blockedReadStarted.countDown();
+              release.await();
+              return profile;
+            });
+    // Each call checks Sam after submitting its read, so by the second check the queue is full
+    var samChecks = new AtomicInteger();
+    doAnswer(
+            invocation -> {
+              if (samChecks.incrementAndGet() == 2) {
+                queuedReadSubmitted.countDown();
+              }
+              return null;
+            })
+        .when(samService)
+        .verifyAuthorization(user, SamResourceType.PROFILE, blockedId, SamAction.READ_PROFILE);
+    when(profileDao.getBillingProfileById(profile.id())).thenReturn(profile);
+    when(tpsApiDispatch.getPao(any())).thenReturn(new TpsPaoGetResult());
+    var background = Executors.newFixedThreadPool(2);
+    try {
+      background.submit(() -> profileService.getProfile(blockedId, user));
+      assertTrue(blockedReadStarted.await(10, TimeUnit.SECONDS));
+      background.submit(() -> profileService.getProfile(blockedId, user));
+      assertTrue(queuedReadSubmitted.await(10, TimeUnit.SECONDS));
+
+      assertEquals(profileDescription, profileService.getProfile(profile.id(), user));
+    } finally {
+      release.countDown();
+      background.shutdown();
+    }
+  }
+
+  @Test
+  void getProfileStopsWaitingAtDeadline() throws InterruptedException {
+    var release = new CountDownLatch(1);
+    when(profileDao.getBillingProfileById(profile.id()))
+        .thenAnswer(
+            invocation -> {
+              release.await();
+              return profile;
+            });
+    try (var ignored = RequestDeadline.set(Instant.now().plusMillis(100))) {
+      assertThrows(
+          ServiceUnavailableException.class, () -> profileService.getProfile(profile.id(), user));
+    } finally {
+      release.countDown();
+    }
+    verifyNoInteractions(tpsApiDispatch);
+  }
+
+  @Test
+  void getProfilePolicyServiceError() throws InterruptedException {
+    when(profileDao.getBillingProfileById(profile.id())).thenReturn(profile);
+    when(tpsApiDispatch.getPao(profile.id()))
+        .thenThrow(new PolicyServiceAPIException("unavailable"));
+    assertThrows(
+        PolicyServiceAPIException.class, () -> profileService.getProfile(profile.id(), user));
   }
 
   @Test
@@ -250,8 +388,7 @@ class ProfileServiceUnitTest extends BaseUnitTest {
         new TpsPolicyInputs()
             .addInputsItem(new TpsPolicyInput().namespace("terra").name("protected-data"));
     when(profileDao.getBillingProfileById(profile.id())).thenReturn(profile);
-    when(tpsApiDispatch.getOrCreatePao(
-            profile.id(), TpsComponent.BPM, TpsObjectType.BILLING_PROFILE))
+    when(tpsApiDispatch.getPao(profile.id()))
         .thenReturn(new TpsPaoGetResult().effectiveAttributes(policies));
     var result = profileService.getProfile(profile.id(), user);
     assertEquals(
@@ -264,6 +401,16 @@ class ProfileServiceUnitTest extends BaseUnitTest {
         .verifyAuthorization(user, SamResourceType.PROFILE, profile.id(), SamAction.READ_PROFILE);
   }
 
+  @Test
+  void getProfileWithoutPao() throws InterruptedException {
+    when(profileDao.getBillingProfileById(profile.id())).thenReturn(profile);
+    when(tpsApiDispatch.getPao(profile.id()))
+        .thenThrow(new PolicyServiceNotFoundException("not found", new RuntimeException()));
+    var result = profileService.getProfile(profile.id(), user);
+    assertEquals(Optional.empty(), result.policies());
+    verify(tpsApiDispatch, never()).createPao(any(), any(), any(), any());
+  }
+
   @Test
   void getProfileWithEnterpriseOrganization() throws InterruptedException {
     var enterpriseSubscription = UUID.randomUUID();
@@ -278,7 +425,7 @@ class ProfileServiceUnitTest extends BaseUnitTest {
     when(profileDao.getBillingProfileById(enterpriseProfile.id())).thenReturn(enterpriseProfile);
     when(profileDao.getBillingProfileById(nonEnterpriseProfile.id()))
         .thenReturn(nonEnterpriseProfile);
-    when(tpsApiDispatch.getOrCreatePao(any(), any(), any())).thenReturn(new TpsPaoGetResult());
+    when(tpsApiDispatch.getPao(any())).thenReturn(new TpsPaoGetResult());
 
     var enterpriseResult = profileService.getProfile(enterpriseProfile.id(), user);
     var nonEnterpriseResult = profileService.getProfile(nonEnterpriseProfile.id(), user);
@@ -303,7 +450,7 @@ class ProfileServiceUnitTest extends BaseUnitTest {
 
     when(profileDao.getBillingProfileById(limitedProfile.id())).thenReturn(limitedProfile);
     when(profileDao.getBillingProfileById(nonLimitedProfile.id())).thenReturn(nonLimitedProfile);
-    when(tpsApiDispatch.getOrCreatePao(any(), any(), any())).thenReturn(new TpsPaoGetResult());
+    when(tpsApiDispatch.getPao(any())).thenReturn(new TpsPaoGetResult());
 
     var limitedResult = profileService.getProfile(limitedProfile.id(), user);
     var nonLimitedResult = profileService.getProfile(nonLimitedProfile.id(), user);
@@ -319,9 +466,9 @@ class ProfileServiceUnitTest extends BaseUnitTest {
     when(samService.listProfileIds(user)).thenReturn(List.of(profile.id()));
     when(profileDao.listBillingProfiles(anyInt(), anyInt(), eq(List.of(profile.id()))))
         .thenReturn(List.of(profile));
-    when(tpsApiDispatch.getOrCreatePao(any(), any(), any())).thenReturn(new TpsPaoGetResult());
+    when(tpsApiDispatch.getPao(any())).thenReturn(new TpsPaoGetResult());
 
-    var result = profileService.listProfiles(user, 0, 0);
+    var result = profileService.listProfiles(user, 0, 0, null, ProfileEnrichment.ALL);
 
     assertEquals(List.of(profileDescription), result);
   }
@@ -364,7 +511,7 @@ class ProfileServiceUnitTest extends BaseUnitTest {
                     .effectiveAttributes(policies)
                     .objectId(protectedProfile.id())));
 
-    var result = profileService.listProfiles(user, 0, 0);
+    var result = profileService.listProfiles(user, 0, 0, null, ProfileEnrichment.ALL);
 
     assertThat(
         result,
@@ -380,6 +527,151 @@ class ProfileServiceUnitTest extends BaseUnitTest {
                 Optional.of(new Organization().enterprise(true).limits(Map.of())))));
   }
 
+  @Test
+  void listProfilesAfterCursor() throws InterruptedException {
+    var cursor = new ProfileCursor(Instant.now(), UUID.randomUUID());
+    when(samService.listProfileIds(user)).thenReturn(List.of(profile.id()));
+    when(profileDao.listBillingProfilesAfter(cursor, 10, List.of(profile.id())))
+        .thenReturn(List.of(profile));
+
+    var result = profileService.listProfiles(user, 0, 10, cursor, ProfileEnrichment.ALL);
+
+    assertEquals(List.of(profileDescription), result);
+    verify(profileDao, never()).listBillingProfiles(anyInt(), anyInt(), any());
+  }
+
+  @Test
+  void searchProfiles() throws InterruptedException {
+    var filter =
+        new ProfileSearchFilter(
+            Optional.of("billingAccount"),
+            Optional.empty(),
+            Optional.empty(),
+            Optional.of(CloudPlatform.GCP));
+    var cursor = new ProfileCursor(Instant.now(), UUID.randomUUID());
+    when(samService.listProfileIds(user)).thenReturn(List.of(profile.id()));
+    when(profileDao.searchBillingProfiles(filter, cursor, 10, List.of(profile.id())))
+        .thenReturn(List.of(profile));
+
+    var result = profileService.searchProfiles(user, filter, 10, cursor, ProfileEnrichment.ALL);
+
+    assertEquals(List.of(profileDescription), result);
+  }
+
+  @Test
+  void listProfilesWithoutEnrichment() throws InterruptedException {
+    when(samService.listProfileIds(user)).thenReturn(List.of(profile.id()));
+    when(profileDao.listBillingProfiles(anyInt(), anyInt(), eq(List.of(profile.id()))))
+        .thenReturn(List.of(profile));
+
+    var result = profileService.listProfiles(user, 0, 10, null, Set.of());
+
+    assertEquals(List.of(new ProfileDescription(profile)), result);
+    verifyNoInteractions(tpsApiDispatch, enterpriseConfiguration, limitsConfiguration);
+  }
+
+  @Test
+  void exportProfilesInBatches() {
+    var profiles =
+        IntStream.range(0, 3)
+            .mapToObj(i -> ProfileFixtures.createGcpBillingProfile("billingAccount" + i))
+            .toList();
+    doAnswer(
+            invocation -> {
+              Consumer<BillingProfile> consumer = invocation.getArgument(1);
+              profiles.forEach(consumer);
+              return null;
+            })
+        .when(profileDao)
+        .streamBillingProfiles(eq(100), any());
+
+    List<List<ProfileDescription>> batches = new ArrayList<>();
+    profileService.exportProfiles(user, Set.of(), batches::add);
+
+    assertEquals(
+        List.of(
+            List.of(
+                new ProfileDescription(profiles.get(0)), new ProfileDescription(profiles.get(1))),
+            List.of(new ProfileDescription(profiles.get(2)))),
+        batches);
+    verifyNoInteractions(tpsApiDispatch);
+  }
+
+  @Test
+  void exportProfilesRequiresAdmin() throws InterruptedException {
+    doThrow(new ForbiddenException("forbidden"))
+        .when(samService)
+        .verifyResourceAdmin(user, SamResourceType.PROFILE, SamAction.READ_SUMMARY_INFORMATION);
+    assertThrows(
+        ForbiddenException.class,
+        () -> profileService.exportProfiles(user, ProfileEnrichment.ALL, batch -> {}));
+    verifyNoInteractions(profileDao);
+  }
+
+  @Test
+  void batchGetProfiles() throws InterruptedException {
+    var missingId = UUID.randomUUID();
+    var forbiddenId = UUID.randomUUID();
+    when(samService.listProfileIds(user)).thenReturn(List.of(profile.id(), missingId));
+    when(profileDao.listBillingProfiles(0, 2, List.of(profile.id(), missingId)))
+        .thenReturn(List.of(profile));
+
+    var result =
+        profileService.batchGetProfiles(
+            user, List.of(forbiddenId, profile.id(), missingId, profile.id()));
+
+    assertEquals(
+        List.of(
+            ProfileBatchGetResult.forbidden(forbiddenId),
+            ProfileBatchGetResult.found(profileDescription),
+            ProfileBatchGetResult.notFound(missingId)),
+        result);
+    verify(tpsApiDispatch).listPaos(List.of(profile.id()));
+  }
+
+  @Test
+  void batchGetProfilesTooMany() {
+    var ids = IntStream.range(0, 101).mapToObj(i -> UUID.randomUUID()).toList();
+
+    assertThrows(InvalidFieldException.class, () -> profileService.batchGetProfiles(user, ids));
+    assertThrows(
+        InvalidFieldException.class, () -> profileService.batchGetProfiles(user, List.of()));
+    verifyNoInteractions(samService);
+  }
+
+  @Test
+  void listProfilesWhenTpsUnavailable() throws InterruptedException {
+    var policies =
+        new TpsPolicyInputs()
+            .addInputsItem(new TpsPolicyInput().namespace("terra").name("protected-data"));
+    var cachedProfile = ProfileFixtures.createGcpBillingProfile("ABCD1234");
+    when(samService.listProfileIds(user)).thenReturn(List.of(profile.id(), cachedProfile.id()));
+    when(profileDao.listBillingProfiles(anyInt(), anyInt(), any()))
+        .thenReturn(List.of(profile, cachedProfile));
+    when(tpsApiDispatch.listPaos(any()))
+        .thenThrow(new PolicyServiceAPIException("Timed out listing PAOs from Policy Service"));
+    when(tpsApiDispatch.listCachedPaos(List.of(profile.id(), cachedProfile.id())))
+        .thenReturn(
+            List.of(
+                new TpsPaoGetResult().objectId(cachedProfile.id()).effectiveAttributes(policies)));
+
+    var result = profileService.listProfiles(user, 0, 0, null, ProfileEnrichment.ALL);
+
+    assertEquals(
+        List.of(
+            new ProfileDescription(
+                profile,
+                Optional.empty(),
+                Optional.of(new Organization().enterprise(false).limits(Map.of())),
+                true),
+            new ProfileDescription(
+                cachedProfile,
+                Optional.of(policies),
+                Optional.of(new Organization().enterprise(false).limits(Map.of())),
+                false)),
+        result);
+  }
+
   @Test
   void updateProfileSuccess() throws InterruptedException {
     var newBillingAccount = "newBillingAccount";
@@ -400,27 +692,24 @@ class ProfileServiceUnitTest extends BaseUnitTest {
             profile.createdTime(),
             profile.lastModified(),
             profile.createdBy());
-    when(profileDao.updateProfile(profile.id(), newDescription, newBillingAccount))
-        .thenReturn(true);
-    when(profileDao.getBillingProfileById(profile.id())).thenReturn(updatedProfile);
-    when(tpsApiDispatch.getOrCreatePao(any(), any(), any())).thenReturn(new TpsPaoGetResult());
-    var expectedChanges =
-        Map.of("description", newDescription, "billing_account_id", newBillingAccount);
-    when(changeLogDao.recordProfileUpdate(profile.id(), user.getSubjectId(), expectedChanges))
-        .thenReturn(Optional.of(UUID.randomUUID()));
+    when(profileDao.updateProfile(
+            profile.id(), newDescription, newBillingAccount, user.getSubjectId()))
+        .thenReturn(Optional.of(updatedProfile));
+    when(tpsApiDispatch.getPao(any())).thenReturn(new TpsPaoGetResult());
 
     var res = profileService.updateProfile(profile.id(), updateRequest, user);
 
     assertEquals(newBillingAccount, res.billingProfile().billingAccountId().get());
     assertEquals(newDescription, res.billingProfile().description());
     verify(samService)
-        .verifyAuthorization(
-            user, SamResourceType.PROFILE, profile.id(), SamAction.UPDATE_METADATA);
-    verify(samService)
-        .verifyAuthorization(
-            user, SamResourceType.PROFILE, profile.id(), SamAction.UPDATE_BILLING_ACCOUNT);
+        .verifyAuthorizations(
+            user,
+            SamResourceType.PROFILE,
+            profile.id(),
+            EnumSet.of(SamAction.UPDATE_METADATA, SamAction.UPDATE_BILLING_ACCOUNT));
     verify(gcpService).verifyUserBillingAccountAccess(Optional.of(newBillingAccount), user);
-    verify(changeLogDao).recordProfileUpdate(profile.id(), user.getSubjectId(), expectedChanges);
+    // The updated profile comes back from the update itself
+    verify(profileDao, never()).getBillingProfileById(any());
   }
 
   @Test
@@ -442,25 +731,21 @@ class ProfileServiceUnitTest extends BaseUnitTest {
             profile.lastModified(),
             profile.createdBy());
 
-    when(profileDao.updateProfile(profile.id(), null, newBillingAccount)).thenReturn(true);
-    when(profileDao.getBillingProfileById(profile.id())).thenReturn(updatedProfile);
-    when(tpsApiDispatch.getOrCreatePao(any(), any(), any())).thenReturn(new TpsPaoGetResult());
-    var expectedChanges = Map.of("billing_account_id", newBillingAccount);
-    when(changeLogDao.recordProfileUpdate(profile.id(), user.getSubjectId(), expectedChanges))
-        .thenReturn(Optional.of(UUID.randomUUID()));
+    when(profileDao.updateProfile(profile.id(), null, newBillingAccount, user.getSubjectId()))
+        .thenReturn(Optional.of(updatedProfile));
+    when(tpsApiDispatch.getPao(any())).thenReturn(new TpsPaoGetResult());
 
     var res = profileService.updateProfile(profile.id(), updateRequest, user);
 
     assertEquals(newBillingAccount, res.billingProfile().billingAccountId().get());
     assertEquals(profile.description(), res.billingProfile().description());
-    verify(samService, times(0))
-        .verifyAuthorization(
-            user, SamResourceType.PROFILE, profile.id(), SamAction.UPDATE_METADATA);
     verify(samService)
-        .verifyAuthorization(
-            user, SamResourceType.PROFILE, profile.id(), SamAction.UPDATE_BILLING_ACCOUNT);
+        .verifyAuthorizations(
+            user,
+            SamResourceType.PROFILE,
+            profile.id(),
+            EnumSet.of(SamAction.UPDATE_BILLING_ACCOUNT));
     verify(gcpService).verifyUserBillingAccountAccess(Optional.of(newBillingAccount), user);
-    verify(changeLogDao).recordProfileUpdate(profile.id(), user.getSubjectId(), expectedChanges);
   }
 
   @Test
@@ -482,12 +767,9 @@ class ProfileServiceUnitTest extends BaseUnitTest {
             profile.lastModified(),
             profile.createdBy());
 
-    when(profileDao.updateProfile(profile.id(), newDescription, null)).thenReturn(true);
-    when(profileDao.getBillingProfileById(profile.id())).thenReturn(updatedProfile);
-    when(tpsApiDispatch.getOrCreatePao(any(), any(), any())).thenReturn(new TpsPaoGetResult());
-    var expectedChanges = Map.of("description", newDescription);
-    when(changeLogDao.recordProfileUpdate(profile.id(), user.getSubjectId(), expectedChanges))
-        .thenReturn(Optional.of(UUID.randomUUID()));
+    when(profileDao.updateProfile(profile.id(), newDescription, null, user.getSubjectId()))
+        .thenReturn(Optional.of(updatedProfile));
+    when(tpsApiDispatch.getPao(any())).thenReturn(new TpsPaoGetResult());
 
     var res = profileService.updateProfile(profile.id(), updateRequest, user);
 
@@ -495,13 +777,9 @@ class ProfileServiceUnitTest extends BaseUnitTest {
         profile.getRequiredBillingAccountId(), res.billingProfile().billingAccountId().get());
     assertEquals(newDescription, res.billingProfile().description());
     verify(samService)
-        .verifyAuthorization(
-            user, SamResourceType.PROFILE, profile.id(), SamAction.UPDATE_METADATA);
-    verify(samService, times(0))
-        .verifyAuthorization(
-            user, SamResourceType.PROFILE, profile.id(), SamAction.UPDATE_BILLING_ACCOUNT);
+        .verifyAuthorizations(
+            user, SamResourceType.PROFILE, profile.id(), EnumSet.of(SamAction.UPDATE_METADATA));
     verifyNoInteractions(gcpService);
-    verify(changeLogDao).recordProfileUpdate(profile.id(), user.getSubjectId(), expectedChanges);
   }
 
   @Test
@@ -524,12 +802,9 @@ class ProfileServiceUnitTest extends BaseUnitTest {
             profile.createdTime(),
             profile.lastModified(),
             profile.createdBy());
-    when(profileDao.updateProfile(profile.id(), newDescription, null)).thenReturn(true);
-    when(profileDao.getBillingProfileById(profile.id())).thenReturn(updatedProfile);
-    when(tpsApiDispatch.getOrCreatePao(any(), any(), any())).thenReturn(new TpsPaoGetResult());
-    var expectedChanges = Map.of("description", newDescription);
-    when(changeLogDao.recordProfileUpdate(profile.id(), specifiedUser, expectedChanges))
-        .thenReturn(Optional.of(UUID.randomUUID()));
+    when(profileDao.updateProfile(profile.id(), newDescription, null, specifiedUser))
+        .thenReturn(Optional.of(updatedProfile));
+    when(tpsApiDispatch.getPao(any())).thenReturn(new TpsPaoGetResult());
 
     var res = profileService.updateProfile(profile.id(), updateRequest, user);
 
@@ -537,15 +812,11 @@ class ProfileServiceUnitTest extends BaseUnitTest {
         profile.getRequiredBillingAccountId(), res.billingProfile().billingAccountId().get());
     assertEquals(newDescription, res.billingProfile().description());
     verify(samService)
-        .verifyAuthorization(
-            user, SamResourceType.PROFILE, profile.id(), SamAction.UPDATE_METADATA);
-    verify(samService, times(0))
-        .verifyAuthorization(
-            user, SamResourceType.PROFILE, profile.id(), SamAction.UPDATE_BILLING_ACCOUNT);
+        .verifyAuthorizations(
+            user, SamResourceType.PROFILE, profile.id(), EnumSet.of(SamAction.UPDATE_METADATA));
     verifyNoInteractions(gcpService);
     verify(samService)
         .verifyResourceAdmin(user, SamResourceType.PROFILE, SamAction.SPECIFY_ACTING_USER);
-    verify(changeLogDao).recordProfileUpdate(profile.id(), specifiedUser, expectedChanges);
   }
 
   @Test
@@ -577,18 +848,15 @@ class ProfileServiceUnitTest extends BaseUnitTest {
 
     doThrow(new ForbiddenException("forbidden"))
         .when(samService)
-        .verifyAuthorization(
-            user, SamResourceType.PROFILE, profile.id(), SamAction.UPDATE_METADATA);
+        .verifyAuthorizations(
+            user, SamResourceType.PROFILE, profile.id(), EnumSet.of(SamAction.UPDATE_METADATA));
 
     assertThrows(
         ForbiddenException.class,
         () -> profileService.updateProfile(profile.id(), updateRequest, user));
     verify(samService)
-        .verifyAuthorization(
-            user, SamResourceType.PROFILE, profile.id(), SamAction.UPDATE_METADATA);
-    verify(samService, times(0))
-        .verifyAuthorization(
-            user, SamResourceType.PROFILE, profile.id(), SamAction.UPDATE_BILLING_ACCOUNT);
+        .verifyAuthorizations(
+            user, SamResourceType.PROFILE, profile.id(), EnumSet.of(SamAction.UPDATE_METADATA));
     verifyNoInteractions(gcpService);
     verifyNoInteractions(profileDao);
   }
@@ -600,18 +868,21 @@ class ProfileServiceUnitTest extends BaseUnitTest {
 
     doThrow(new ForbiddenException("forbidden"))
         .when(samService)
-        .verifyAuthorization(
-            user, SamResourceType.PROFILE, profile.id(), SamAction.UPDATE_BILLING_ACCOUNT);
+        .verifyAuthorizations(
+            user,
+            SamResourceType.PROFILE,
+            profile.id(),
+            EnumSet.of(SamAction.UPDATE_BILLING_ACCOUNT));
 
     assertThrows(
         ForbiddenException.class,
         () -> profileService.updateProfile(profile.id(), updateRequest, user));
-    verify(samService, times(0))
-        .verifyAuthorization(
-            user, SamResourceType.PROFILE, profile.id(), SamAction.UPDATE_METADATA);
     verify(samService)
-        .verifyAuthorization(
-            user, SamResourceType.PROFILE, profile.id(), SamAction.UPDATE_BILLING_ACCOUNT);
+        .verifyAuthorizations(
+            user,
+            SamResourceType.PROFILE,
+            profile.id(),
+            EnumSet.of(SamAction.UPDATE_BILLING_ACCOUNT));
     verifyNoInteractions(gcpService);
     verifyNoInteractions(profileDao);
   }
@@ -628,12 +899,12 @@ class ProfileServiceUnitTest extends BaseUnitTest {
     assertThrows(
         InaccessibleBillingAccountException.class,
         () -> profileService.updateProfile(profile.id(), updateRequest, user));
-    verify(samService, times(0))
-        .verifyAuthorization(
-            user, SamResourceType.PROFILE, profile.id(), SamAction.UPDATE_METADATA);
     verify(samService)
-        .verifyAuthorization(
-            user, SamResourceType.PROFILE, profile.id(), SamAction.UPDATE_BILLING_ACCOUNT);
+        .verifyAuthorizations(
+            user,
+            SamResourceType.PROFILE,
+            profile.id(),
+            EnumSet.of(SamAction.UPDATE_BILLING_ACCOUNT));
     verify(gcpService).verifyUserBillingAccountAccess(Optional.of(newBillingAccount), user);
     verifyNoInteractions(profileDao);
   }
@@ -645,8 +916,9 @@ class ProfileServiceUnitTest extends BaseUnitTest {
     var updateRequest =
         new UpdateProfileRequest().description(newDescription).billingAccountId(newBillingAccount);
 
-    when(profileDao.updateProfile(profile.id(), newDescription, newBillingAccount))
-        .thenReturn(false);
+    when(profileDao.updateProfile(
+            profile.id(), newDescription, newBillingAccount, user.getSubjectId()))
+        .thenReturn(Optional.empty());
 
     assertThrows(
         ProfileNotFoundException.class,
@@ -655,42 +927,41 @@ class ProfileServiceUnitTest extends BaseUnitTest {
 
   @Test
   void removeBillingAccount() {
-    var expectedChanges = new HashMap<String, String>();
-    expectedChanges.put("billing_account_id", null);
-    when(changeLogDao.recordProfileUpdate(profile.id(), user.getSubjectId(), expectedChanges))
-        .thenReturn(Optional.of(UUID.randomUUID()));
-
-    when(profileDao.removeBillingAccount(profile.id())).thenReturn(true);
+    when(profileDao.removeBillingAccount(profile.id(), user.getSubjectId()))
+        .thenReturn(Optional.of(profile));
     profileService.removeBillingAccount(profile.id(), user, null);
 
-    verify(profileDao).removeBillingAccount(profile.id());
-    verify(changeLogDao).recordProfileUpdate(profile.id(), user.getSubjectId(), expectedChanges);
+    verify(profileDao).removeBillingAccount(profile.id(), user.getSubjectId());
   }
 
   @Test
   void removeBillingAccountUsesRequestingUserIdWhenSpecified() throws Exception {
-    var expectedChanges = new HashMap<String, String>();
-    expectedChanges.put("billing_account_id", null);
     var specifiedUserId = UUID.randomUUID().toString();
-    when(changeLogDao.recordProfileUpdate(profile.id(), specifiedUserId, expectedChanges))
-        .thenReturn(Optional.of(UUID.randomUUID()));
-
-    when(profileDao.removeBillingAccount(profile.id())).thenReturn(true);
+    when(profileDao.removeBillingAccount(profile.id(), specifiedUserId))
+        .thenReturn(Optional.of(profile));
     profileService.removeBillingAccount(profile.id(), user, specifiedUserId);
 
-    verify(profileDao).removeBillingAccount(profile.id());
-    verify(changeLogDao).recordProfileUpdate(profile.id(), specifiedUserId, expectedChanges);
+    verify(profileDao).removeBillingAccount(profile.id(), specifiedUserId);
     verify(samService)
         .verifyResourceAdmin(user, SamResourceType.PROFILE, SamAction.SPECIFY_ACTING_USER);
   }
 
+  @Test
+  void removeBillingAccountNotFound() {
+    when(profileDao.removeBillingAccount(profile.id(), user.getSubjectId()))
+        .thenReturn(Optional.empty());
+
+    assertThrows(
+        ProfileNotFoundException.class,
+        () -> profileService.removeBillingAccount(profile.id(), user, null));
+  }
+
   @Test
   void removeBillingAccountNoAccess() throws InterruptedException {
     doThrow(new ForbiddenException("forbidden"))
         .when(samService)
         .verifyAuthorization(
             user, SamResourceType.PROFILE, profile.id(), SamAction.UPDATE_BILLING_ACCOUNT);
-    when(profileDao.removeBillingAccount(profile.id())).thenReturn(true);
     assertThrows(
         ForbiddenException.class,
         () -> profileService.removeBillingAccount(profile.id(), user, null));
@@ -726,6 +997,42 @@ class ProfileServiceUnitTest extends BaseUnitTest {
         NotFoundException.class, () -> profileService.getProfilePolicies(profile.id(), user));
   }
 
+  @Test
+  void getProfileChanges() throws InterruptedException {
+    var filter =
+        new ChangeLogFilter(Optional.of(ChangeType.UPDATE), Optional.empty(), Optional.empty());
+    var after = new ChangeLogCursor(Instant.now(), UUID.randomUUID());
+    var changes =
+        List.of(
+            new ChangeLogEntry(
+                UUID.randomUUID(),
+                profile.id(),
+                ChangeType.UPDATE,
+                user.getSubjectId(),
+                new Date(),
+                Map.of()));
+    when(changeLogDao.listChangesByProfile(profile.id(), filter, after, 10)).thenReturn(changes);
+
+    var result = profileService.getProfileChanges(profile.id(), user, filter, after, 10);
+
+    assertEquals(changes, result);
+    verify(samService)
+        .verifyAuthorization(user, SamResourceType.PROFILE, profile.id(), SamAction.READ_PROFILE);
+  }
+
+  @Test
+  void getProfileChangesNoAccess() throws InterruptedException {
+    doThrow(new ForbiddenException("forbidden"))
+        .when(samService)
+        .verifyAuthorization(user, SamResourceType.PROFILE, profile.id(), SamAction.READ_PROFILE);
+    var filter = new ChangeLogFilter(Optional.empty(), Optional.empty(), Optional.empty());
+
+    assertThrows(
+        ForbiddenException.class,
+        () -> profileService.getProfileChanges(profile.id(), user, filter, null, 10));
+    verifyNoInteractions(changeLogDao);
+  }
+
   @Test
   void addProfilePolicyMember() throws InterruptedException {
     when(samService.addProfilePolicyMember(user, profile.id(), "user", "user@unit.com"))
@@ -793,6 +1100,58 @@ class ProfileServiceUnitTest extends BaseUnitTest {
             profileService.deleteProfilePolicyMember(profile.id(), "user", "user@unit.com", user));
   }
 
+  @Test
+  void updateProfilePolicyMembers() throws InterruptedException {
+    when(samService.updateProfilePolicyMembers(
+            user, profile.id(), "user", Set.of("new@unit.com"), Set.of("leaving@unit.com")))
+        .thenReturn(userPolicy);
+    var result =
+        profileService.updateProfilePolicyMembers(
+            profile.id(),
+            "user",
+            List.of("new@unit.com", "new@unit.com"),
+            List.of("leaving@unit.com"),
+            user);
+    assertEquals(userPolicy, result);
+  }
+
+  @Test
+  void updateProfilePolicyMembersEmpty() {
+    assertThrows(
+        BadRequestException.class,
+        () ->
+            profileService.updateProfilePolicyMembers(
+                profile.id(), "user", List.of(), List.of(), user));
+  }
+
+  @Test
+  void updateProfilePolicyMembersAddAndRemoveSameMember() {
+    assertThrows(
+        BadRequestException.class,
+        () ->
+            profileService.updateProfilePolicyMembers(
+                profile.id(), "user", List.of("a@unit.com"), List.of("a@unit.com"), user));
+  }
+
+  @Test
+  void updateProfilePolicyMembersRemoveSelf() {
+    assertThrows(
+        BadRequestException.class,
+        () ->
+            profileService.updateProfilePolicyMembers(
+                profile.id(), "user", List.of(), List.of(user.getEmail()), user));
+  }
+
+  @Test
+  void updateProfilePolicyMembersTooMany() {
+    var emails = IntStream.range(0, 101).mapToObj(i -> i + "@unit.com").toList();
+    assertThrows(
+        BadRequestException.class,
+        () ->
+            profileService.updateProfilePolicyMembers(
+                profile.id(), "user", emails, List.of(), user));
+  }
+
   @Test
   void createProfileFlightSetup() {
     var billingCow = mock(CloudBillingClientCow.class);
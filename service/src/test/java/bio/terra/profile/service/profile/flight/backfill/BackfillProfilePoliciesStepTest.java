@@ -0,0 +1,90 @@
+package bio.terra.profile.service.profile.flight.backfill;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import bio.terra.policy.model.TpsComponent;
+import bio.terra.policy.model.TpsObjectType;
+import bio.terra.policy.model.TpsPaoGetResult;
+import bio.terra.profile.common.BaseUnitTest;
+import bio.terra.profile.db.ProfileDao;
+import bio.terra.profile.service.policy.TpsApiDispatch;
+import bio.terra.profile.service.policy.exception.PolicyServiceDuplicateException;
+import bio.terra.profile.service.profile.flight.ProfileMapKeys;
+import bio.terra.stairway.FlightContext;
+import bio.terra.stairway.FlightMap;
+import bio.terra.stairway.StepStatus;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class BackfillProfilePoliciesStepTest extends BaseUnitTest {
+  private ProfileDao profileDao;
+  private TpsApiDispatch tpsApiDispatch;
+  private FlightContext context;
+  private FlightMap workingMap;
+  private BackfillProfilePoliciesStep step;
+
+  @BeforeEach
+  void before() {
+    profileDao = mock(ProfileDao.class);
+    tpsApiDispatch = mock(TpsApiDispatch.class);
+    context = mock(FlightContext.class);
+    workingMap = new FlightMap();
+    when(context.getWorkingMap()).thenReturn(workingMap);
+    step = new BackfillProfilePoliciesStep(profileDao, tpsApiDispatch, 2);
+  }
+
+  @Test
+  void createsMissingPaosAndRecordsProgress() throws Exception {
+    var withPao = UUID.randomUUID();
+    var withoutPao = UUID.randomUUID();
+    when(profileDao.listBillingProfileIdsAfter(null, 2)).thenReturn(List.of(withPao, withoutPao));
+    when(tpsApiDispatch.listPaos(List.of(withPao, withoutPao)))
+        .thenReturn(List.of(new TpsPaoGetResult().objectId(withPao)));
+
+    var result = step.doStep(context);
+
+    assertEquals(StepStatus.STEP_RESULT_RERUN, result.getStepStatus());
+    verify(tpsApiDispatch)
+        .createPao(withoutPao, null, TpsComponent.BPM, TpsObjectType.BILLING_PROFILE);
+    verify(tpsApiDispatch, never())
+        .createPao(withPao, null, TpsComponent.BPM, TpsObjectType.BILLING_PROFILE);
+    assertEquals(withoutPao, workingMap.get(ProfileMapKeys.BACKFILL_LAST_PROFILE_ID, UUID.class));
+    assertEquals(2L, workingMap.get(ProfileMapKeys.BACKFILL_CHECKED_COUNT, Long.class));
+    assertEquals(1L, workingMap.get(ProfileMapKeys.BACKFILL_CREATED_COUNT, Long.class));
+  }
+
+  @Test
+  void resumesAfterLastProfile() throws Exception {
+    var lastProfileId = UUID.randomUUID();
+    workingMap.put(ProfileMapKeys.BACKFILL_LAST_PROFILE_ID, lastProfileId);
+    when(profileDao.listBillingProfileIdsAfter(lastProfileId, 2)).thenReturn(List.of());
+
+    var result = step.doStep(context);
+
+    assertEquals(StepStatus.STEP_RESULT_SUCCESS, result.getStepStatus());
+    verify(tpsApiDispatch, never()).listPaos(any());
+  }
+
+  @Test
+  void concurrentlyCreatedPaoIgnored() throws Exception {
+    var profileId = UUID.randomUUID();
+    when(profileDao.listBillingProfileIdsAfter(null, 2)).thenReturn(List.of(profileId));
+    when(tpsApiDispatch.listPaos(List.of(profileId))).thenReturn(List.of());
+    doThrow(new PolicyServiceDuplicateException("duplicate"))
+        .when(tpsApiDispatch)
+        .createPao(profileId, null, TpsComponent.BPM, TpsObjectType.BILLING_PROFILE);
+
+    var result = step.doStep(context);
+
+    assertEquals(StepStatus.STEP_RESULT_RERUN, result.getStepStatus());
+    assertEquals(0L, workingMap.get(ProfileMapKeys.BACKFILL_CREATED_COUNT, Long.class));
+  }
+}
@@ -0,0 +1,52 @@
+package bio.terra.profile.service.profile.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import bio.terra.profile.common.BaseUnitTest;
+import bio.terra.profile.model.ChangeType;
+import bio.terra.profile.service.profile.exception.InvalidFieldException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Map;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class ChangeLogCursorTest extends BaseUnitTest {
+
+  @Test
+  void roundTrip() {
+    var cursor =
+        new ChangeLogCursor(Instant.parse("2024-05-01T12:34:56.123456Z"), UUID.randomUUID());
+
+    assertEquals(cursor, ChangeLogCursor.decode(cursor.encode()));
+  }
+
+  @Test
+  void afterKeepsMicroseconds() {
+    var changeDate = Instant.parse("2024-05-01T12:34:56.123456Z");
+    var entry =
+        new ChangeLogEntry(
+            UUID.randomUUID(),
+            UUID.randomUUID(),
+            ChangeType.UPDATE,
+            "user",
+            Timestamp.from(changeDate),
+            Map.of());
+
+    assertEquals(new ChangeLogCursor(changeDate, entry.id()), ChangeLogCursor.after(entry));
+  }
+
+  @Test
+  void decodeInvalid() {
+    var notAnId =
+        Base64.getUrlEncoder()
+            .encodeToString("2024-05-01T12:34:56Z/not-an-id".getBytes(StandardCharsets.UTF_8));
+
+    assertThrows(InvalidFieldException.class, () -> ChangeLogCursor.decode("not a cursor"));
+    assertThrows(InvalidFieldException.class, () -> ChangeLogCursor.decode(notAnId));
+    assertThrows(InvalidFieldException.class, () -> ChangeLogCursor.decode(""));
+  }
+}
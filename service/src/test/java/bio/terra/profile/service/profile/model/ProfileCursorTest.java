@@ -0,0 +1,33 @@
+package bio.terra.profile.service.profile.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import bio.terra.profile.common.BaseUnitTest;
+import bio.terra.profile.service.profile.exception.InvalidFieldException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class ProfileCursorTest extends BaseUnitTest {
+
+  @Test
+  void roundTrip() {
+    var cursor = new ProfileCursor(Instant.parse("2024-05-01T12:34:56.123456Z"), UUID.randomUUID());
+
+    assertEquals(cursor, ProfileCursor.decode(cursor.encode()));
+  }
+
+  @Test
+  void decodeInvalid() {
+    var notAnId =
+        Base64.getUrlEncoder()
+            .encodeToString("2024-05-01T12:34:56Z/not-an-id".getBytes(StandardCharsets.UTF_8));
+
+    assertThrows(InvalidFieldException.class, () -> ProfileCursor.decode("not a cursor"));
+    assertThrows(InvalidFieldException.class, () -> ProfileCursor.decode(notAnId));
+    assertThrows(InvalidFieldException.class, () -> ProfileCursor.decode(""));
+  }
+}
@@ -0,0 +1,72 @@
+package bio.terra.profile.service.profile.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import bio.terra.policy.model.TpsPolicyInput;
+import bio.terra.policy.model.TpsPolicyInputs;
+import bio.terra.profile.common.BaseUnitTest;
+import bio.terra.profile.common.ProfileFixtures;
+import bio.terra.profile.model.Organization;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+
+class ProfileDescriptionTest extends BaseUnitTest {
+  private final BillingProfile profile = ProfileFixtures.createGcpBillingProfile("ABCD1234");
+  private final Optional<Organization> organization =
+      Optional.of(new Organization().enterprise(false).limits(Map.of()));
+
+  private static Optional<TpsPolicyInputs> policies(String name) {
+    return Optional.of(
+        new TpsPolicyInputs().addInputsItem(new TpsPolicyInput().namespace("terra").name(name)));
+  }
+
+  @Test
+  void etagIsStable() {
+    assertEquals(
+        new ProfileDescription(profile, policies("protected-data"), organization).etag(),
+        new ProfileDescription(profile, policies("protected-data"), organization).etag());
+  }
+
+  @Test
+  void etagChangesWithProfile() {
+    var modified =
+        new BillingProfile(
+            profile.id(),
+            profile.displayName(),
+            "new description",
+            profile.biller(),
+            profile.cloudPlatform(),
+            profile.billingAccountId(),
+            profile.tenantId(),
+            profile.subscriptionId(),
+            profile.managedResourceGroupId(),
+            profile.createdTime(),
+            Instant.now().plusSeconds(1),
+            profile.createdBy());
+
+    assertNotEquals(
+        new ProfileDescription(profile, Optional.empty(), organization).etag(),
+        new ProfileDescription(modified, Optional.empty(), organization).etag());
+  }
+
+  @Test
+  void etagChangesWithPolicies() {
+    assertNotEquals(
+        new ProfileDescription(profile, policies("protected-data"), organization).etag(),
+        new ProfileDescription(profile, policies("group-constraint"), organization).etag());
+  }
+
+  @Test
+  void etagChangesWithOrganization() {
+    assertNotEquals(
+        new ProfileDescription(profile, Optional.empty(), organization).etag(),
+        new ProfileDescription(
+                profile,
+                Optional.empty(),
+                Optional.of(new Organization().enterprise(true).limits(Map.of())))
+            .etag());
+  }
+}